@@ -47,8 +47,18 @@ export default function AiChat({ user, onLogout }) {
     provider: 'none',
     message: 'Checking AI status...',
   });
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingOlder, setLoadingOlder] = useState(false);
   const chatEnd = useRef(null);
   const inputRef = useRef(null);
+  const keepScroll = useRef(false);
+
+  const fetchHistoryPage = async (cursor) => {
+    const params = cursor ? `&cursor=${encodeURIComponent(cursor)}` : '';
+    const res = await api.get(`/ai/history?userId=${user.id}${params}`);
+    setNextCursor(res.data?.nextCursor || null);
+    return (res.data?.messages || []).map((m) => ({ id: m.id, role: m.role, content: m.content }));
+  };
 
   useEffect(() => {
     api.get('/ai/status')
@@ -70,16 +80,30 @@ export default function AiChat({ user, onLogout }) {
   }, []);
 
   useEffect(() => {
-    api.get(`/ai/history?userId=${user.id}`)
-      .then((res) => {
-        if (Array.isArray(res.data) && res.data.length) {
-          setMessages(res.data.map((m) => ({ id: m.id, role: m.role, content: m.content })));
-        }
+    fetchHistoryPage(null)
+      .then((page) => {
+        if (page.length) setMessages(page);
       })
       .catch(() => {});
   }, [user.id]);
 
+  const loadOlder = async () => {
+    setLoadingOlder(true);
+    try {
+      const older = await fetchHistoryPage(nextCursor);
+      keepScroll.current = true;
+      setMessages((prev) => [...older, ...prev]);
+    } catch {
+      toast.error('Failed to load earlier messages');
+    }
+    setLoadingOlder(false);
+  };
+
   useEffect(() => {
+    if (keepScroll.current) {
+      keepScroll.current = false; // older messages were prepended: stay where the user is
+      return;
+    }
     chatEnd.current?.scrollIntoView({ behavior: 'smooth' });
   }, [messages, sending]);
 
@@ -141,6 +165,7 @@ export default function AiChat({ user, onLogout }) {
       // Ignore delete sync errors and clear from UI anyway.
     }
     setMessages([]);
+    setNextCursor(null);
     toast.success('Chat cleared');
   };
 
@@ -205,6 +230,18 @@ export default function AiChat({ user, onLogout }) {
             </div>
           )}
 
+          {nextCursor && (
+            <div className="flex justify-center">
+              <button
+                onClick={loadOlder}
+                disabled={loadingOlder}
+                className="px-4 py-2 rounded-xl text-xs font-semibold bg-white dark:bg-dark-card text-brown-500 dark:text-dark-muted border border-cream-300 dark:border-dark-border hover:border-sage-300 transition-all"
+              >
+                {loadingOlder ? 'Loading…' : 'Load earlier messages'}
+              </button>
+            </div>
+          )}
+
           {messages.map((msg, i) => (
             <div
               key={i}
@@ -42,13 +42,25 @@ export default function FoodLogging({ user, onLogout }) {
   }, []);
 
   useEffect(() => {
-    let list = foods;
-    if (category !== 'ALL') list = list.filter((f) => f.category === category);
-    if (query.trim()) {
-      const q = query.toLowerCase();
-      list = list.filter((f) => f.name.toLowerCase().includes(q));
+    if (!query.trim()) {
+      setFiltered(category === 'ALL' ? foods : foods.filter((f) => f.category === category));
+      return undefined;
     }
-    setFiltered(list);
+    // Ranked search runs on the server's in-memory index; wait for a pause in typing
+    let cancelled = false;
+    const timer = setTimeout(() => {
+      const params = new URLSearchParams({ query: query.trim(), limit: '100', fuzzy: 'true' });
+      if (category !== 'ALL') params.set('category', category);
+      api.get(`/foods/search?${params}`)
+        .then((r) => {
+          if (!cancelled) setFiltered((r.data || []).map(normalizeFoodItem));
+        })
+        .catch(() => {});
+    }, 150);
+    return () => {
+      cancelled = true;
+      clearTimeout(timer);
+    };
   }, [query, category, foods]);
 
   const toggle = (id) => {
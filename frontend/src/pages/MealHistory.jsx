@@ -13,15 +13,34 @@ export default function MealHistory({ user, onLogout }) {
   const [filter, setFilter] = useState('ALL');
   const [loading, setLoading] = useState(true);
   const [deleting, setDeleting] = useState(null);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
+
+  const fetchPage = async (cursor) => {
+    const params = cursor ? `?cursor=${encodeURIComponent(cursor)}` : '';
+    const res = await api.get(`/dietary-entries/user/${user.id}${params}`);
+    setNextCursor(res.data?.nextCursor || null);
+    return mapDietaryEntries(res.data?.entries);
+  };
 
   const load = async () => {
     try {
-      const res = await api.get(`/dietary-entries/user/${user.id}`);
-      setEntries(mapDietaryEntries(res.data));
+      setEntries(await fetchPage(null));
     } catch { /* silent */ }
     setLoading(false);
   };
 
+  const loadMore = async () => {
+    setLoadingMore(true);
+    try {
+      const more = await fetchPage(nextCursor);
+      setEntries((prev) => [...prev, ...more]);
+    } catch {
+      toast.error('Failed to load more entries');
+    }
+    setLoadingMore(false);
+  };
+
   useEffect(() => { load(); }, [user.id]);
 
   const handleDelete = async (id) => {
@@ -145,6 +164,18 @@ export default function MealHistory({ user, onLogout }) {
           </div>
         );
       })}
+
+      {!loading && nextCursor && (
+        <div className="flex justify-center mt-2 mb-6">
+          <button
+            onClick={loadMore}
+            disabled={loadingMore}
+            className="px-4 py-2 rounded-xl text-xs font-semibold bg-white dark:bg-dark-card text-brown-500 dark:text-dark-muted border border-cream-300 dark:border-dark-border hover:border-sage-300 transition-all"
+          >
+            {loadingMore ? 'Loading…' : 'Load older entries'}
+          </button>
+        </div>
+      )}
     </Layout>
   );
 }
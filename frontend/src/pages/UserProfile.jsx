@@ -2,7 +2,6 @@ import { useState, useEffect } from 'react';
 import toast from 'react-hot-toast';
 import Layout from '../components/Layout';
 import api from '../services/api';
-import { mapDietaryEntries } from '../utils/apiMappers';
 import {
   FiUser, FiMail, FiCalendar, FiEdit3, FiSave,
   FiLock, FiTrash2, FiActivity, FiAward, FiZap, FiX
@@ -33,16 +32,14 @@ export default function UserProfile({ user, onLogout, onUpdateUser }) {
   const bmiColor = !bmi ? '' : parseFloat(bmi) < 18.5 ? 'text-amber-500' : parseFloat(bmi) < 25 ? 'text-sage-600 dark:text-sage-400' : parseFloat(bmi) < 30 ? 'text-orange-500' : 'text-red-500';
 
   useEffect(() => {
-    api.get(`/dietary-entries/user/${user.id}`)
+    api.get(`/dietary-entries/user/${user.id}/summary`)
       .then((res) => {
-        const entries = mapDietaryEntries(res.data);
-        const dates = new Set(entries.map((e) => new Date(e.entryDate).toDateString()));
-        const totalCal = entries.reduce((s, e) => s + (e.calories || 0), 0);
+        const { totalEntries = 0, activeDays = 0, totalCalories = 0 } = res.data || {};
         setStats({
-          totalEntries: entries.length,
-          activeDays: dates.size,
-          avgPerDay: dates.size > 0 ? (entries.length / dates.size).toFixed(1) : 0,
-          totalCalories: Math.round(totalCal),
+          totalEntries,
+          activeDays,
+          avgPerDay: activeDays > 0 ? (totalEntries / activeDays).toFixed(1) : 0,
+          totalCalories: Math.round(totalCalories),
         });
       })
       .catch(() => {});
@@ -3,6 +3,7 @@ package com.nutrition.dietbalancetracker;
 // These are imports - they bring in code from other files that we need to use
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * MAIN APPLICATION CLASS
@@ -23,6 +24,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
                         // - Enables auto-configuration (Spring sets things up automatically)
                         // - Enables component scanning (finds all our @Controller, @Service, etc.)
                         // - Marks this as a Spring Boot application
+@EnableScheduling       // Runs @Scheduled jobs (nightly partition maintenance / archiving)
 public class DietBalanceTrackerApplication {
 
     /**
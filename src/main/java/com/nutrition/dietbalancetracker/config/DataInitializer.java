@@ -10,6 +10,8 @@ import com.nutrition.dietbalancetracker.model.NutrientProfile;
 import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository;
 import com.nutrition.dietbalancetracker.repository.FoodItemRepository;
 import com.nutrition.dietbalancetracker.repository.NutrientProfileRepository;
+import com.nutrition.dietbalancetracker.service.DailyNutrientRollupService;
+import com.nutrition.dietbalancetracker.service.NutrientCatalogService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -25,6 +27,8 @@ public class DataInitializer implements CommandLineRunner {
     private final FoodItemRepository foodItemRepository;
     private final NutrientProfileRepository nutrientProfileRepository;
     private final DietaryEntryRepository dietaryEntryRepository;
+    private final DailyNutrientRollupService rollupService;
+    private final NutrientCatalogService catalogService;
 
     // Version flag – bump this whenever the seed list changes so old data is refreshed
     private static final int SEED_VERSION = 2;
@@ -42,8 +46,12 @@ public class DataInitializer implements CommandLineRunner {
                 dietaryEntryRepository.deleteByFoodItemIn(systemFoods);
                 nutrientProfileRepository.deleteByFoodItemIn(systemFoods);
                 foodItemRepository.deleteAll(systemFoods);
+                // Entries for the removed foods are gone, so daily totals must be recomputed
+                rollupService.rebuildAll();
             }
             initializeSampleFoods();
+            // Publish the new catalog to aggregation code once the reseed commits
+            catalogService.refreshAfterCommit();
         }
     }
     
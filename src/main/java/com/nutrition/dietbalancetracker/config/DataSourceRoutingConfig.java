@@ -0,0 +1,73 @@
+package com.nutrition.dietbalancetracker.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * DATA SOURCE ROUTING CONFIG
+ * ==========================
+ * Active only when nutrition.datasource.replica.url is non-empty; otherwise Spring
+ * Boot's single spring.datasource pool is used as before.
+ *
+ * - primaryDataSource: the spring.datasource.* pool (writes, Flyway, and
+ *   anything outside a read-only transaction).
+ * - replicaDataSource: a read-only pool on nutrition.datasource.replica.*
+ *   (credentials default to the primary's).
+ * - dataSource (@Primary): ReadWriteRoutingDataSource behind a
+ *   LazyConnectionDataSourceProxy; JPA, JdbcTemplate and Flyway all use it.
+ */
+@Configuration
+@ConditionalOnExpression("!'${nutrition.datasource.replica.url:}'.isEmpty()")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean
+    @ConfigurationProperties("nutrition.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${nutrition.datasource.replica.url}") String url,
+            @Value("${nutrition.datasource.replica.username:}") String username,
+            @Value("${nutrition.datasource.replica.password:}") String password) {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica");
+        replica.setDriverClassName(properties.determineDriverClassName());
+        replica.setJdbcUrl(url);
+        replica.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+        replica.setPassword(password.isEmpty() ? properties.determinePassword() : password);
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${nutrition.datasource.replica.max-lag-seconds:5}") long maxLagSeconds,
+            @Value("${nutrition.datasource.replica.lag-check-interval:10s}") Duration checkInterval) {
+        ReadWriteRoutingDataSource routing =
+                new ReadWriteRoutingDataSource(primary, replica, maxLagSeconds, checkInterval.toMillis());
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
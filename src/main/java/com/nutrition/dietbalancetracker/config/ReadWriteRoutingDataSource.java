@@ -0,0 +1,128 @@
+package com.nutrition.dietbalancetracker.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * READ/WRITE ROUTING DATA SOURCE
+ * ==============================
+ * Sends connections for {@code @Transactional(readOnly = true)} work to the
+ * read replica and everything else (writes, migrations, non-transactional
+ * calls) to the primary.
+ *
+ * - Must be wrapped in a LazyConnectionDataSourceProxy: the read-only flag is
+ *   only known once the transaction has started, after the connection handle
+ *   was requested.
+ * - Replica lag is checked at most once per check interval: the first
+ *   read-only request after it expires starts the check on a background
+ *   thread and is routed on the last known state, so no request ever waits
+ *   for the probe (or for a connection to an unreachable replica). Until the
+ *   first check succeeds, and while the replica is more than max-lag seconds
+ *   behind, not replicating or unreachable, reads go to the primary.
+ * - A replica that is not configured for replication at all (e.g. a second
+ *   local instance used to try the routing) reports no status and counts as
+ *   healthy.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private static final int CHECK_TIMEOUT_SECONDS = 2;
+
+    private final DataSource replica;
+    private final long maxLagSeconds;
+    private final long checkIntervalMillis;
+    private final AtomicBoolean checking = new AtomicBoolean();
+    private final ExecutorService checker = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "replica-lag-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean replicaHealthy;
+    private volatile long nextCheckAt;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica,
+                                      long maxLagSeconds, long checkIntervalMillis) {
+        this.replica = replica;
+        this.maxLagSeconds = maxLagSeconds;
+        this.checkIntervalMillis = checkIntervalMillis;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaUsable()) {
+            return Target.REPLICA;
+        }
+        return Target.PRIMARY;
+    }
+
+    /** Last known replica state; a background re-check starts once the interval has passed. */
+    private boolean replicaUsable() {
+        if (System.currentTimeMillis() >= nextCheckAt && checking.compareAndSet(false, true)) {
+            checker.execute(() -> {
+                try {
+                    updateHealth(checkReplica());
+                } finally {
+                    nextCheckAt = System.currentTimeMillis() + checkIntervalMillis;
+                    checking.set(false);
+                }
+            });
+        }
+        return replicaHealthy;
+    }
+
+    private void updateHealth(boolean healthy) {
+        if (healthy != replicaHealthy) {
+            if (healthy) {
+                log.info("Read replica in sync; routing read-only transactions to it");
+            } else {
+                log.warn("Read replica unavailable or lagging more than {}s; reads fall back to the primary",
+                        maxLagSeconds);
+            }
+        }
+        replicaHealthy = healthy;
+    }
+
+    /** True when the replica answers and is at most maxLagSeconds behind. */
+    private boolean checkReplica() {
+        try (Connection con = replica.getConnection(); Statement st = con.createStatement()) {
+            st.setQueryTimeout(CHECK_TIMEOUT_SECONDS);
+            Long lag;
+            try (ResultSet rs = st.executeQuery("SHOW REPLICA STATUS")) {
+                lag = rs.next() ? secondsBehind(rs, "Seconds_Behind_Source") : Long.valueOf(0);
+            } catch (SQLException e) {
+                // MySQL before 8.0.22 only knows the old syntax
+                try (ResultSet rs = st.executeQuery("SHOW SLAVE STATUS")) {
+                    lag = rs.next() ? secondsBehind(rs, "Seconds_Behind_Master") : Long.valueOf(0);
+                }
+            }
+            return lag != null && lag <= maxLagSeconds;
+        } catch (SQLException e) {
+            log.debug("Read replica check failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /** Lag column value; null while replication is stopped or broken. */
+    private static Long secondsBehind(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+}
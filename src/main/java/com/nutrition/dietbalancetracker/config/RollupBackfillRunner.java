@@ -0,0 +1,45 @@
+package com.nutrition.dietbalancetracker.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository;
+import com.nutrition.dietbalancetracker.service.DailyNutrientRollupService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ROLLUP BACKFILL RUNNER
+ * ======================
+ * Fills the daily_nutrient_rollup table from existing dietary entries.
+ *
+ * - Start the app with {@code --rebuild-rollups} to force a full rebuild.
+ * - Otherwise, when the rollup table is still empty but entries exist
+ *   (first start after upgrading), it is backfilled automatically.
+ *   Disable with nutrition.rollup.backfill-on-startup=false.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RollupBackfillRunner implements ApplicationRunner {
+
+    private final DailyNutrientRollupService rollupService;
+    private final DietaryEntryRepository dietaryEntryRepository;
+
+    @Value("${nutrition.rollup.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption("rebuild-rollups")) {
+            log.info("Rebuilding daily nutrient rollups (--rebuild-rollups)");
+            rollupService.rebuildAll();
+        } else if (backfillOnStartup && rollupService.isEmpty() && dietaryEntryRepository.count() > 0) {
+            log.info("Daily nutrient rollup table is empty; backfilling from dietary entries");
+            rollupService.rebuildAll();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.nutrition.dietbalancetracker.config;
+
+import java.net.URI;
+import java.time.Duration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SECOND LEVEL CACHE CONFIG
+ * =========================
+ * Local (per instance) Ehcache behind Hibernate's JCache region factory.
+ *
+ * Regions (names used in the entities' @Cache annotations):
+ * - catalog: FoodItem, NutrientProfile. Read-mostly, long TTL.
+ * - users:   User, NutritionGoal. Short TTL; READ_WRITE, so an update through
+ *            JPA replaces the cached entry when the transaction commits.
+ * - default-query-results-region: results of queries marked cacheable.
+ * - default-update-timestamps-region: last write per table, used to discard
+ *   stale query results. Never expires.
+ *
+ * Every region is created here; hibernate.javax.cache.missing_cache_strategy
+ * is "fail", so a typo in a region name stops startup. Tables written with
+ * plain JDBC (rollups, entries) are deliberately not cached.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String CATALOG_REGION = "catalog";
+    public static final String USERS_REGION = "users";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${nutrition.cache.l2.catalog.ttl:12h}") Duration catalogTtl,
+            @Value("${nutrition.cache.l2.catalog.max-entries:20000}") long catalogMaxEntries,
+            @Value("${nutrition.cache.l2.users.ttl:10m}") Duration usersTtl,
+            @Value("${nutrition.cache.l2.users.max-entries:10000}") long usersMaxEntries,
+            @Value("${nutrition.cache.l2.query.ttl:10m}") Duration queryTtl,
+            @Value("${nutrition.cache.l2.query.max-entries:5000}") long queryMaxEntries) {
+        // Programmatic Ehcache configuration: the URI only names the manager, no XML file is read
+        EhcacheCachingProvider provider =
+                (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("urn:diet-balance-tracker:hibernate"), new DefaultConfiguration(getClass().getClassLoader()));
+        createRegion(cacheManager, CATALOG_REGION, catalogMaxEntries, catalogTtl);
+        createRegion(cacheManager, USERS_REGION, usersMaxEntries, usersTtl);
+        createRegion(cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                queryMaxEntries, queryTtl);
+        // One entry per table; must outlive every cached query result
+        createRegion(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, 1000, null);
+        return cacheManager;
+    }
+
+    /** Hand the cache manager above to Hibernate's region factory. */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static void createRegion(CacheManager cacheManager, String name, long maxEntries, Duration ttl) {
+        cacheManager.createCache(name, Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(
+                                Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                        .withExpiry(ttl == null
+                                ? ExpiryPolicyBuilder.noExpiration()
+                                : ExpiryPolicyBuilder.timeToLiveExpiration(ttl))));
+    }
+}
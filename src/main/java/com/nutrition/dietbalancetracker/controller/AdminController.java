@@ -3,19 +3,36 @@ package com.nutrition.dietbalancetracker.controller;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.nutrition.dietbalancetracker.dto.AdminStatsDTO;
 import com.nutrition.dietbalancetracker.dto.AdminUserDTO;
 import com.nutrition.dietbalancetracker.dto.AdminUserDetailDTO;
+import com.nutrition.dietbalancetracker.dto.CohortJobStatusDTO;
+import com.nutrition.dietbalancetracker.model.CohortAnalysisResult;
+import com.nutrition.dietbalancetracker.model.DietaryEntryArchive;
+import com.nutrition.dietbalancetracker.dto.DeficiencyThresholdDTO;
+import com.nutrition.dietbalancetracker.model.AgeGroup;
+import com.nutrition.dietbalancetracker.model.Nutrient;
 import com.nutrition.dietbalancetracker.service.AdminService;
+import com.nutrition.dietbalancetracker.service.AnalysisResultCache;
+import com.nutrition.dietbalancetracker.service.ChatHistoryService;
+import com.nutrition.dietbalancetracker.service.CohortAnalysisService;
+import com.nutrition.dietbalancetracker.service.EntryArchiveService;
+import com.nutrition.dietbalancetracker.service.FoodCategoryCounter;
+import com.nutrition.dietbalancetracker.service.NutrientRequirementService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -31,6 +48,12 @@ import lombok.RequiredArgsConstructor;
 public class AdminController {
 
     private final AdminService adminService;
+    private final AnalysisResultCache resultCache;
+    private final NutrientRequirementService requirementService;
+    private final CohortAnalysisService cohortAnalysisService;
+    private final EntryArchiveService archiveService;
+    private final ChatHistoryService chatHistoryService;
+    private final FoodCategoryCounter categoryCounter;
 
     /**
      * GET /api/admin/stats
@@ -87,6 +110,168 @@ public class AdminController {
         }
     }
 
+    /**
+     * POST /api/admin/rollups/rebuild?userId=X
+     * Rebuild daily nutrient rollups from raw entries (all users if userId is omitted).
+     */
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRollups(@RequestParam(required = false) Long userId) {
+        int rows = adminService.rebuildRollups(userId);
+        return ResponseEntity.ok(Map.of("message", "Rollups rebuilt", "rows", rows));
+    }
+
+    /**
+     * POST /api/admin/archive/run
+     * Run partition maintenance and archiving now instead of waiting for the nightly job.
+     */
+    @PostMapping("/archive/run")
+    public ResponseEntity<Map<String, Object>> runArchive() {
+        return ResponseEntity.ok(archiveService.maintain());
+    }
+
+    /**
+     * GET /api/admin/archive
+     * Months of dietary entries moved to archive files, oldest first.
+     */
+    @GetMapping("/archive")
+    public ResponseEntity<List<DietaryEntryArchive>> getArchives() {
+        return ResponseEntity.ok(archiveService.listArchives());
+    }
+
+    /**
+     * POST /api/admin/chat-retention/run
+     * Trim chat histories to the retention limits now instead of waiting for the nightly job.
+     */
+    @PostMapping("/chat-retention/run")
+    public ResponseEntity<Map<String, Object>> runChatRetention() {
+        return ResponseEntity.ok(chatHistoryService.applyRetention());
+    }
+
+    /**
+     * POST /api/admin/category-counts/reconcile
+     * Recount active foods per category from the database now.
+     */
+    @PostMapping("/category-counts/reconcile")
+    public ResponseEntity<Map<String, Object>> reconcileCategoryCounts() {
+        int drifted = categoryCounter.reconcile();
+        return ResponseEntity.ok(Map.of("categoriesCorrected", drifted, "counts", categoryCounter.getCounts()));
+    }
+
+    /**
+     * GET /api/admin/cache/stats
+     * Hit/miss/eviction counters for the per-user analysis and chart cache.
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(resultCache.stats());
+    }
+
+    /**
+     * GET /api/admin/cache/regions
+     * Hibernate second-level cache statistics (users, catalog and query regions).
+     */
+    @GetMapping("/cache/regions")
+    public ResponseEntity<Map<String, Object>> getSecondLevelCacheStats() {
+        return ResponseEntity.ok(adminService.getSecondLevelCacheStats());
+    }
+
+    /**
+     * GET /api/admin/thresholds
+     * Effective daily requirement of every nutrient for every age group
+     * (admin-configured values flagged as custom).
+     */
+    @GetMapping("/thresholds")
+    public ResponseEntity<List<DeficiencyThresholdDTO>> getThresholds() {
+        return ResponseEntity.ok(requirementService.listThresholds());
+    }
+
+    /**
+     * PUT /api/admin/thresholds/{ageGroup}/{nutrient}
+     * Set a daily requirement. Body: { "dailyRequirement": 420, "isCritical": true }
+     */
+    @PutMapping("/thresholds/{ageGroup}/{nutrient}")
+    public ResponseEntity<?> updateThreshold(
+            @PathVariable String ageGroup,
+            @PathVariable String nutrient,
+            @RequestBody Map<String, Object> body,
+            Authentication authentication) {
+        try {
+            Object value = body.get("dailyRequirement");
+            if (!(value instanceof Number)) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("message", "dailyRequirement is required"));
+            }
+            Object critical = body.get("isCritical");
+            DeficiencyThresholdDTO updated = requirementService.updateThreshold(
+                    AgeGroup.valueOf(ageGroup.toUpperCase()),
+                    Nutrient.valueOf(nutrient.toUpperCase()),
+                    ((Number) value).doubleValue(),
+                    critical instanceof Boolean ? (Boolean) critical : null,
+                    authentication != null ? authentication.getName() : null);
+            return ResponseEntity.ok(updated);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Invalid age group, nutrient or requirement"));
+        }
+    }
+
+    /**
+     * POST /api/admin/cohort-analysis
+     * Start scoring every user's past week in the background.
+     */
+    @PostMapping("/cohort-analysis")
+    public ResponseEntity<?> startCohortAnalysis() {
+        try {
+            return ResponseEntity.accepted().body(cohortAnalysisService.start());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/admin/cohort-analysis
+     * Progress of the latest run.
+     */
+    @GetMapping("/cohort-analysis")
+    public ResponseEntity<CohortJobStatusDTO> getLatestCohortAnalysis() {
+        CohortJobStatusDTO status = cohortAnalysisService.latest();
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * GET /api/admin/cohort-analysis/{jobId}
+     * Progress of a run.
+     */
+    @GetMapping("/cohort-analysis/{jobId}")
+    public ResponseEntity<CohortJobStatusDTO> getCohortAnalysis(@PathVariable String jobId) {
+        CohortJobStatusDTO status = cohortAnalysisService.status(jobId);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * GET /api/admin/cohort-analysis/{jobId}/results?page=0&size=50
+     * Results written so far, lowest scores first (available while running).
+     */
+    @GetMapping("/cohort-analysis/{jobId}/results")
+    public ResponseEntity<Page<CohortAnalysisResult>> getCohortResults(
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(cohortAnalysisService.results(jobId, page, size));
+    }
+
+    /**
+     * DELETE /api/admin/cohort-analysis/{jobId}
+     * Cancel a running analysis.
+     */
+    @DeleteMapping("/cohort-analysis/{jobId}")
+    public ResponseEntity<Map<String, String>> cancelCohortAnalysis(@PathVariable String jobId) {
+        if (!cohortAnalysisService.cancel(jobId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("message", "Cancellation requested"));
+    }
+
     /**
      * DELETE /api/admin/users/{userId}
      * Delete a user account and all their data.
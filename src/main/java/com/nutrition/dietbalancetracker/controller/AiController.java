@@ -1,10 +1,8 @@
 package com.nutrition.dietbalancetracker.controller;
 
-import java.util.List;
 import java.util.Map;
 
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -16,9 +14,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.nutrition.dietbalancetracker.dto.AiChatRequestDTO;
 import com.nutrition.dietbalancetracker.dto.AiChatResponseDTO;
-import com.nutrition.dietbalancetracker.model.ChatMessage;
-import com.nutrition.dietbalancetracker.repository.ChatMessageRepository;
 import com.nutrition.dietbalancetracker.service.AiService;
+import com.nutrition.dietbalancetracker.service.ChatHistoryService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -34,7 +31,7 @@ import lombok.RequiredArgsConstructor;
 public class AiController {
 
     private final AiService aiService;
-    private final ChatMessageRepository chatMessageRepository;
+    private final ChatHistoryService chatHistoryService;
 
     /**
      * POST /api/ai/chat
@@ -44,11 +41,7 @@ public class AiController {
     @PostMapping("/chat")
     public ResponseEntity<AiChatResponseDTO> chat(@RequestBody AiChatRequestDTO request) {
         // Save user message
-        ChatMessage userMsg = new ChatMessage();
-        userMsg.setUserId(request.getUserId());
-        userMsg.setRole("user");
-        userMsg.setContent(request.getMessage());
-        chatMessageRepository.save(userMsg);
+        chatHistoryService.record(request.getUserId(), "user", request.getMessage());
 
         // Get AI reply
         String reply = aiService.chat(request.getUserId(), request.getMessage(), request.getHistory());
@@ -56,23 +49,26 @@ public class AiController {
         String provider = aiService.getActiveProviderName();
 
         // Save assistant reply
-        ChatMessage assistantMsg = new ChatMessage();
-        assistantMsg.setUserId(request.getUserId());
-        assistantMsg.setRole("assistant");
-        assistantMsg.setContent(reply);
-        chatMessageRepository.save(assistantMsg);
+        chatHistoryService.record(request.getUserId(), "assistant", reply);
 
         return ResponseEntity.ok(new AiChatResponseDTO(reply, available, provider));
     }
 
     /**
-     * GET /api/ai/history?userId=X
-     * Retrieve the full chat history for a user, ordered by creation time.
+     * GET /api/ai/history?userId=X&size=50&cursor=...
+     * One page of chat history: the newest messages first, then older pages
+     * via the returned nextCursor. Messages within a page are oldest first.
      */
     @GetMapping("/history")
-    public ResponseEntity<List<ChatMessage>> getHistory(@RequestParam Long userId) {
-        List<ChatMessage> messages = chatMessageRepository.findByUserIdOrderByCreatedAtAsc(userId);
-        return ResponseEntity.ok(messages);
+    public ResponseEntity<?> getHistory(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(chatHistoryService.getHistory(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
 
     /**
@@ -80,9 +76,8 @@ public class AiController {
      * Delete ALL chat messages for a user.
      */
     @DeleteMapping("/history")
-    @Transactional
     public ResponseEntity<Map<String, String>> clearHistory(@RequestParam Long userId) {
-        chatMessageRepository.deleteByUserId(userId);
+        chatHistoryService.clear(userId);
         return ResponseEntity.ok(Map.of("message", "Chat history cleared"));
     }
 
@@ -92,11 +87,9 @@ public class AiController {
      */
     @DeleteMapping("/history/{id}")
     public ResponseEntity<Map<String, String>> deleteMessage(@PathVariable Long id, @RequestParam Long userId) {
-        ChatMessage msg = chatMessageRepository.findById(id).orElse(null);
-        if (msg == null || !msg.getUserId().equals(userId)) {
+        if (!chatHistoryService.deleteMessage(id, userId)) {
             return ResponseEntity.notFound().build();
         }
-        chatMessageRepository.deleteById(id);
         return ResponseEntity.ok(Map.of("message", "Message deleted"));
     }
 
@@ -21,8 +21,11 @@ import com.nutrition.dietbalancetracker.dto.UserProfileDTO;
 import com.nutrition.dietbalancetracker.dto.UserRegistrationDTO;
 import com.nutrition.dietbalancetracker.model.User;
 import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository;
+import com.nutrition.dietbalancetracker.repository.HealthDataRepository;
 import com.nutrition.dietbalancetracker.repository.NutritionGoalRepository;
 import com.nutrition.dietbalancetracker.repository.UserRepository;
+import com.nutrition.dietbalancetracker.service.AnalysisResultCache;
+import com.nutrition.dietbalancetracker.service.DailyNutrientRollupService;
 import com.nutrition.dietbalancetracker.service.UserService;
 
 import jakarta.validation.Valid;
@@ -41,18 +44,27 @@ public class AuthController {
     private final PasswordEncoder passwordEncoder;
     private final DietaryEntryRepository dietaryEntryRepository;
     private final NutritionGoalRepository nutritionGoalRepository;
+    private final HealthDataRepository healthDataRepository;
+    private final DailyNutrientRollupService rollupService;
+    private final AnalysisResultCache resultCache;
 
     public AuthController(
             UserService userService,
             UserRepository userRepository,
             PasswordEncoder passwordEncoder,
             DietaryEntryRepository dietaryEntryRepository,
-            NutritionGoalRepository nutritionGoalRepository) {
+            NutritionGoalRepository nutritionGoalRepository,
+            HealthDataRepository healthDataRepository,
+            DailyNutrientRollupService rollupService,
+            AnalysisResultCache resultCache) {
         this.userService = userService;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.dietaryEntryRepository = dietaryEntryRepository;
         this.nutritionGoalRepository = nutritionGoalRepository;
+        this.healthDataRepository = healthDataRepository;
+        this.rollupService = rollupService;
+        this.resultCache = resultCache;
     }
     
     // POST /api/auth/register
@@ -110,6 +122,8 @@ public class AuthController {
                         user.setHeightCm(((Number) updates.get("heightCm")).doubleValue());
                     }
                     User saved = userRepository.save(user);
+                    // Weight/height/age feed the BMI-adjusted targets in cached analyses
+                    resultCache.evictUser(userId);
                     return ResponseEntity.ok(toProfileDTO(saved));
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -148,8 +162,11 @@ public class AuthController {
                     }
                     // Delete related data first
                     nutritionGoalRepository.deleteByUserId(userId);
+                    healthDataRepository.deleteByUserId(userId);
                     dietaryEntryRepository.deleteAll(user.getDietaryEntries());
+                    rollupService.deleteForUser(userId);
                     userRepository.delete(user);
+                    resultCache.evictUser(userId);
                     return ResponseEntity.ok(Map.of("message", "Account deleted successfully"));
                 })
                 .orElse(ResponseEntity.notFound().build());
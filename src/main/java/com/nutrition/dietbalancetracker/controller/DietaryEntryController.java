@@ -1,23 +1,26 @@
 package com.nutrition.dietbalancetracker.controller;
 
+import com.nutrition.dietbalancetracker.dto.BatchMealDTO;
 import com.nutrition.dietbalancetracker.dto.DietaryEntryDTO;
 import com.nutrition.dietbalancetracker.dto.DietaryEntryResponseDTO;
-import com.nutrition.dietbalancetracker.dto.FoodItemResponseDTO;
-import com.nutrition.dietbalancetracker.model.DietaryEntry;
-import com.nutrition.dietbalancetracker.model.FoodItem;
-import com.nutrition.dietbalancetracker.model.NutrientProfile;
+import com.nutrition.dietbalancetracker.repository.DailyNutrientRollupRepository.HistorySummary;
 import com.nutrition.dietbalancetracker.service.DietaryEntryService;
+import com.nutrition.dietbalancetracker.service.MealHistoryExportService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * DIETARY ENTRY CONTROLLER
  * =========================
  * Handles meal logging, history, and deletion endpoints.
+ * Services return finished DTOs; nothing here touches entities.
  */
 @RestController
 @RequestMapping("/api/dietary-entries")
@@ -25,6 +28,7 @@ import java.util.stream.Collectors;
 public class DietaryEntryController {
     
     private final DietaryEntryService dietaryEntryService;
+    private final MealHistoryExportService exportService;
     
     // POST /api/entries?userId=1
     @PostMapping
@@ -32,41 +36,75 @@ public class DietaryEntryController {
             @RequestParam Long userId,
             @Valid @RequestBody DietaryEntryDTO dto) {
         try {
-            DietaryEntry entry = dietaryEntryService.logMeal(userId, dto);
-            return ResponseEntity.ok(toResponseDTO(entry));
+            return ResponseEntity.ok(dietaryEntryService.logMeal(userId, dto));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
-    // GET /api/dietary-entries?userId=1
+    // POST /api/dietary-entries/batch?userId=1 — a whole meal or day in one request
+    @PostMapping("/batch")
+    public ResponseEntity<?> logMeals(
+            @RequestParam Long userId,
+            @Valid @RequestBody BatchMealDTO dto) {
+        try {
+            return ResponseEntity.ok(dietaryEntryService.logMeals(userId, dto.getEntries()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // GET /api/dietary-entries?userId=1&size=50&cursor=...
     @GetMapping
-    public ResponseEntity<List<DietaryEntryResponseDTO>> getMealHistory(@RequestParam Long userId) {
-        List<DietaryEntry> entries = dietaryEntryService.getMealHistory(userId);
-        List<DietaryEntryResponseDTO> dtos = entries.stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+    public ResponseEntity<?> getMealHistory(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return historyPage(userId, cursor, size);
     }
 
-    // GET /api/dietary-entries/user/{userId} — path param variant for frontend
+    // GET /api/dietary-entries/user/{userId}?size=50&cursor=... — path param variant for frontend
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<DietaryEntryResponseDTO>> getMealHistoryByPath(@PathVariable Long userId) {
-        List<DietaryEntry> entries = dietaryEntryService.getMealHistory(userId);
-        List<DietaryEntryResponseDTO> dtos = entries.stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+    public ResponseEntity<?> getMealHistoryByPath(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return historyPage(userId, cursor, size);
+    }
+
+    // GET /api/dietary-entries/user/{userId}/summary — lifetime totals for the profile page
+    @GetMapping("/user/{userId}/summary")
+    public ResponseEntity<Map<String, Object>> getHistorySummary(@PathVariable Long userId) {
+        HistorySummary summary = dietaryEntryService.getHistorySummary(userId);
+        return ResponseEntity.ok(Map.of(
+                "totalEntries", summary.getTotalEntries(),
+                "activeDays", summary.getActiveDays(),
+                "totalCalories", summary.getTotalCalories()));
     }
     
+    // GET /api/dietary-entries/export?userId=1&format=ndjson|csv — full history, streamed
+    @GetMapping("/export")
+    public ResponseEntity<?> exportHistory(
+            @RequestParam Long userId,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        MealHistoryExportService.Format exportFormat;
+        try {
+            exportFormat = MealHistoryExportService.Format.of(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+        StreamingResponseBody body = out -> exportService.export(userId, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"meal-history." + exportFormat.extension + "\"")
+                .body(body);
+    }
+
     // GET /api/dietary-entries/today?userId=1
     @GetMapping("/today")
     public ResponseEntity<List<DietaryEntryResponseDTO>> getTodaysMeals(@RequestParam Long userId) {
-        List<DietaryEntry> entries = dietaryEntryService.getTodaysMeals(userId);
-        List<DietaryEntryResponseDTO> dtos = entries.stream()
-                .map(this::toResponseDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+        return ResponseEntity.ok(dietaryEntryService.getTodaysMeals(userId));
     }
 
     // DELETE /api/entries/{id}?userId=1
@@ -82,56 +120,11 @@ public class DietaryEntryController {
         }
     }
 
-    /**
-     * Convert a DietaryEntry entity to a response DTO
-     * to prevent circular JSON serialization.
-     */
-    private DietaryEntryResponseDTO toResponseDTO(DietaryEntry entry) {
-        DietaryEntryResponseDTO dto = new DietaryEntryResponseDTO();
-        dto.setId(entry.getId());
-        dto.setUserId(entry.getUser() != null ? entry.getUser().getId() : null);
-        dto.setPortionSize(entry.getPortionSize());
-        dto.setConsumedAt(entry.getConsumedAt());
-        dto.setMealType(entry.getMealType());
-        dto.setCreatedAt(entry.getCreatedAt());
-
-        if (entry.getFoodItem() != null) {
-            FoodItem food = entry.getFoodItem();
-            FoodItemResponseDTO foodDTO = new FoodItemResponseDTO();
-            foodDTO.setId(food.getId());
-            foodDTO.setName(food.getName());
-            foodDTO.setDescription(food.getDescription());
-            foodDTO.setCategory(food.getCategory());
-
-            if (food.getNutrientProfile() != null) {
-                NutrientProfile np = food.getNutrientProfile();
-                foodDTO.setCalories(np.getCalories());
-                foodDTO.setProtein(np.getProtein());
-                foodDTO.setCarbohydrates(np.getCarbohydrates());
-                foodDTO.setFat(np.getFat());
-
-                FoodItemResponseDTO.NutrientProfileDTO npDTO = new FoodItemResponseDTO.NutrientProfileDTO();
-                npDTO.setServingSize(np.getServingSize());
-                npDTO.setCalories(np.getCalories());
-                npDTO.setProtein(np.getProtein());
-                npDTO.setCarbohydrates(np.getCarbohydrates());
-                npDTO.setFat(np.getFat());
-                npDTO.setFiber(np.getFiber());
-                npDTO.setVitaminA(np.getVitaminA());
-                npDTO.setVitaminC(np.getVitaminC());
-                npDTO.setVitaminD(np.getVitaminD());
-                npDTO.setVitaminE(np.getVitaminE());
-                npDTO.setVitaminK(np.getVitaminK());
-                npDTO.setVitaminB12(np.getVitaminB12());
-                npDTO.setCalcium(np.getCalcium());
-                npDTO.setIron(np.getIron());
-                npDTO.setMagnesium(np.getMagnesium());
-                npDTO.setZinc(np.getZinc());
-                npDTO.setPotassium(np.getPotassium());
-                foodDTO.setNutrientProfile(npDTO);
-            }
-            dto.setFoodItem(foodDTO);
+    private ResponseEntity<?> historyPage(Long userId, String cursor, Integer size) {
+        try {
+            return ResponseEntity.ok(dietaryEntryService.getMealHistory(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         }
-        return dto;
     }
 }
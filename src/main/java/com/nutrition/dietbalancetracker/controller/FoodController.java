@@ -3,15 +3,24 @@ package com.nutrition.dietbalancetracker.controller;
 import com.nutrition.dietbalancetracker.dto.FoodItemResponseDTO;
 import com.nutrition.dietbalancetracker.service.FoodItemService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * FOOD CONTROLLER
  * ===============
  * Handles food search endpoints.
+ *
+ * The catalog only changes on reseed or food edits, so every response here
+ * carries the catalog version as a strong ETag (plus Last-Modified) and
+ * "Cache-Control: no-cache": clients keep the response and revalidate it.
+ * A matching If-None-Match / If-Modified-Since gets a 304 before any search
+ * or serialization work is done.
  */
 @RestController
 @RequestMapping("/api/foods")
@@ -22,23 +31,49 @@ public class FoodController {
 
     // GET /api/foods — list all foods (for FoodLogging page)
     @GetMapping
-    public ResponseEntity<List<FoodItemResponseDTO>> getAllFoods() {
-        List<FoodItemResponseDTO> foods = foodItemService.searchFoods(null, null);
-        return ResponseEntity.ok(foods);
+    public ResponseEntity<List<FoodItemResponseDTO>> getAllFoods(WebRequest request) {
+        return conditional(request, () -> foodItemService.searchFoods(null, null));
     }
     
-    // GET /api/foods/search?query=apple&category=GRAIN
+    // GET /api/foods/search?query=apple&category=GRAIN&limit=50&fuzzy=true — ranked, best match first
     @GetMapping("/search")
     public ResponseEntity<List<FoodItemResponseDTO>> searchFoods(
             @RequestParam(required = false) String query,
-            @RequestParam(required = false) String category) {
-        List<FoodItemResponseDTO> foods = foodItemService.searchFoods(query, category);
-        return ResponseEntity.ok(foods);
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            WebRequest request) {
+        return conditional(request, () -> foodItemService.searchFoods(query, category, limit, fuzzy));
+    }
+
+    // GET /api/foods/query?minIron=2&maxCalories=150&sort=proteinPerKcal — nutrient range query
+    @GetMapping("/query")
+    public ResponseEntity<?> queryFoods(@RequestParam Map<String, String> params, WebRequest request) {
+        FoodItemService.NutrientQuery query;
+        try {
+            query = foodItemService.parseNutrientQuery(params); // 400 before any 304
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+        return conditional(request, () -> foodItemService.queryByNutrients(query));
     }
 
     // GET /api/foods/categories — returns [{category: "GRAIN", count: 15}, ...]
     @GetMapping("/categories")
-    public ResponseEntity<List<Map<String, Object>>> getCategories() {
-        return ResponseEntity.ok(foodItemService.getCategoryCounts());
+    public ResponseEntity<List<Map<String, Object>>> getCategories(WebRequest request) {
+        return conditional(request, foodItemService::getCategoryCounts);
+    }
+
+    // 304 when the client's copy matches the current catalog version, otherwise the body with validators
+    private <T> ResponseEntity<T> conditional(WebRequest request, Supplier<T> body) {
+        FoodItemService.CatalogVersion version = foodItemService.catalogVersion();
+        if (request.checkNotModified(version.etag(), version.lastModifiedMillis())) {
+            return null; // status 304 and validators already set on the response
+        }
+        return ResponseEntity.ok()
+                .eTag(version.etag())
+                .lastModified(version.lastModifiedMillis())
+                .cacheControl(CacheControl.noCache())
+                .body(body.get());
     }
 }
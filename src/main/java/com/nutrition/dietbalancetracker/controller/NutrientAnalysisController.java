@@ -1,5 +1,9 @@
 package com.nutrition.dietbalancetracker.controller;
 
+import java.time.LocalDate;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -44,4 +48,21 @@ public class NutrientAnalysisController {
         NutrientAnalysisDTO analysis = nutrientAnalysisService.analyzeWeek(userId);
         return ResponseEntity.ok(analysis);
     }
+
+    /**
+     * GET /api/analysis/range?userId=1&from=2024-01-01&to=2024-12-31
+     * Analyze any date range (inclusive, daily average over active days).
+     * Ranges of years are supported.
+     */
+    @GetMapping("/range")
+    public ResponseEntity<?> analyzeRange(
+            @RequestParam Long userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(nutrientAnalysisService.analyzeRange(userId, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
 }
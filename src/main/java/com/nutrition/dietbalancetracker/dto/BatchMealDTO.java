@@ -0,0 +1,21 @@
+package com.nutrition.dietbalancetracker.dto;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * BATCH MEAL DTO
+ * ==============
+ * Several meal entries logged together (a whole meal or a whole day).
+ */
+@Data
+public class BatchMealDTO {
+
+    @NotEmpty(message = "At least one entry is required")
+    @Size(max = 100, message = "At most 100 entries can be logged at once")
+    private List<@Valid DietaryEntryDTO> entries;
+}
@@ -0,0 +1,24 @@
+package com.nutrition.dietbalancetracker.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * CHAT HISTORY PAGE DTO
+ * =====================
+ * One page of AI chat history, oldest message first.
+ * The first request returns the newest page; pass nextCursor back as
+ * ?cursor= to get the page before it. nextCursor is null (and hasMore
+ * false) once the oldest message has been returned.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatHistoryPageDTO {
+    private List<ChatMessageDTO> messages;
+    private String nextCursor;
+    private boolean hasMore;
+}
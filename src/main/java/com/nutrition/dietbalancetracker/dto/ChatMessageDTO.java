@@ -0,0 +1,24 @@
+package com.nutrition.dietbalancetracker.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * CHAT MESSAGE DTO
+ * ================
+ * One stored chat message as returned by /api/ai/history
+ * (same fields as the ChatMessage entity, selected directly by the query).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessageDTO {
+    private Long id;
+    private Long userId;
+    private String role;
+    private String content;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,27 @@
+package com.nutrition.dietbalancetracker.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * COHORT JOB STATUS DTO
+ * ======================
+ * Progress of a cohort analysis batch run for the admin dashboard.
+ * Status is one of RUNNING, COMPLETED, CANCELLED, FAILED.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CohortJobStatusDTO {
+    private String jobId;
+    private String status;
+    private long totalUsers;
+    private long processedUsers;
+    private long failedUsers;
+    private double percentComplete;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
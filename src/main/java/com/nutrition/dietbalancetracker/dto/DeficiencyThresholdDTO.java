@@ -0,0 +1,23 @@
+package com.nutrition.dietbalancetracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DEFICIENCY THRESHOLD DTO
+ * =========================
+ * Effective daily requirement for one nutrient in one age group, as shown
+ * and edited in the admin dashboard. {@code custom} is true when the value
+ * comes from an admin-configured threshold rather than the built-in default.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeficiencyThresholdDTO {
+    private String ageGroup;
+    private String nutrient;
+    private Double dailyRequirement;
+    private Boolean isCritical;
+    private boolean custom;
+}
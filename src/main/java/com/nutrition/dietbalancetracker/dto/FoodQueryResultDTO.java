@@ -0,0 +1,23 @@
+package com.nutrition.dietbalancetracker.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * FOOD QUERY RESULT DTO
+ * =====================
+ * Result of a nutrient range query (/api/foods/query).
+ * total is the number of matching foods; foods holds the first `limit`
+ * of them, in the requested sort order (sort is null for id order).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FoodQueryResultDTO {
+    private int total;
+    private String sort;
+    private List<FoodItemResponseDTO> foods;
+}
@@ -81,7 +81,7 @@ public enum AgeGroup {
      * - Skipping meals
      * - Preferring snacks over meals
      */
-    AGE_9_13,
+    AGE_4_8,
     
     /**
      * AGE_9_13
@@ -119,6 +119,7 @@ public enum AgeGroup {
      * - Not drinking enough milk
      * - Irregular meal times
      */
+    AGE_9_13,
 
     /**
      * AGE_14_18
@@ -166,7 +167,36 @@ public enum AgeGroup {
      * - Boys need more calories during growth spurts
      * - Both need support for healthy body image
      */
-    AGE_14_18;
+    AGE_14_18,
+
+    /**
+     * ADULT
+     * -----
+     * Adults (19 years and older), and users who have not entered an age.
+     * 
+     * Nutritional needs:
+     * - About 2000 calories/day (varies with size and activity)
+     * - Requirements follow the standard adult Daily Values
+     * 
+     * Example daily requirements:
+     * - Calcium: 1000 mg
+     * - Iron: 18 mg
+     * - Protein: 50 g
+     * - Vitamin C: 90 mg
+     */
+    ADULT;
+
+    /**
+     * Age group for an age in years. A missing age is treated as ADULT
+     * (the app's default audience).
+     */
+    public static AgeGroup fromAge(Integer age) {
+        if (age == null || age >= 19) return ADULT;
+        if (age <= 3) return AGE_1_3;
+        if (age <= 8) return AGE_4_8;
+        if (age <= 13) return AGE_9_13;
+        return AGE_14_18;
+    }
     
     // How we use age groups:
     // 
@@ -0,0 +1,41 @@
+package com.nutrition.dietbalancetracker.model;
+
+/**
+ * BMI CATEGORY ENUMERATION
+ * =========================
+ * Standard BMI bands used to personalise nutrient requirements.
+ * 
+ * - UNDERWEIGHT: BMI below 18.5
+ * - NORMAL:      18.5 to 24.9
+ * - OVERWEIGHT:  25 to 29.9
+ * - OBESE:       30 and above
+ * - UNKNOWN:     weight or height not entered (no adjustment)
+ */
+public enum BmiCategory {
+
+    UNKNOWN("Unknown"),
+    UNDERWEIGHT("Underweight"),
+    NORMAL("Normal weight"),
+    OVERWEIGHT("Overweight"),
+    OBESE("Obese");
+
+    private final String label;
+
+    BmiCategory(String label) {
+        this.label = label;
+    }
+
+    /** Human-readable label shown in profiles and the admin dashboard. */
+    public String getLabel() {
+        return label;
+    }
+
+    /** Category for a BMI value (UNKNOWN when the BMI cannot be computed). */
+    public static BmiCategory of(Double bmi) {
+        if (bmi == null) return UNKNOWN;
+        if (bmi < 18.5) return UNDERWEIGHT;
+        if (bmi < 25)   return NORMAL;
+        if (bmi < 30)   return OVERWEIGHT;
+        return OBESE;
+    }
+}
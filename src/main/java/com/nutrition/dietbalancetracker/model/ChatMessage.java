@@ -13,7 +13,9 @@ import java.time.LocalDateTime;
  * Each row is one message (either user or assistant).
  */
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages",
+       indexes = {@Index(name = "idx_chat_user_created", columnList = "user_id, created_at"),
+                  @Index(name = "idx_chat_created", columnList = "created_at")})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,53 @@
+package com.nutrition.dietbalancetracker.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * COHORT ANALYSIS RESULT ENTITY
+ * =============================
+ * One user's weekly nutrient score from a cohort analysis batch run.
+ * Rows are written chunk by chunk while the batch runs, so an admin can
+ * page through results before the whole user base has been processed.
+ * Only the most recent run is kept.
+ */
+@Entity
+@Table(name = "cohort_analysis_results",
+       indexes = @Index(name = "idx_cohort_job_score", columnList = "job_id, overall_score"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CohortAnalysisResult {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Which batch run produced this row
+    @Column(name = "job_id", nullable = false, length = 36)
+    private String jobId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Average % of daily requirements met over the past week (0-100)
+    @Column(name = "overall_score", nullable = false)
+    private double overallScore;
+
+    // Entries and active days in the week
+    @Column(nullable = false)
+    private int mealCount;
+
+    @Column(nullable = false)
+    private int activeDays;
+
+    // Comma-separated nutrients below 80% of the requirement
+    @Column(length = 500)
+    private String deficiencies;
+
+    @Column(nullable = false)
+    private LocalDateTime computedAt;
+}
@@ -0,0 +1,127 @@
+package com.nutrition.dietbalancetracker.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * DAILY NUTRIENT ROLLUP ENTITY
+ * ============================
+ * One row per user per calendar day holding that day's nutrient totals
+ * (profile × portion summed over every logged entry) plus entry counts and
+ * calories per meal type.
+ *
+ * Rows are maintained on write by DailyNutrientRollupService whenever an entry
+ * is logged or deleted, so analysis and chart endpoints read at most one row
+ * per day instead of re-aggregating every raw dietary entry.
+ */
+@Entity
+@Table(name = "daily_nutrient_rollup",
+       uniqueConstraints = @UniqueConstraint(name = "uk_rollup_user_date", columnNames = {"user_id", "rollup_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyNutrientRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    // ---- Nutrient totals for the day ----
+
+    @Column(nullable = false) private double calories;
+    @Column(nullable = false) private double protein;
+    @Column(nullable = false) private double carbohydrates;
+    @Column(nullable = false) private double fat;
+    @Column(nullable = false) private double fiber;
+    @Column(nullable = false) private double vitaminA;
+    @Column(nullable = false) private double vitaminC;
+    @Column(nullable = false) private double vitaminD;
+    @Column(nullable = false) private double vitaminE;
+    @Column(nullable = false) private double vitaminK;
+    @Column(nullable = false) private double vitaminB12;
+    @Column(nullable = false) private double calcium;
+    @Column(nullable = false) private double iron;
+    @Column(nullable = false) private double magnesium;
+    @Column(nullable = false) private double zinc;
+    @Column(nullable = false) private double potassium;
+
+    // ---- Entries logged per meal type ----
+
+    @Column(nullable = false) private int breakfastCount;
+    @Column(nullable = false) private int lunchCount;
+    @Column(nullable = false) private int dinnerCount;
+    @Column(nullable = false) private int snackCount;
+
+    // ---- Calories per meal type ----
+
+    @Column(nullable = false) private double breakfastCalories;
+    @Column(nullable = false) private double lunchCalories;
+    @Column(nullable = false) private double dinnerCalories;
+    @Column(nullable = false) private double snackCalories;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    /** Total value of one nutrient for the day. */
+    public double getNutrient(Nutrient nutrient) {
+        return switch (nutrient) {
+            case CALORIES -> calories;
+            case PROTEIN -> protein;
+            case CARBOHYDRATES -> carbohydrates;
+            case FAT -> fat;
+            case FIBER -> fiber;
+            case VITAMIN_A -> vitaminA;
+            case VITAMIN_C -> vitaminC;
+            case VITAMIN_D -> vitaminD;
+            case VITAMIN_E -> vitaminE;
+            case VITAMIN_K -> vitaminK;
+            case VITAMIN_B12 -> vitaminB12;
+            case CALCIUM -> calcium;
+            case IRON -> iron;
+            case MAGNESIUM -> magnesium;
+            case ZINC -> zinc;
+            case POTASSIUM -> potassium;
+        };
+    }
+
+    /** Number of entries logged for one meal type. */
+    public int getMealCount(MealType mealType) {
+        return switch (mealType) {
+            case BREAKFAST -> breakfastCount;
+            case LUNCH -> lunchCount;
+            case DINNER -> dinnerCount;
+            case SNACK -> snackCount;
+        };
+    }
+
+    /** Calories logged for one meal type. */
+    public double getMealCalories(MealType mealType) {
+        return switch (mealType) {
+            case BREAKFAST -> breakfastCalories;
+            case LUNCH -> lunchCalories;
+            case DINNER -> dinnerCalories;
+            case SNACK -> snackCalories;
+        };
+    }
+
+    /** Total number of entries logged on this day. */
+    public int getEntryCount() {
+        return breakfastCount + lunchCount + dinnerCount + snackCount;
+    }
+}
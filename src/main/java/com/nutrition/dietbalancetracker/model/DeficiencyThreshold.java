@@ -10,10 +10,12 @@ import java.time.LocalDateTime;
  * DEFICIENCY THRESHOLD ENTITY
  * ============================
  * Stores the recommended daily amounts for each nutrient by age group.
- * Admins can configure these values.
+ * Admins can configure these values; a row overrides the built-in default
+ * for that (age group, nutrient) pair in NutrientRequirementService.
  */
 @Entity
-@Table(name = "deficiency_thresholds")
+@Table(name = "deficiency_thresholds",
+       uniqueConstraints = @UniqueConstraint(name = "uk_threshold_age_nutrient", columnNames = {"age_group", "nutrient"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -46,7 +48,7 @@ public class DeficiencyThreshold {
     private LocalDateTime updatedAt;
     
     // Which admin updated this?
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "updated_by_admin_id")
     private User updatedBy;
     
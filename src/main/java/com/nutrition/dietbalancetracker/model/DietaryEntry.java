@@ -33,7 +33,10 @@ import java.time.LocalDateTime;
  * These entries are the foundation of our nutrition tracking!
  */
 @Entity
-@Table(name = "dietary_entries")
+@Table(name = "dietary_entries",
+       indexes = {@Index(name = "idx_entries_user_consumed",
+                         columnList = "user_id, consumed_at, food_item_id, portion_size, meal_type"),
+                  @Index(name = "idx_entries_user_consumed_id", columnList = "user_id, consumed_at, id")})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -75,9 +78,12 @@ public class DietaryEntry {
      * 
      * @ManyToOne creates a "user_id" column in this table
      * that stores which user this entry belongs to.
+     *
+     * LAZY: callers only ever need the user's id, which a proxy
+     * answers without touching the users table.
      */
     @JsonIgnore
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
@@ -100,8 +106,12 @@ public class DietaryEntry {
      * 
      * @ManyToOne creates a "food_item_id" column
      * that stores which food was eaten.
+     *
+     * LAZY: read paths that need the food (and its nutrient profile)
+     * fetch it in the same query via the entity graphs declared in
+     * DietaryEntryRepository, instead of one select per distinct food.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "food_item_id", nullable = false)
     private FoodItem foodItem;
     
@@ -0,0 +1,50 @@
+package com.nutrition.dietbalancetracker.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * DIETARY ENTRY ARCHIVE ENTITY
+ * ============================
+ * One monthly partition of dietary_entries that was moved to a compressed
+ * archive file on local disk and dropped from the table.
+ * Rows of archived months are read back from the file
+ * (see EntryArchiveService), so history and exports stay complete.
+ */
+@Entity
+@Table(name = "dietary_entry_archives")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DietaryEntryArchive {
+
+    // Name of the dropped partition, e.g. "p202405"
+    @Id
+    @Column(name = "partition_name", length = 16)
+    private String partitionName;
+
+    // Exclusive upper bound of the partition (first day of the next month)
+    @Column(name = "upper_bound", nullable = false)
+    private LocalDate upperBound;
+
+    // File name inside nutrition.archive.dir
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    // Actual consumed_at range of the archived rows (null when empty)
+    @Column(name = "min_consumed_at")
+    private LocalDateTime minConsumedAt;
+
+    @Column(name = "max_consumed_at")
+    private LocalDateTime maxConsumedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -2,6 +2,8 @@ package com.nutrition.dietbalancetracker.model;
 
 // Database and utility imports
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -28,7 +30,10 @@ import java.time.LocalDateTime;
  * - "Brown Rice" (GRAIN category)
  */
 @Entity
-@Table(name = "food_items")
+@Cacheable  // Kept in the "catalog" second-level cache region (read-mostly, long TTL)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalog")
+@Table(name = "food_items",
+       indexes = @Index(name = "idx_food_active_category", columnList = "is_active, category"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -201,8 +206,10 @@ public class FoodItem {
      * @ManyToOne because:
      * - One user can create many custom foods
      * - Each custom food is created by one user
+     *
+     * LAZY: not needed when reading the catalog or meal entries.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by_user_id")
     private User createdBy;
     
@@ -2,6 +2,8 @@ package com.nutrition.dietbalancetracker.model;
 
 // Database imports
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -25,6 +27,8 @@ import lombok.AllArgsConstructor;
  * Relationship: One food item has exactly one nutrient profile.
  */
 @Entity
+@Cacheable  // Kept in the "catalog" second-level cache region (read-mostly, long TTL)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalog")
 @Table(name = "nutrient_profiles")
 @Data
 @NoArgsConstructor
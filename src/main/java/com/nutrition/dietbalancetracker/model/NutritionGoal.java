@@ -1,6 +1,8 @@
 package com.nutrition.dietbalancetracker.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -12,6 +14,8 @@ import java.time.LocalDateTime;
  * Stores the user's personalised daily nutrition targets.
  */
 @Entity
+@Cacheable  // Kept in the "users" second-level cache region with its user
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Table(name = "nutrition_goals")
 @Data
 @NoArgsConstructor
@@ -3,6 +3,8 @@ package com.nutrition.dietbalancetracker.model;
 // These imports bring in JPA (database) functionality
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -27,7 +29,11 @@ import java.util.List;
  * The @Entity annotation tells Spring: "Save this to the database!"
  */
 @Entity  // This makes it a database table
-@Table(name = "users")  // The table will be called "users"
+@Cacheable  // Kept in the "users" second-level cache region (short TTL, see SecondLevelCacheConfig)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@Table(name = "users",  // The table will be called "users"
+       indexes = {@Index(name = "idx_users_created_at", columnList = "created_at"),
+                  @Index(name = "idx_users_role", columnList = "role")})
 @Data  // Lombok: Automatically creates getters, setters, toString, equals, hashCode
 @NoArgsConstructor  // Lombok: Creates a constructor with no parameters
 @AllArgsConstructor  // Lombok: Creates a constructor with all parameters
@@ -157,37 +163,19 @@ public class User {
      * Human-readable BMI category.
      */
     public String getBmiCategory() {
-        Double bmi = getBmi();
-        if (bmi == null) return "Unknown";
-        if (bmi < 18.5) return "Underweight";
-        if (bmi < 25)   return "Normal weight";
-        if (bmi < 30)   return "Overweight";
-        return "Obese";
+        return BmiCategory.of(getBmi()).getLabel();
     }
     
     // ========================================
     // RELATIONSHIPS TO OTHER TABLES
     // ========================================
     
-    /**
-     * HEALTH DATA - The user's health information
-     * 
-     * Relationship type: One-to-One
-     * - One user has exactly one health data record
-     * - One health data record belongs to exactly one user
-     * 
-     * Think of it like:
-     * - User = Person
-     * - HealthData = Their medical file
-     * - Each person has one medical file
-     * 
-     * mappedBy = "user" means the HealthData class has a "user" field
-     * cascade = ALL means: if we delete a user, delete their health data too
-     * orphanRemoval = true means: if health data loses its user, delete it
+    /*
+     * HEALTH DATA is linked from the health_data side only (HealthData.user,
+     * look it up with HealthDataRepository.findByUserId). An inverse
+     * one-to-one here could not be lazy, so every User load - including hits
+     * in the second-level cache - would still run a health_data query.
      */
-    @JsonIgnore
-    @OneToOne(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
-    private HealthData healthData;
     
     /**
      * DIETARY ENTRIES - All the meals this user has logged
@@ -328,6 +316,6 @@ public class User {
  * Each row = one user account
  * Each column = one piece of information about that user
  * 
- * The relationships (healthData, dietaryEntries) are stored in separate tables
+ * Related data (dietary entries, health data) is stored in separate tables
  * and linked by the user's ID (foreign key).
  */
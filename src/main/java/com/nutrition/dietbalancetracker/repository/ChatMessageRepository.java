@@ -1,23 +1,47 @@
 package com.nutrition.dietbalancetracker.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.nutrition.dietbalancetracker.dto.ChatMessageDTO;
 import com.nutrition.dietbalancetracker.model.ChatMessage;
 
 /**
  * CHAT MESSAGE REPOSITORY
  * =======================
  * Database operations for chat history.
+ * Reads select DTOs directly; deletes are single bulk statements (no entity
+ * is loaded first). Retention trimming lives in ChatHistoryService.
  */
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
 
-    /** Get all messages for a user, ordered by creation time */
-    List<ChatMessage> findByUserIdOrderByCreatedAtAsc(Long userId);
+    String MESSAGE_DTO = "SELECT new com.nutrition.dietbalancetracker.dto.ChatMessageDTO("
+         + "m.id, m.userId, m.role, m.content, m.createdAt) FROM ChatMessage m ";
 
-    /** Delete all messages for a user */
-    void deleteByUserId(Long userId);
+    /** History, first page: newest messages of a user (id breaks createdAt ties) */
+    @Query(MESSAGE_DTO + "WHERE m.userId = :userId ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessageDTO> findHistoryPage(Long userId, Pageable limit);
+
+    /** History, older pages: messages strictly before a (createdAt, id) cursor, newest first */
+    @Query(MESSAGE_DTO + "WHERE m.userId = :userId "
+         + "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) "
+         + "ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessageDTO> findHistoryPageBefore(Long userId, LocalDateTime createdAt, Long id, Pageable limit);
+
+    /** Delete all messages of a user in one statement */
+    @Modifying
+    @Query("DELETE FROM ChatMessage m WHERE m.userId = :userId")
+    int deleteAllByUserId(Long userId);
+
+    /** Delete one message if it belongs to the user; returns 0 otherwise */
+    @Modifying
+    @Query("DELETE FROM ChatMessage m WHERE m.id = :id AND m.userId = :userId")
+    int deleteByIdAndUserId(Long id, Long userId);
 }
@@ -0,0 +1,26 @@
+package com.nutrition.dietbalancetracker.repository;
+
+import com.nutrition.dietbalancetracker.model.CohortAnalysisResult;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * COHORT ANALYSIS RESULT REPOSITORY
+ */
+@Repository
+public interface CohortAnalysisResultRepository extends JpaRepository<CohortAnalysisResult, Long> {
+
+    // Results of one batch run, lowest scores first
+    Page<CohortAnalysisResult> findByJobIdOrderByOverallScoreAsc(String jobId, Pageable pageable);
+
+    // Drop the results of every other run (once a run has completed)
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CohortAnalysisResult r WHERE r.jobId <> :jobId")
+    int deleteByJobIdNot(String jobId);
+}
@@ -0,0 +1,45 @@
+package com.nutrition.dietbalancetracker.repository;
+
+import com.nutrition.dietbalancetracker.model.DailyNutrientRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * DAILY NUTRIENT ROLLUP REPOSITORY
+ */
+@Repository
+public interface DailyNutrientRollupRepository extends JpaRepository<DailyNutrientRollup, Long> {
+
+    // Rollup rows for a user within a date range (inclusive), oldest first
+    List<DailyNutrientRollup> findByUserIdAndRollupDateBetweenOrderByRollupDateAsc(
+        Long userId, LocalDate from, LocalDate to);
+
+    // Rollup rows for a chunk of users within a date range (batch analysis)
+    List<DailyNutrientRollup> findByUserIdInAndRollupDateBetween(
+        Collection<Long> userIds, LocalDate from, LocalDate to);
+
+    // A user's whole history, oldest first (prefix-sum index build)
+    List<DailyNutrientRollup> findByUserIdOrderByRollupDateAsc(Long userId);
+
+    // Lifetime totals for a user from their rollup rows (profile stats)
+    @Query("SELECT COALESCE(SUM(r.breakfastCount + r.lunchCount + r.dinnerCount + r.snackCount), 0) AS totalEntries, "
+         + "COUNT(r) AS activeDays, COALESCE(SUM(r.calories), 0) AS totalCalories FROM DailyNutrientRollup r WHERE r.userId = :userId")
+    HistorySummary summarize(Long userId);
+
+    // Remove all rollup rows for a user (single statement)
+    @Modifying
+    @Query("DELETE FROM DailyNutrientRollup r WHERE r.userId = :userId")
+    int deleteAllByUserId(Long userId);
+
+    /** Lifetime entry count, active days and calories of a user (projection) */
+    interface HistorySummary {
+        Long getTotalEntries();
+        Long getActiveDays();
+        Double getTotalCalories();
+    }
+}
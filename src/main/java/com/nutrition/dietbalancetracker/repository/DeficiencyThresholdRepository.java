@@ -0,0 +1,22 @@
+package com.nutrition.dietbalancetracker.repository;
+
+import com.nutrition.dietbalancetracker.model.AgeGroup;
+import com.nutrition.dietbalancetracker.model.DeficiencyThreshold;
+import com.nutrition.dietbalancetracker.model.Nutrient;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * DEFICIENCY THRESHOLD REPOSITORY
+ */
+@Repository
+public interface DeficiencyThresholdRepository extends JpaRepository<DeficiencyThreshold, Long> {
+
+    // The configured requirement for one nutrient in one age group
+    Optional<DeficiencyThreshold> findByAgeGroupAndNutrient(AgeGroup ageGroup, Nutrient nutrient);
+
+    // All thresholds, grouped for display
+    List<DeficiencyThreshold> findAllByOrderByAgeGroupAscNutrientAsc();
+}
@@ -0,0 +1,27 @@
+package com.nutrition.dietbalancetracker.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.nutrition.dietbalancetracker.model.DietaryEntryArchive;
+
+/**
+ * DIETARY ENTRY ARCHIVE REPOSITORY
+ * ================================
+ * Metadata of archived dietary_entries partitions.
+ */
+@Repository
+public interface DietaryEntryArchiveRepository extends JpaRepository<DietaryEntryArchive, String> {
+
+    /** All archives, oldest month first */
+    List<DietaryEntryArchive> findAllByOrderByUpperBoundAsc();
+
+    /** Upper bound of the newest archived month (rollups before it cannot be rebuilt from entries) */
+    @Query("SELECT MAX(a.upperBound) FROM DietaryEntryArchive a")
+    Optional<LocalDate> findNewestUpperBound();
+}
@@ -1,28 +1,217 @@
 package com.nutrition.dietbalancetracker.repository;
 
 import com.nutrition.dietbalancetracker.model.DietaryEntry;
+import com.nutrition.dietbalancetracker.model.MealType;
+import com.nutrition.dietbalancetracker.model.Nutrient;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * DIETARY ENTRY REPOSITORY
  */
 @Repository
 public interface DietaryEntryRepository extends JpaRepository<DietaryEntry, Long> {
+
+    // Shared JPQL fragments for the aggregate projections below
+    String TIMES_PORTION = " * de.portionSize";
+    String AGGREGATE_FROM = " FROM DietaryEntry de JOIN de.foodItem f LEFT JOIN f.nutrientProfile np"
+         + " WHERE de.user.id = :userId AND de.consumedAt BETWEEN :start AND :end ";
+    String ENTRY_ROW = "de.id AS id, de.foodItem.id AS foodItemId, de.portionSize AS portionSize, "
+         + "de.mealType AS mealType, de.consumedAt AS consumedAt, de.createdAt AS createdAt";
+    String NUTRIENT_SUMS =
+           "SUM(COALESCE(np.calories, 0)" + TIMES_PORTION + ") AS calories, "
+         + "SUM(COALESCE(np.protein, 0)" + TIMES_PORTION + ") AS protein, "
+         + "SUM(COALESCE(np.carbohydrates, 0)" + TIMES_PORTION + ") AS carbohydrates, "
+         + "SUM(COALESCE(np.fat, 0)" + TIMES_PORTION + ") AS fat, "
+         + "SUM(COALESCE(np.fiber, 0)" + TIMES_PORTION + ") AS fiber, "
+         + "SUM(COALESCE(np.vitaminA, 0)" + TIMES_PORTION + ") AS vitaminA, "
+         + "SUM(COALESCE(np.vitaminC, 0)" + TIMES_PORTION + ") AS vitaminC, "
+         + "SUM(COALESCE(np.vitaminD, 0)" + TIMES_PORTION + ") AS vitaminD, "
+         + "SUM(COALESCE(np.vitaminE, 0)" + TIMES_PORTION + ") AS vitaminE, "
+         + "SUM(COALESCE(np.vitaminK, 0)" + TIMES_PORTION + ") AS vitaminK, "
+         + "SUM(COALESCE(np.vitaminB12, 0)" + TIMES_PORTION + ") AS vitaminB12, "
+         + "SUM(COALESCE(np.calcium, 0)" + TIMES_PORTION + ") AS calcium, "
+         + "SUM(COALESCE(np.iron, 0)" + TIMES_PORTION + ") AS iron, "
+         + "SUM(COALESCE(np.magnesium, 0)" + TIMES_PORTION + ") AS magnesium, "
+         + "SUM(COALESCE(np.zinc, 0)" + TIMES_PORTION + ") AS zinc, "
+         + "SUM(COALESCE(np.potassium, 0)" + TIMES_PORTION + ") AS potassium";
     
-    // Find all entries for a user, sorted by consumed time (newest first)
-    List<DietaryEntry> findByUserIdOrderByConsumedAtDesc(Long userId);
+    // ---- Read paths ----
+    // History and today's meals select entry columns only (EntryRow) and take
+    // food details from the catalog snapshot. Where an entity is still loaded,
+    // DietaryEntry.foodItem (LAZY) is fetched together with its nutrient
+    // profile in one joined select (the inverse FoodItem.nutrientProfile side
+    // cannot be proxied, so leaving it out would cost one extra select per
+    // distinct food). Open-session-in-view is off: nothing lazy can be loaded
+    // after the service transaction.
+
+    // History, first page: newest entries for a user (id breaks consumedAt ties).
+    // Entry columns only; food details come from the in-memory catalog snapshot.
+    // Read backwards on idx_entries_user_consumed_id, so no sort.
+    @Query("SELECT " + ENTRY_ROW + " FROM DietaryEntry de WHERE de.user.id = :userId "
+         + "ORDER BY de.consumedAt DESC, de.id DESC")
+    List<EntryRow> findHistoryRows(Long userId, Pageable limit);
+
+    // History, next pages: entries strictly after a (consumedAt, id) cursor in
+    // newest-first order. Seeks on idx_entries_user_consumed_id, so every page
+    // costs the same no matter how deep it is (unlike OFFSET).
+    @Query("SELECT " + ENTRY_ROW + " FROM DietaryEntry de WHERE de.user.id = :userId "
+         + "AND (de.consumedAt < :consumedAt OR (de.consumedAt = :consumedAt AND de.id < :id)) "
+         + "ORDER BY de.consumedAt DESC, de.id DESC")
+    List<EntryRow> findHistoryRowsAfter(Long userId, LocalDateTime consumedAt, Long id, Pageable limit);
+
+    // Today's meals: entries in a date range, newest first
+    @Query("SELECT " + ENTRY_ROW + " FROM DietaryEntry de "
+         + "WHERE de.user.id = :userId AND de.consumedAt BETWEEN :start AND :end "
+         + "ORDER BY de.consumedAt DESC, de.id DESC")
+    List<EntryRow> findEntryRows(Long userId, LocalDateTime start, LocalDateTime end);
+
+    // Admin detail: most recent entries for a user, limited in the database
+    @EntityGraph(attributePaths = {"foodItem", "foodItem.nutrientProfile"})
+    List<DietaryEntry> findByUserIdOrderByConsumedAtDesc(Long userId, Pageable limit);
     
-    // Find entries for a user within a date range
+    // Analysis / charts / AI context: entries for a user within a date range
+    @EntityGraph(attributePaths = {"foodItem", "foodItem.nutrientProfile"})
     List<DietaryEntry> findByUserIdAndConsumedAtBetweenOrderByConsumedAtDesc(
         Long userId, LocalDateTime start, LocalDateTime end);
 
+    // Export: a user's whole history, oldest first, as a forward-only stream.
+    // MySQL Connector/J only streams rows (instead of buffering the whole result
+    // set) when the fetch size is Integer.MIN_VALUE; close the stream when done.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT de FROM DietaryEntry de JOIN FETCH de.foodItem f LEFT JOIN FETCH f.nutrientProfile "
+         + "WHERE de.user.id = :userId ORDER BY de.consumedAt, de.id")
+    Stream<DietaryEntry> streamHistory(Long userId);
+
+    // Delete: the entry plus the profile needed to reverse its rollup contribution
+    @EntityGraph(attributePaths = {"foodItem", "foodItem.nutrientProfile"})
+    Optional<DietaryEntry> findWithFoodById(Long id);
+
+    // Bare (foodItemId, portionSize, consumedAt, mealType) tuples in a date range;
+    // nutrients are looked up in the in-memory catalog snapshot, not joined here
+    @Query("SELECT de.foodItem.id AS foodItemId, de.portionSize AS portionSize, "
+         + "de.consumedAt AS consumedAt, de.mealType AS mealType FROM DietaryEntry de "
+         + "WHERE de.user.id = :userId AND de.consumedAt BETWEEN :start AND :end")
+    List<EntryTuple> findEntryTuples(Long userId, LocalDateTime start, LocalDateTime end);
+
+    // Nutrient totals per calendar day in a date range (one row per active day, oldest first)
+    @Query("SELECT CAST(de.consumedAt AS LocalDate) AS day, " + NUTRIENT_SUMS + ", COUNT(de) AS entryCount"
+         + AGGREGATE_FROM
+         + "GROUP BY CAST(de.consumedAt AS LocalDate) ORDER BY CAST(de.consumedAt AS LocalDate)")
+    List<DayTotal> findDailyTotals(Long userId, LocalDateTime start, LocalDateTime end);
+
+    // Calories and entry count per meal type in a date range
+    @Query("SELECT de.mealType AS mealType, SUM(COALESCE(np.calories, 0)" + TIMES_PORTION + ") AS calories, "
+         + "COUNT(de) AS entryCount"
+         + AGGREGATE_FROM
+         + "GROUP BY de.mealType")
+    List<MealTypeTotal> findMealTypeTotals(Long userId, LocalDateTime start, LocalDateTime end);
+
+    // Most-logged foods in a date range with the calories they contributed (page size = limit)
+    @Query("SELECT f.name AS name, SUM(COALESCE(np.calories, 0)" + TIMES_PORTION + ") AS totalCalories, "
+         + "COUNT(de) AS timesLogged"
+         + AGGREGATE_FROM
+         + "GROUP BY f.name ORDER BY COUNT(de) DESC")
+    List<FoodTotal> findTopFoods(Long userId, LocalDateTime start, LocalDateTime end, Pageable limit);
+
     // Delete all dietary entries referencing any of the given food items
     void deleteByFoodItemIn(java.util.List<com.nutrition.dietbalancetracker.model.FoodItem> foodItems);
 
     // Count entries for a specific user (for admin stats)
     long countByUserId(Long userId);
-}
 
+    /** One logged entry as shown in history (projection) */
+    interface EntryRow {
+        Long getId();
+        Long getFoodItemId();
+        Double getPortionSize();
+        MealType getMealType();
+        LocalDateTime getConsumedAt();
+        LocalDateTime getCreatedAt();
+    }
+
+    /** One logged entry without its associations (projection) */
+    interface EntryTuple {
+        Long getFoodItemId();
+        Double getPortionSize();
+        LocalDateTime getConsumedAt();
+        MealType getMealType();
+
+        default double portion() {
+            return getPortionSize() != null ? getPortionSize() : 1.0;
+        }
+    }
+
+    /** Per-day aggregate row (projection) */
+    interface DayTotal {
+        LocalDate getDay();
+        Double getCalories();
+        Double getProtein();
+        Double getCarbohydrates();
+        Double getFat();
+        Double getFiber();
+        Double getVitaminA();
+        Double getVitaminC();
+        Double getVitaminD();
+        Double getVitaminE();
+        Double getVitaminK();
+        Double getVitaminB12();
+        Double getCalcium();
+        Double getIron();
+        Double getMagnesium();
+        Double getZinc();
+        Double getPotassium();
+        Long getEntryCount();
+
+        /** Total of one nutrient for the day. */
+        default double get(Nutrient nutrient) {
+            Double value = switch (nutrient) {
+                case CALORIES -> getCalories();
+                case PROTEIN -> getProtein();
+                case CARBOHYDRATES -> getCarbohydrates();
+                case FAT -> getFat();
+                case FIBER -> getFiber();
+                case VITAMIN_A -> getVitaminA();
+                case VITAMIN_C -> getVitaminC();
+                case VITAMIN_D -> getVitaminD();
+                case VITAMIN_E -> getVitaminE();
+                case VITAMIN_K -> getVitaminK();
+                case VITAMIN_B12 -> getVitaminB12();
+                case CALCIUM -> getCalcium();
+                case IRON -> getIron();
+                case MAGNESIUM -> getMagnesium();
+                case ZINC -> getZinc();
+                case POTASSIUM -> getPotassium();
+            };
+            return value != null ? value : 0;
+        }
+    }
+
+    /** Per-meal-type aggregate row (projection) */
+    interface MealTypeTotal {
+        MealType getMealType();
+        Double getCalories();
+        Long getEntryCount();
+    }
+
+    /** Per-food aggregate row (projection) */
+    interface FoodTotal {
+        String getName();
+        Double getTotalCalories();
+        Long getTimesLogged();
+    }
+}
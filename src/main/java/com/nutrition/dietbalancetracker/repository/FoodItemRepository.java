@@ -3,7 +3,9 @@ package com.nutrition.dietbalancetracker.repository;
 import com.nutrition.dietbalancetracker.model.FoodItem;
 import com.nutrition.dietbalancetracker.model.FoodCategory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -12,15 +14,25 @@ import java.util.List;
 @Repository
 public interface FoodItemRepository extends JpaRepository<FoodItem, Long> {
     
-    // Search foods by name (case-insensitive, partial match)
-    List<FoodItem> findByNameContainingIgnoreCaseAndIsActiveTrue(String name);
-    
-    // Find all active foods
-    List<FoodItem> findByIsActiveTrue();
-    
-    // Find foods by category
-    List<FoodItem> findByCategoryAndIsActiveTrue(FoodCategory category);
-
     // Find all system-seeded (non-custom) foods
     List<FoodItem> findByIsCustomFalse();
+
+    // Every food (active or not) with its nutrient profile in one select (catalog snapshot)
+    @Query("SELECT f FROM FoodItem f LEFT JOIN FETCH f.nutrientProfile")
+    List<FoodItem> findAllWithNutrientProfile();
+
+    // The given foods with their nutrient profiles (catalog snapshot patch)
+    @Query("SELECT f FROM FoodItem f LEFT JOIN FETCH f.nutrientProfile WHERE f.id IN :ids")
+    List<FoodItem> findAllWithNutrientProfileByIdIn(Collection<Long> ids);
+
+    // Active foods per category (category counter repair)
+    @Query("SELECT f.category AS category, COUNT(f) AS count FROM FoodItem f "
+            + "WHERE f.isActive = true GROUP BY f.category")
+    List<CategoryCount> countActiveByCategory();
+
+    /** Active food count of one category (projection) */
+    interface CategoryCount {
+        FoodCategory getCategory();
+        Long getCount();
+    }
 }
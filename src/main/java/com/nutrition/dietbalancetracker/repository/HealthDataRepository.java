@@ -13,4 +13,7 @@ public interface HealthDataRepository extends JpaRepository<HealthData, Long> {
     
     // Find health data by user ID
     Optional<HealthData> findByUserId(Long userId);
+
+    // Delete a user's health data (account deletion; User does not cascade to it)
+    void deleteByUserId(Long userId);
 }
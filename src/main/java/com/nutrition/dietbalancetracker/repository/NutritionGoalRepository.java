@@ -1,7 +1,10 @@
 package com.nutrition.dietbalancetracker.repository;
 
 import com.nutrition.dietbalancetracker.model.NutritionGoal;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
@@ -11,6 +14,9 @@ import java.util.Optional;
 @Repository
 public interface NutritionGoalRepository extends JpaRepository<NutritionGoal, Long> {
 
+    // Read on every goals page and analysis; the result (a goal id) lives in the
+    // query cache and the goal itself in the "users" entity region
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<NutritionGoal> findByUserId(Long userId);
 
     void deleteByUserId(Long userId);
@@ -4,7 +4,9 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.nutrition.dietbalancetracker.model.User;
@@ -42,5 +44,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     // Find users created after a certain date (for admin stats)
     List<User> findByCreatedAtAfter(LocalDateTime date);
+
+    // Next chunk of user IDs after a given ID (keyset pagination for batch jobs)
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Long> findIdsAfter(Long afterId, Pageable limit);
 }
 
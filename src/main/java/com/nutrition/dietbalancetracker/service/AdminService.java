@@ -2,9 +2,18 @@ package com.nutrition.dietbalancetracker.service;
 
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,9 +26,11 @@ import com.nutrition.dietbalancetracker.model.User;
 import com.nutrition.dietbalancetracker.model.UserRole;
 import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository;
 import com.nutrition.dietbalancetracker.repository.FoodItemRepository;
+import com.nutrition.dietbalancetracker.repository.HealthDataRepository;
 import com.nutrition.dietbalancetracker.repository.NutritionGoalRepository;
 import com.nutrition.dietbalancetracker.repository.UserRepository;
 
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -35,10 +46,15 @@ public class AdminService {
     private final DietaryEntryRepository dietaryEntryRepository;
     private final FoodItemRepository foodItemRepository;
     private final NutritionGoalRepository nutritionGoalRepository;
+    private final HealthDataRepository healthDataRepository;
+    private final DailyNutrientRollupService rollupService;
+    private final AnalysisResultCache resultCache;
+    private final EntityManagerFactory entityManagerFactory;
 
     /**
      * Get system-wide statistics for the admin dashboard.
      */
+    @Transactional(readOnly = true)
     public AdminStatsDTO getSystemStats() {
         long totalUsers = userRepository.count();
         long totalAdmins = userRepository.countByRole(UserRole.ADMIN);
@@ -64,6 +80,7 @@ public class AdminService {
     /**
      * Get all users with summary info for the admin users table.
      */
+    @Transactional(readOnly = true)
     public List<AdminUserDTO> getAllUsers() {
         return userRepository.findAll().stream()
                 .map(this::toAdminUserDTO)
@@ -73,6 +90,7 @@ public class AdminService {
     /**
      * Get detailed info for a single user (profile + entries + goals).
      */
+    @Transactional(readOnly = true)
     public AdminUserDetailDTO getUserDetail(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -102,9 +120,8 @@ public class AdminService {
         }
 
         // Recent dietary entries (last 20)
-        List<DietaryEntry> entries = dietaryEntryRepository.findByUserIdOrderByConsumedAtDesc(userId);
+        List<DietaryEntry> entries = dietaryEntryRepository.findByUserIdOrderByConsumedAtDesc(userId, PageRequest.of(0, 20));
         List<AdminUserDetailDTO.DietaryEntryDetail> entryDetails = entries.stream()
-                .limit(20)
                 .map(e -> new AdminUserDetailDTO.DietaryEntryDetail(
                         e.getId(),
                         e.getFoodItem() != null ? e.getFoodItem().getName() : "Unknown",
@@ -145,8 +162,59 @@ public class AdminService {
         nutritionGoalRepository.findByUserId(userId)
                 .ifPresent(goal -> nutritionGoalRepository.delete(goal));
 
-        // Delete user (cascades to dietary entries and health data)
+        healthDataRepository.deleteByUserId(userId);
+        rollupService.deleteForUser(userId);
+
+        // Delete user (cascades to dietary entries)
         userRepository.delete(user);
+        resultCache.evictUser(userId);
+    }
+
+    /**
+     * Recompute daily nutrient rollups from raw entries
+     * (all users, or a single user when userId is given).
+     */
+    @Transactional
+    public int rebuildRollups(Long userId) {
+        if (userId != null) {
+            resultCache.evictUser(userId);
+            return rollupService.rebuildUser(userId);
+        }
+        resultCache.clear();
+        return rollupService.rebuildAll();
+    }
+
+    /**
+     * Hibernate second-level cache counters: overall, query cache, and per
+     * region (hits, misses, puts, entries in memory). Counters stay at zero
+     * while hibernate.generate_statistics is off.
+     */
+    public Map<String, Object> getSecondLevelCacheStats() {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", stats.isStatisticsEnabled());
+        result.put("hits", stats.getSecondLevelCacheHitCount());
+        result.put("misses", stats.getSecondLevelCacheMissCount());
+        result.put("puts", stats.getSecondLevelCachePutCount());
+        result.put("queryCacheHits", stats.getQueryCacheHitCount());
+        result.put("queryCacheMisses", stats.getQueryCacheMissCount());
+        result.put("queryCachePuts", stats.getQueryCachePutCount());
+
+        Set<String> names = new LinkedHashSet<>(List.of(stats.getSecondLevelCacheRegionNames()));
+        names.add(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String name : names) {
+            CacheRegionStatistics region = stats.getCacheRegionStatistics(name);
+            if (region == null) continue;
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("hits", region.getHitCount());
+            r.put("misses", region.getMissCount());
+            r.put("puts", region.getPutCount());
+            r.put("entriesInMemory", region.getElementCountInMemory());
+            regions.put(name, r);
+        }
+        result.put("regions", regions);
+        return result;
     }
 
     private AdminUserDTO toAdminUserDTO(User user) {
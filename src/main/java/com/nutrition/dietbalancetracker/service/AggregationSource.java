@@ -0,0 +1,19 @@
+package com.nutrition.dietbalancetracker.service;
+
+/**
+ * AGGREGATION SOURCE
+ * ==================
+ * Where analysis and chart services read nutrient totals from.
+ * Selected with the {@code nutrition.aggregation.source} property.
+ */
+public enum AggregationSource {
+
+    /** Read the per-day daily_nutrient_rollup rows maintained on write (default). */
+    ROLLUP,
+
+    /** Load raw dietary entries and aggregate them in Java. */
+    ENTRIES,
+
+    /** Push SUM/GROUP BY into MySQL and read lightweight per-day/meal/food projections. */
+    DATABASE
+}
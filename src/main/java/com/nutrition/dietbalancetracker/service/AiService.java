@@ -22,6 +22,7 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import com.nutrition.dietbalancetracker.model.DietaryEntry;
+import com.nutrition.dietbalancetracker.model.Nutrient;
 import com.nutrition.dietbalancetracker.model.User;
 import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository;
 import com.nutrition.dietbalancetracker.repository.UserRepository;
@@ -494,31 +495,27 @@ public class AiService {
             }
 
             StringBuilder ctx = new StringBuilder("Today's logged meals:\n");
-            double totalCal = 0, totalPro = 0, totalCarb = 0, totalFat = 0;
+            NutrientVector totals = new NutrientVector();
+            NutrientVector item = new NutrientVector();
 
             for (DietaryEntry entry : todayEntries) {
                 String name = entry.getFoodItem() != null ? entry.getFoodItem().getName() : "Unknown";
-                double portions = entry.getPortionSize();
+                double portions = NutrientVector.portionOf(entry);
                 String mealType = entry.getMealType() != null ? entry.getMealType().name() : "OTHER";
 
-                double cal = 0, pro = 0, carb = 0, fat = 0;
-                if (entry.getFoodItem() != null && entry.getFoodItem().getNutrientProfile() != null) {
-                    var np = entry.getFoodItem().getNutrientProfile();
-                    cal = np.getCalories() * portions;
-                    pro = np.getProtein() * portions;
-                    carb = np.getCarbohydrates() * portions;
-                    fat = np.getFat() * portions;
-                }
+                item.clear();
+                item.addEntry(entry);
+                totals.addScaled(item, 1.0);
 
                 ctx.append(String.format("- %s (%.1f servings, %s): %.0f kcal, %.1fg protein, %.1fg carbs, %.1fg fat%n",
-                        name, portions, mealType, cal, pro, carb, fat));
-                totalCal += cal;
-                totalPro += pro;
-                totalCarb += carb;
-                totalFat += fat;
+                        name, portions, mealType,
+                        item.get(Nutrient.CALORIES), item.get(Nutrient.PROTEIN),
+                        item.get(Nutrient.CARBOHYDRATES), item.get(Nutrient.FAT)));
             }
 
-            ctx.append(String.format("%nDaily totals so far: %.0f kcal, %.1fg protein, %.1fg carbs, %.1fg fat", totalCal, totalPro, totalCarb, totalFat));
+            ctx.append(String.format("%nDaily totals so far: %.0f kcal, %.1fg protein, %.1fg carbs, %.1fg fat",
+                    totals.get(Nutrient.CALORIES), totals.get(Nutrient.PROTEIN),
+                    totals.get(Nutrient.CARBOHYDRATES), totals.get(Nutrient.FAT)));
             return ctx.toString();
 
         } catch (Exception e) {
@@ -0,0 +1,242 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * ANALYSIS RESULT CACHE
+ * =====================
+ * Bounded per-user cache in front of the analysis and chart endpoints, so a
+ * dashboard refresh without new meals does not recompute anything.
+ *
+ * - Keys are (user, window, calendar day). Every result is relative to
+ *   "today", so a key only ever matches on the day it was computed; the
+ *   first access after midnight drops all of the previous day's entries.
+ * - Least-recently-used entries are evicted once nutrition.cache.max-entries
+ *   is reached.
+ * - Writers call {@link #evictUser(Long)} whenever a user's meals or profile
+ *   change. Inside a transaction the eviction runs after commit. Every
+ *   eviction also bumps the user's generation; a result is only cached if
+ *   the generation it was loaded under is still current, so a load that
+ *   started before the commit cannot re-cache pre-commit data.
+ * - Read-only loads may run on the read replica, which can lag behind the
+ *   write that just evicted the user. A result loaded less than
+ *   nutrition.cache.settle-after-write after the user's last write is served
+ *   but not cached, so replica lag never outlives the load it affected.
+ * - Per-user bookkeeping is bounded as well: a user is tracked only while
+ *   they have cached entries or a load in flight (their keys are indexed, so
+ *   an eviction costs O(their entries)), and a write time only until it has
+ *   settled.
+ * - Hit/miss/eviction counters are exposed through {@link #stats()}.
+ */
+@Service
+public class AnalysisResultCache {
+
+    /** One cached result: a user, a window name (e.g. "today", "charts:7") and the day it was computed. */
+    private record Key(Long userId, String window, LocalDate day) {}
+
+    private final boolean enabled;
+    private final int maxEntries;
+    /** Bookkeeping for a user with cached entries or a load in flight. */
+    private static final class UserState {
+        final Set<Key> keys = new HashSet<>(); // this user's keys in entries
+        long generation;                       // evictions since tracking started
+        int loading;                           // loads in flight
+    }
+
+    private final Map<Key, Object> entries;
+    private final long settleMillis;
+    private final Map<Long, UserState> users = new HashMap<>();
+    private final LinkedHashMap<Long, Long> writtenAt = new LinkedHashMap<>(); // userId → last eviction (epoch millis), oldest first
+    private long clears;                                                       // clear() calls so far
+
+    private LocalDate currentDay = LocalDate.now();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public AnalysisResultCache(
+            @Value("${nutrition.cache.enabled:true}") boolean enabled,
+            @Value("${nutrition.cache.max-entries:10000}") int maxEntries,
+            @Value("${nutrition.cache.settle-after-write:15s}") Duration settleAfterWrite) {
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.settleMillis = settleAfterWrite.toMillis();
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                if (size() > AnalysisResultCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    unindex(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Return the cached result for this user/window, computing and caching it on a miss.
+     * The computation runs outside the lock so slow queries never block other users.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long userId, String window, Supplier<T> loader) {
+        if (!enabled || userId == null) {
+            return loader.get();
+        }
+        Key key = new Key(userId, window, LocalDate.now());
+        long generation;
+        synchronized (this) {
+            rollOver(key.day());
+            Object cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return (T) cached;
+            }
+            UserState user = users.computeIfAbsent(userId, id -> new UserState());
+            user.loading++;
+            generation = user.generation + clears;
+        }
+        misses.incrementAndGet();
+        T value = null;
+        try {
+            value = loader.get();
+            return value;
+        } finally {
+            synchronized (this) {
+                UserState user = users.get(userId);
+                user.loading--;
+                // An eviction while loading means the value may predate a commit, and a load
+                // right after a write may have read a replica that has not seen it yet:
+                // serve it, don't keep it
+                if (value != null && generation == user.generation + clears && settled(userId)) {
+                    rollOver(key.day());
+                    entries.put(key, value);
+                    users.computeIfAbsent(userId, id -> new UserState()).keys.add(key);
+                }
+                release(userId);
+            }
+        }
+    }
+
+    /** Drop every cached result for a user (after commit when called inside a transaction). */
+    public void evictUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeUser(userId);
+                }
+            });
+        } else {
+            removeUser(userId);
+        }
+    }
+
+    /** Drop everything (bulk rebuilds and reseeds). */
+    public synchronized void clear() {
+        clears++;
+        dropAll();
+    }
+
+    /** Hit/miss/eviction counters and current size. */
+    public synchronized Map<String, Object> stats() {
+        long h = hits.get();
+        long m = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("evictions", evictions.get());
+        stats.put("hitRate", h + m == 0 ? 0.0 : Math.round(h * 1000.0 / (h + m)) / 1000.0);
+        stats.put("trackedUsers", users.size());
+        stats.put("recentWrites", writtenAt.size());
+        return stats;
+    }
+
+    private synchronized void removeUser(Long userId) {
+        long now = System.currentTimeMillis();
+        writtenAt.remove(userId); // re-insert at the tail: the map stays in write order
+        writtenAt.put(userId, now);
+        expireWrites(now);
+        UserState user = users.get(userId);
+        if (user == null) {
+            return; // nothing cached, nothing loading
+        }
+        user.generation++;
+        for (Key key : user.keys) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+        }
+        user.keys.clear();
+        release(userId);
+    }
+
+    /** True once the user's last write is older than the settle time (caller holds the lock). */
+    private boolean settled(Long userId) {
+        expireWrites(System.currentTimeMillis());
+        return !writtenAt.containsKey(userId);
+    }
+
+    /** Forget write times that have settled; they are oldest first (caller holds the lock). */
+    private void expireWrites(long now) {
+        Iterator<Map.Entry<Long, Long>> it = writtenAt.entrySet().iterator();
+        while (it.hasNext() && now - it.next().getValue() >= settleMillis) {
+            it.remove();
+        }
+    }
+
+    /** Remove a key dropped from entries from its user's index (caller holds the lock). */
+    private void unindex(Key key) {
+        UserState user = users.get(key.userId());
+        if (user != null) {
+            user.keys.remove(key);
+            release(key.userId());
+        }
+    }
+
+    /** Stop tracking a user with nothing cached and nothing loading (caller holds the lock). */
+    private void release(Long userId) {
+        UserState user = users.get(userId);
+        if (user != null && user.loading == 0 && user.keys.isEmpty()) {
+            users.remove(userId);
+        }
+    }
+
+    /** Drop every entry and every idle user (caller holds the lock). */
+    private void dropAll() {
+        evictions.addAndGet(entries.size());
+        entries.clear();
+        users.values().removeIf(user -> {
+            user.keys.clear();
+            return user.loading == 0;
+        });
+    }
+
+    /** Date-rollover policy: the first access on a new day drops every earlier day's entries. */
+    private void rollOver(LocalDate today) {
+        if (!today.equals(currentDay)) {
+            dropAll();
+            currentDay = today;
+        }
+    }
+}
@@ -2,11 +2,20 @@ package com.nutrition.dietbalancetracker.service;
 
 import com.nutrition.dietbalancetracker.dto.ChartDataDTO;
 import com.nutrition.dietbalancetracker.dto.ChartDataDTO.*;
-import com.nutrition.dietbalancetracker.model.DietaryEntry;
-import com.nutrition.dietbalancetracker.model.NutrientProfile;
+import com.nutrition.dietbalancetracker.model.DailyNutrientRollup;
+import com.nutrition.dietbalancetracker.model.MealType;
+import com.nutrition.dietbalancetracker.model.Nutrient;
 import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository;
+import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository.DayTotal;
+import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository.EntryTuple;
+import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository.MealTypeTotal;
+import com.nutrition.dietbalancetracker.repository.UserRepository;
+import com.nutrition.dietbalancetracker.service.NutrientRequirementService.Requirements;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -24,20 +33,22 @@ import java.util.stream.Collectors;
 public class ChartDataService {
 
     private final DietaryEntryRepository entryRepo;
+    private final DailyNutrientRollupService rollupService;
+    private final AnalysisResultCache resultCache;
+    private final NutrientCatalogService catalogService;
+    private final NutrientRequirementService requirementService;
+    private final UserRepository userRepository;
 
-    /* -------- RDA constants (adult average) -------- */
-    private static final double RDA_PROTEIN   = 50;
-    private static final double RDA_CARBS     = 300;
-    private static final double RDA_FAT       = 65;
-    private static final double RDA_FIBER     = 25;
-    private static final double RDA_VIT_A     = 900;   // mcg
-    private static final double RDA_VIT_C     = 90;    // mg
-    private static final double RDA_VIT_D     = 20;    // mcg
-    private static final double RDA_CALCIUM   = 1000;  // mg
-    private static final double RDA_IRON      = 18;    // mg
-    private static final double RDA_POTASSIUM = 2600;  // mg
-    private static final double RDA_ZINC      = 11;    // mg
-    private static final double RDA_MAGNESIUM = 420;   // mg
+    @Value("${nutrition.aggregation.source:ROLLUP}")
+    private AggregationSource aggregationSource;
+
+    /* -------- Radar axes: label → nutrient (targets come from NutrientRequirementService) -------- */
+    private static final String[] RADAR_LABELS = {
+            "Protein", "Carbs", "Fat", "Fiber", "Vitamin A", "Vitamin C",
+            "Vitamin D", "Calcium", "Iron", "Potassium", "Zinc", "Magnesium"};
+    private static final Nutrient[] RADAR_NUTRIENTS = {
+            Nutrient.PROTEIN, Nutrient.CARBOHYDRATES, Nutrient.FAT, Nutrient.FIBER, Nutrient.VITAMIN_A, Nutrient.VITAMIN_C,
+            Nutrient.VITAMIN_D, Nutrient.CALCIUM, Nutrient.IRON, Nutrient.POTASSIUM, Nutrient.ZINC, Nutrient.MAGNESIUM};
 
     /**
      * Build all chart data for the given number of past days.
@@ -45,63 +56,209 @@ public class ChartDataService {
      * @param userId user
      * @param days   number of days to look back (e.g. 7 or 30)
      */
+    @Transactional(readOnly = true)
     public ChartDataDTO getChartData(Long userId, int days) {
-        LocalDateTime start = LocalDate.now().minusDays(days - 1).atStartOfDay();
+        return resultCache.get(userId, "charts:" + days, () -> computeChartData(userId, days));
+    }
+
+    private ChartDataDTO computeChartData(Long userId, int days) {
+        LocalDate firstDay = LocalDate.now().minusDays(days - 1);
+        LocalDateTime start = firstDay.atStartOfDay();
         LocalDateTime end   = LocalDate.now().plusDays(1).atStartOfDay();
 
-        List<DietaryEntry> entries = entryRepo
-                .findByUserIdAndConsumedAtBetweenOrderByConsumedAtDesc(userId, start, end);
+        ChartAggregate agg = new ChartAggregate(firstDay, days);
+        List<TopFood> topFoods;
+
+        if (aggregationSource == AggregationSource.ROLLUP) {
+            // At most `days` rollup rows plus one grouped query for the top foods
+            for (DailyNutrientRollup r : rollupService.findRange(userId, firstDay, LocalDate.now())) {
+                agg.addRollup(r);
+            }
+            topFoods = findTopFoods(userId, start, end);
+        } else if (aggregationSource == AggregationSource.DATABASE) {
+            // MySQL does the SUM/GROUP BY; only per-day, per-meal and top-10 rows cross the wire
+            for (DayTotal row : entryRepo.findDailyTotals(userId, start, end)) {
+                agg.addDayTotal(row);
+            }
+            for (MealTypeTotal row : entryRepo.findMealTypeTotals(userId, start, end)) {
+                agg.addMealTypeTotal(row);
+            }
+            topFoods = findTopFoods(userId, start, end);
+        } else {
+            // One sweep over bare entry tuples fills every chart structure;
+            // nutrient values and food names come from the catalog snapshot
+            NutrientCatalogService.Snapshot catalog = catalogService.current();
+            for (EntryTuple e : entryRepo.findEntryTuples(userId, start, end)) {
+                if (!catalog.contains(e.getFoodItemId())) {
+                    catalog = catalogService.covering(e.getFoodItemId());
+                }
+                agg.addEntry(e, catalog);
+            }
+            topFoods = agg.topFoods(10);
+        }
 
         ChartDataDTO dto = new ChartDataDTO();
-        dto.setDailyTrend(buildDailyTrend(entries, days));
-        dto.setMacroSplit(buildMacroSplit(entries));
-        dto.setMealTypeBreakdown(buildMealTypeBreakdown(entries));
-        dto.setTopFoods(buildTopFoods(entries));
-        dto.setNutrientRadar(buildNutrientRadar(entries, days));
+        dto.setDailyTrend(agg.dailyTrend());
+        dto.setMacroSplit(buildMacroSplit(agg.totals));
+        dto.setMealTypeBreakdown(agg.mealTypeBreakdown());
+        dto.setTopFoods(topFoods);
+        Requirements req = requirementService.forUser(userRepository.findById(userId).orElse(null));
+        dto.setNutrientRadar(buildNutrientRadar(agg.totals, days, req));
         return dto;
     }
 
-    /* ============ 1. Daily Trend ============ */
-
-    private List<DayData> buildDailyTrend(List<DietaryEntry> entries, int days) {
-        // Group entries by date
-        Map<LocalDate, List<DietaryEntry>> byDate = entries.stream()
-                .collect(Collectors.groupingBy(e -> e.getConsumedAt().toLocalDate()));
-
-        List<DayData> trend = new ArrayList<>();
-        for (int i = days - 1; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusDays(i);
-            List<DietaryEntry> dayEntries = byDate.getOrDefault(date, List.of());
-
-            double cal = 0, pro = 0, carb = 0, fat = 0;
-            for (DietaryEntry e : dayEntries) {
-                NutrientProfile np = getProfile(e);
-                if (np == null) continue;
-                double p = e.getPortionSize();
-                cal  += np.getCalories()       * p;
-                pro  += np.getProtein()        * p;
-                carb += np.getCarbohydrates()  * p;
-                fat  += np.getFat()            * p;
+    private List<TopFood> findTopFoods(Long userId, LocalDateTime start, LocalDateTime end) {
+        return entryRepo.findTopFoods(userId, start, end, PageRequest.of(0, 10)).stream()
+                .map(f -> new TopFood(f.getName(), round(f.getTotalCalories()), f.getTimesLogged().intValue()))
+                .collect(Collectors.toList());
+    }
+
+    /* ============ Single-pass aggregate ============ */
+
+    /**
+     * Accumulates everything the five charts need in one pass.
+     * Daily values live in primitive arrays indexed by day offset from the
+     * first day of the window; meal types are indexed by enum ordinal with an
+     * extra trailing slot for entries without a meal type ("OTHER").
+     */
+    static final class ChartAggregate {
+        private static final MealType[] MEAL_TYPES = MealType.values();
+        private static final int OTHER = MEAL_TYPES.length;
+
+        private final LocalDate firstDay;
+        private final long firstEpochDay;
+        private final int days;
+
+        private final double[] dayCalories;
+        private final double[] dayProtein;
+        private final double[] dayCarbs;
+        private final double[] dayFat;
+        private final int[] dayCount;
+
+        private final double[] mealCalories = new double[OTHER + 1];
+        private final int[] mealCount = new int[OTHER + 1];
+
+        private final Map<String, double[]> foods = new HashMap<>(); // [totalCal, count]
+        private final NutrientVector totals = new NutrientVector();
+        private final NutrientVector entry = new NutrientVector();
+
+        ChartAggregate(LocalDate firstDay, int days) {
+            this.firstDay = firstDay;
+            this.firstEpochDay = firstDay.toEpochDay();
+            this.days = days;
+            this.dayCalories = new double[days];
+            this.dayProtein = new double[days];
+            this.dayCarbs = new double[days];
+            this.dayFat = new double[days];
+            this.dayCount = new int[days];
+        }
+
+        /** Fold one entry tuple into every structure (catalog row resolved once). */
+        void addEntry(EntryTuple e, NutrientCatalogService.Snapshot catalog) {
+            long foodItemId = e.getFoodItemId();
+            entry.clear();
+            catalog.addTo(entry, foodItemId, e.portion());
+            totals.addScaled(entry, 1.0);
+            double cal = entry.get(Nutrient.CALORIES);
+
+            int d = (int) (e.getConsumedAt().toLocalDate().toEpochDay() - firstEpochDay);
+            if (d >= 0 && d < days) {
+                dayCalories[d] += cal;
+                dayProtein[d]  += entry.get(Nutrient.PROTEIN);
+                dayCarbs[d]    += entry.get(Nutrient.CARBOHYDRATES);
+                dayFat[d]      += entry.get(Nutrient.FAT);
+                dayCount[d]++;
             }
 
-            String label = date.getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.ENGLISH);
-            trend.add(new DayData(date.toString(), label, round(cal), round(pro), round(carb), round(fat), dayEntries.size()));
+            int m = e.getMealType() != null ? e.getMealType().ordinal() : OTHER;
+            mealCalories[m] += cal;
+            mealCount[m]++;
+
+            String name = catalog.name(foodItemId);
+            double[] food = foods.computeIfAbsent(name, k -> new double[2]);
+            food[0] += cal;
+            food[1] += 1;
+        }
+
+        /** Fold one pre-aggregated day (no per-food data). */
+        void addRollup(DailyNutrientRollup r) {
+            for (Nutrient n : Nutrient.values()) {
+                totals.add(n, r.getNutrient(n));
+            }
+            int d = (int) (r.getRollupDate().toEpochDay() - firstEpochDay);
+            if (d >= 0 && d < days) {
+                dayCalories[d] += r.getCalories();
+                dayProtein[d]  += r.getProtein();
+                dayCarbs[d]    += r.getCarbohydrates();
+                dayFat[d]      += r.getFat();
+                dayCount[d]    += r.getEntryCount();
+            }
+            for (MealType mt : MEAL_TYPES) {
+                mealCalories[mt.ordinal()] += r.getMealCalories(mt);
+                mealCount[mt.ordinal()]    += r.getMealCount(mt);
+            }
+        }
+
+        /** Fold one database-aggregated day (nutrient totals and entry count). */
+        void addDayTotal(DayTotal row) {
+            for (Nutrient n : Nutrient.values()) {
+                totals.add(n, row.get(n));
+            }
+            int d = (int) (row.getDay().toEpochDay() - firstEpochDay);
+            if (d >= 0 && d < days) {
+                dayCalories[d] += row.get(Nutrient.CALORIES);
+                dayProtein[d]  += row.get(Nutrient.PROTEIN);
+                dayCarbs[d]    += row.get(Nutrient.CARBOHYDRATES);
+                dayFat[d]      += row.get(Nutrient.FAT);
+                dayCount[d]    += row.getEntryCount().intValue();
+            }
+        }
+
+        /** Fold one database-aggregated meal type. */
+        void addMealTypeTotal(MealTypeTotal row) {
+            int m = row.getMealType() != null ? row.getMealType().ordinal() : OTHER;
+            mealCalories[m] += row.getCalories() != null ? row.getCalories() : 0;
+            mealCount[m]    += row.getEntryCount().intValue();
         }
-        return trend;
-    }
 
-    /* ============ 2. Macro Split ============ */
-
-    private MacroSplit buildMacroSplit(List<DietaryEntry> entries) {
-        double pro = 0, carb = 0, fat = 0;
-        for (DietaryEntry e : entries) {
-            NutrientProfile np = getProfile(e);
-            if (np == null) continue;
-            double p = e.getPortionSize();
-            pro  += np.getProtein()       * p;
-            carb += np.getCarbohydrates() * p;
-            fat  += np.getFat()           * p;
+        List<DayData> dailyTrend() {
+            List<DayData> trend = new ArrayList<>(days);
+            for (int d = 0; d < days; d++) {
+                LocalDate date = firstDay.plusDays(d);
+                String label = date.getDayOfWeek().getDisplayName(TextStyle.SHORT, Locale.ENGLISH);
+                trend.add(new DayData(date.toString(), label,
+                        round(dayCalories[d]), round(dayProtein[d]), round(dayCarbs[d]), round(dayFat[d]),
+                        dayCount[d]));
+            }
+            return trend;
         }
+
+        List<MealTypeBreakdown> mealTypeBreakdown() {
+            List<MealTypeBreakdown> result = new ArrayList<>();
+            for (int m = 0; m <= OTHER; m++) {
+                if (mealCount[m] > 0) {
+                    String name = m < OTHER ? MEAL_TYPES[m].name() : "OTHER";
+                    result.add(new MealTypeBreakdown(name, round(mealCalories[m]), mealCount[m]));
+                }
+            }
+            return result;
+        }
+
+        List<TopFood> topFoods(int limit) {
+            return foods.entrySet().stream()
+                    .sorted((a, b) -> Double.compare(b.getValue()[1], a.getValue()[1]))
+                    .limit(limit)
+                    .map(en -> new TopFood(en.getKey(), round(en.getValue()[0]), (int) en.getValue()[1]))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /* ============ Macro Split ============ */
+
+    private MacroSplit buildMacroSplit(NutrientVector totals) {
+        double pro  = totals.get(Nutrient.PROTEIN);
+        double carb = totals.get(Nutrient.CARBOHYDRATES);
+        double fat  = totals.get(Nutrient.FAT);
         double total = pro + carb + fat;
         if (total == 0) total = 1; // avoid /0
         return new MacroSplit(
@@ -109,91 +266,20 @@ public class ChartDataService {
                 round(pro / total * 100), round(carb / total * 100), round(fat / total * 100));
     }
 
-    /* ============ 3. Meal-Type Breakdown ============ */
-
-    private List<MealTypeBreakdown> buildMealTypeBreakdown(List<DietaryEntry> entries) {
-        Map<String, double[]> map = new LinkedHashMap<>(); // [calories, count]
-        for (DietaryEntry e : entries) {
-            String mt = e.getMealType() != null ? e.getMealType().name() : "OTHER";
-            NutrientProfile np = getProfile(e);
-            double cal = np != null ? np.getCalories() * e.getPortionSize() : 0;
-            map.computeIfAbsent(mt, k -> new double[2]);
-            map.get(mt)[0] += cal;
-            map.get(mt)[1] += 1;
-        }
-        return map.entrySet().stream()
-                .map(en -> new MealTypeBreakdown(en.getKey(), round(en.getValue()[0]), (int) en.getValue()[1]))
-                .collect(Collectors.toList());
-    }
-
-    /* ============ 4. Top Foods ============ */
-
-    private List<TopFood> buildTopFoods(List<DietaryEntry> entries) {
-        Map<String, double[]> map = new HashMap<>(); // [totalCal, count]
-        for (DietaryEntry e : entries) {
-            String name = e.getFoodItem() != null ? e.getFoodItem().getName() : "Unknown";
-            NutrientProfile np = getProfile(e);
-            double cal = np != null ? np.getCalories() * e.getPortionSize() : 0;
-            map.computeIfAbsent(name, k -> new double[2]);
-            map.get(name)[0] += cal;
-            map.get(name)[1] += 1;
-        }
-        return map.entrySet().stream()
-                .sorted((a, b) -> Double.compare(b.getValue()[1], a.getValue()[1]))
-                .limit(10)
-                .map(en -> new TopFood(en.getKey(), round(en.getValue()[0]), (int) en.getValue()[1]))
-                .collect(Collectors.toList());
-    }
-
-    /* ============ 5. Nutrient Radar ============ */
-
-    private List<RadarPoint> buildNutrientRadar(List<DietaryEntry> entries, int days) {
-        double pro = 0, carb = 0, fat = 0, fiber = 0;
-        double vitA = 0, vitC = 0, vitD = 0, calcium = 0, iron = 0, potassium = 0, zinc = 0, magnesium = 0;
-
-        for (DietaryEntry e : entries) {
-            NutrientProfile np = getProfile(e);
-            if (np == null) continue;
-            double p = e.getPortionSize();
-            pro       += np.getProtein()       * p;
-            carb      += np.getCarbohydrates() * p;
-            fat       += np.getFat()           * p;
-            fiber     += safe(np.getFiber())   * p;
-            vitA      += safe(np.getVitaminA())  * p;
-            vitC      += safe(np.getVitaminC())  * p;
-            vitD      += safe(np.getVitaminD())  * p;
-            calcium   += safe(np.getCalcium())   * p;
-            iron      += safe(np.getIron())      * p;
-            potassium += safe(np.getPotassium()) * p;
-            zinc      += safe(np.getZinc())      * p;
-            magnesium += safe(np.getMagnesium()) * p;
-        }
+    /* ============ Nutrient Radar ============ */
 
-        // Average per day
+    private List<RadarPoint> buildNutrientRadar(NutrientVector totals, int days, Requirements req) {
+        // Average per day, as % of the user's personalised daily requirement (capped at 150)
         double d = Math.max(days, 1);
-        List<RadarPoint> points = new ArrayList<>();
-        points.add(new RadarPoint("Protein",   Math.min(round(pro / d / RDA_PROTEIN * 100), 150)));
-        points.add(new RadarPoint("Carbs",     Math.min(round(carb / d / RDA_CARBS * 100), 150)));
-        points.add(new RadarPoint("Fat",       Math.min(round(fat / d / RDA_FAT * 100), 150)));
-        points.add(new RadarPoint("Fiber",     Math.min(round(fiber / d / RDA_FIBER * 100), 150)));
-        points.add(new RadarPoint("Vitamin A", Math.min(round(vitA / d / RDA_VIT_A * 100), 150)));
-        points.add(new RadarPoint("Vitamin C", Math.min(round(vitC / d / RDA_VIT_C * 100), 150)));
-        points.add(new RadarPoint("Vitamin D", Math.min(round(vitD / d / RDA_VIT_D * 100), 150)));
-        points.add(new RadarPoint("Calcium",   Math.min(round(calcium / d / RDA_CALCIUM * 100), 150)));
-        points.add(new RadarPoint("Iron",      Math.min(round(iron / d / RDA_IRON * 100), 150)));
-        points.add(new RadarPoint("Potassium", Math.min(round(potassium / d / RDA_POTASSIUM * 100), 150)));
-        points.add(new RadarPoint("Zinc",      Math.min(round(zinc / d / RDA_ZINC * 100), 150)));
-        points.add(new RadarPoint("Magnesium", Math.min(round(magnesium / d / RDA_MAGNESIUM * 100), 150)));
+        List<RadarPoint> points = new ArrayList<>(RADAR_NUTRIENTS.length);
+        for (int i = 0; i < RADAR_NUTRIENTS.length; i++) {
+            Nutrient n = RADAR_NUTRIENTS[i];
+            points.add(new RadarPoint(RADAR_LABELS[i], Math.min(round(totals.get(n) / d / req.get(n) * 100), 150)));
+        }
         return points;
     }
 
     /* -------- helpers -------- */
 
-    private NutrientProfile getProfile(DietaryEntry e) {
-        return e.getFoodItem() != null ? e.getFoodItem().getNutrientProfile() : null;
-    }
-
-    private double safe(Double v) { return v != null ? v : 0; }
-
-    private double round(double v) { return Math.round(v * 10.0) / 10.0; }
+    private static double round(double v) { return Math.round(v * 10.0) / 10.0; }
 }
@@ -0,0 +1,206 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.nutrition.dietbalancetracker.dto.ChatHistoryPageDTO;
+import com.nutrition.dietbalancetracker.dto.ChatMessageDTO;
+import com.nutrition.dietbalancetracker.model.ChatMessage;
+import com.nutrition.dietbalancetracker.repository.ChatMessageRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * CHAT HISTORY SERVICE
+ * ====================
+ * Stores, pages and trims the AI chat history (chat_messages).
+ *
+ * - History is read newest page first with a (createdAt, id) cursor; each
+ *   page is returned oldest-first so it can be shown as is.
+ * - Clearing and single-message deletes are one DELETE statement each.
+ * - A nightly retention job keeps at most max-messages per user and drops
+ *   anything older than max-age-days. It deletes in chunks of chunk-size
+ *   rows, each its own short statement, so trimming a large backlog never
+ *   holds long locks on the table.
+ */
+@Service
+@Slf4j
+public class ChatHistoryService {
+
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+
+    private static final String TABLE = "chat_messages";
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxMessages;
+    private final int maxAgeDays;
+    private final int chunkSize;
+
+    public ChatHistoryService(
+            ChatMessageRepository chatMessageRepository,
+            JdbcTemplate jdbcTemplate,
+            @Value("${nutrition.chat.retention.max-messages:500}") int maxMessages,
+            @Value("${nutrition.chat.retention.max-age-days:180}") int maxAgeDays,
+            @Value("${nutrition.chat.retention.chunk-size:1000}") int chunkSize) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxMessages = maxMessages;
+        this.maxAgeDays = maxAgeDays;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /** Append one message ("user" or "assistant") to a user's history. */
+    public void record(Long userId, String role, String content) {
+        ChatMessage message = new ChatMessage();
+        message.setUserId(userId);
+        message.setRole(role);
+        message.setContent(content);
+        chatMessageRepository.save(message);
+    }
+
+    /**
+     * One page of a user's chat history.
+     *
+     * @param cursor opaque token from the previous page (null for the newest page)
+     * @param size   requested page size, clamped to 1..MAX_PAGE_SIZE
+     * @throws IllegalArgumentException when the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public ChatHistoryPageDTO getHistory(Long userId, String cursor, Integer size) {
+        int limit = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        PageRequest fetch = PageRequest.of(0, limit + 1); // one extra row tells us if there are older messages
+
+        List<ChatMessageDTO> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = chatMessageRepository.findHistoryPage(userId, fetch);
+        } else {
+            Cursor before = Cursor.decode(cursor);
+            rows = chatMessageRepository.findHistoryPageBefore(userId, before.createdAt(), before.id(), fetch);
+        }
+
+        boolean hasMore = rows.size() > limit;
+        List<ChatMessageDTO> page = new ArrayList<>(hasMore ? rows.subList(0, limit) : rows);
+        String nextCursor = null;
+        if (hasMore) {
+            ChatMessageDTO oldest = page.get(limit - 1);
+            nextCursor = new Cursor(oldest.getCreatedAt(), oldest.getId()).encode();
+        }
+        Collections.reverse(page); // oldest first, ready to display
+        return new ChatHistoryPageDTO(page, nextCursor, hasMore);
+    }
+
+    /** Delete a user's whole history; returns the number of messages removed. */
+    @Transactional
+    public int clear(Long userId) {
+        return chatMessageRepository.deleteAllByUserId(userId);
+    }
+
+    /** Delete one message; false when it does not exist or belongs to someone else. */
+    @Transactional
+    public boolean deleteMessage(Long id, Long userId) {
+        return chatMessageRepository.deleteByIdAndUserId(id, userId) > 0;
+    }
+
+    /* ============ Retention ============ */
+
+    @Scheduled(cron = "${nutrition.chat.retention.cron:0 0 4 * * *}")
+    public void runScheduledRetention() {
+        try {
+            applyRetention();
+        } catch (RuntimeException e) {
+            log.error("Chat history retention failed", e);
+        }
+    }
+
+    /**
+     * Trim every user's history to the configured limits (0 disables a limit).
+     *
+     * @return messages deleted by age and by per-user cap
+     */
+    public synchronized Map<String, Object> applyRetention() {
+        long byAge = maxAgeDays > 0 ? deleteOlderThan(LocalDateTime.now().minusDays(maxAgeDays)) : 0;
+        long byCount = maxMessages > 0 ? trimToMaxMessages() : 0;
+        if (byAge + byCount > 0) {
+            log.info("Chat retention removed {} messages older than {} days and {} over the {}-message cap",
+                    byAge, maxAgeDays, byCount, maxMessages);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("deletedByAge", byAge);
+        result.put("deletedByCount", byCount);
+        return result;
+    }
+
+    private long deleteOlderThan(LocalDateTime cutoff) {
+        return deleteInChunks("DELETE FROM " + TABLE + " WHERE created_at < ? LIMIT ?", Timestamp.valueOf(cutoff));
+    }
+
+    /** For each user above the cap, delete everything older than their max-messages-th newest message. */
+    private long trimToMaxMessages() {
+        List<Long> users = jdbcTemplate.queryForList(
+                "SELECT user_id FROM " + TABLE + " GROUP BY user_id HAVING COUNT(*) > ?", Long.class, maxMessages);
+        long deleted = 0;
+        for (Long userId : users) {
+            // Oldest message that is kept: skip maxMessages - 1 newer ones
+            List<Object[]> oldestKept = jdbcTemplate.query(
+                    "SELECT created_at, id FROM " + TABLE + " WHERE user_id = ? "
+                            + "ORDER BY created_at DESC, id DESC LIMIT 1 OFFSET ?",
+                    (rs, i) -> new Object[] { rs.getTimestamp(1), rs.getLong(2) }, userId, maxMessages - 1);
+            if (oldestKept.isEmpty()) continue;
+            Timestamp createdAt = (Timestamp) oldestKept.get(0)[0];
+            Long id = (Long) oldestKept.get(0)[1];
+            deleted += deleteInChunks("DELETE FROM " + TABLE + " WHERE user_id = ? "
+                    + "AND (created_at < ? OR (created_at = ? AND id < ?)) LIMIT ?",
+                    userId, createdAt, createdAt, id);
+        }
+        return deleted;
+    }
+
+    /** Run "DELETE ... LIMIT ?" (chunk size bound last) until a chunk comes back short. */
+    private long deleteInChunks(String sql, Object... args) {
+        Object[] params = new Object[args.length + 1];
+        System.arraycopy(args, 0, params, 0, args.length);
+        params[args.length] = chunkSize;
+        long total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(sql, params);
+            total += deleted;
+        } while (deleted == chunkSize);
+        return total;
+    }
+
+    /** Position of a message in (createdAt DESC, id DESC) order, encoded as an opaque token. */
+    private record Cursor(LocalDateTime createdAt, Long id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int sep = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), Long.valueOf(raw.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid history cursor");
+            }
+        }
+    }
+}
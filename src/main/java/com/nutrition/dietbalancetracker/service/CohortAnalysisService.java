@@ -0,0 +1,255 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.nutrition.dietbalancetracker.dto.CohortJobStatusDTO;
+import com.nutrition.dietbalancetracker.dto.NutrientAnalysisDTO;
+import com.nutrition.dietbalancetracker.dto.NutrientAnalysisDTO.NutrientDetail;
+import com.nutrition.dietbalancetracker.model.CohortAnalysisResult;
+import com.nutrition.dietbalancetracker.model.DailyNutrientRollup;
+import com.nutrition.dietbalancetracker.model.User;
+import com.nutrition.dietbalancetracker.repository.CohortAnalysisResultRepository;
+import com.nutrition.dietbalancetracker.repository.DailyNutrientRollupRepository;
+import com.nutrition.dietbalancetracker.repository.UserRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * COHORT ANALYSIS SERVICE
+ * =======================
+ * Scores every user's past week (overall score + deficient nutrients) in a
+ * background batch, for the admin dashboard.
+ *
+ * - A dispatcher walks user IDs in keyset-paginated chunks
+ *   (nutrition.cohort.chunk-size) and hands each chunk to a virtual thread.
+ * - A semaphore caps how many chunks touch the database at once
+ *   (nutrition.cohort.db-concurrency, keep it below the connection pool size);
+ *   the dispatcher blocks on it, so it never reads far ahead.
+ * - Each chunk reads its users and their week of rollup rows in two queries,
+ *   then writes its results into cohort_analysis_results.
+ * - Progress is tracked per user; {@link #cancel(String)} stops dispatching
+ *   and interrupts running chunks. One job runs at a time.
+ * - Results of earlier runs are deleted only when a run completes. A run in
+ *   which every chunk failed ends FAILED and leaves them in place.
+ */
+@Service
+@Slf4j
+public class CohortAnalysisService {
+
+    /** Nutrients below this % of the requirement are reported as deficient. */
+    private static final double DEFICIENT_BELOW_PCT = 80;
+
+    private final UserRepository userRepository;
+    private final DailyNutrientRollupRepository rollupRepository;
+    private final CohortAnalysisResultRepository resultRepository;
+    private final NutrientAnalysisService analysisService;
+    private final int chunkSize;
+    private final int dbConcurrency;
+
+    private volatile Job current;
+
+    public CohortAnalysisService(
+            UserRepository userRepository,
+            DailyNutrientRollupRepository rollupRepository,
+            CohortAnalysisResultRepository resultRepository,
+            NutrientAnalysisService analysisService,
+            @Value("${nutrition.cohort.chunk-size:200}") int chunkSize,
+            @Value("${nutrition.cohort.db-concurrency:4}") int dbConcurrency) {
+        this.userRepository = userRepository;
+        this.rollupRepository = rollupRepository;
+        this.resultRepository = resultRepository;
+        this.analysisService = analysisService;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.dbConcurrency = Math.max(1, dbConcurrency);
+    }
+
+    /**
+     * Start a new batch run; previous results are replaced once it completes.
+     *
+     * @throws IllegalStateException when a run is already in progress
+     */
+    public synchronized CohortJobStatusDTO start() {
+        if (current != null && current.isRunning()) {
+            throw new IllegalStateException("A cohort analysis is already running");
+        }
+        Job job = new Job(UUID.randomUUID().toString(), userRepository.count());
+        current = job;
+        Thread.ofVirtual().name("cohort-dispatch-" + job.id).start(() -> run(job));
+        log.info("Cohort analysis {} started for {} users", job.id, job.totalUsers);
+        return job.toStatus();
+    }
+
+    /** Status of a run (null when unknown). */
+    public CohortJobStatusDTO status(String jobId) {
+        Job job = current;
+        return job != null && job.id.equals(jobId) ? job.toStatus() : null;
+    }
+
+    /** Status of the latest run (null when none has been started). */
+    public CohortJobStatusDTO latest() {
+        Job job = current;
+        return job != null ? job.toStatus() : null;
+    }
+
+    /** Request cancellation; returns false when the run is unknown or already finished. */
+    public boolean cancel(String jobId) {
+        Job job = current;
+        if (job == null || !job.id.equals(jobId) || !job.isRunning()) {
+            return false;
+        }
+        job.cancelled = true;
+        ExecutorService workers = job.workers;
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+        log.info("Cohort analysis {} cancellation requested", jobId);
+        return true;
+    }
+
+    /** A page of results of a run, lowest scores first. */
+    public Page<CohortAnalysisResult> results(String jobId, int page, int size) {
+        return resultRepository.findByJobIdOrderByOverallScoreAsc(
+                jobId, PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 500)));
+    }
+
+    /* ============ Batch execution ============ */
+
+    private void run(Job job) {
+        Semaphore dbPermits = new Semaphore(dbConcurrency);
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            job.workers = workers;
+            long afterId = 0;
+            while (!job.cancelled) {
+                List<Long> ids = userRepository.findIdsAfter(afterId, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) break;
+                afterId = ids.get(ids.size() - 1);
+
+                dbPermits.acquire();
+                if (job.cancelled) {
+                    dbPermits.release();
+                    break;
+                }
+                try {
+                    job.chunks.incrementAndGet();
+                    workers.submit(() -> {
+                        try {
+                            processChunk(job, ids);
+                        } catch (RuntimeException e) {
+                            job.failedChunks.incrementAndGet();
+                            job.failed.addAndGet(ids.size());
+                            log.warn("Cohort analysis {} chunk failed: {}", job.id, e.getMessage());
+                        } finally {
+                            dbPermits.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // cancelled between the check above and the submit
+                    dbPermits.release();
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.cancelled = true;
+        } catch (RuntimeException e) {
+            log.error("Cohort analysis {} failed", job.id, e);
+            job.finish("FAILED");
+            return;
+        }
+        if (job.cancelled) {
+            job.finish("CANCELLED");
+        } else if (job.chunks.get() > 0 && job.failedChunks.get() == job.chunks.get()) {
+            log.error("Cohort analysis {} failed: all {} chunks failed; previous results kept", job.id, job.chunks.get());
+            job.finish("FAILED");
+            return;
+        } else {
+            resultRepository.deleteByJobIdNot(job.id);
+            job.finish("COMPLETED");
+        }
+        log.info("Cohort analysis {} {}: {} processed, {} failed",
+                job.id, job.status, job.processed.get(), job.failed.get());
+    }
+
+    private void processChunk(Job job, List<Long> ids) {
+        LocalDate today = LocalDate.now();
+        List<User> users = userRepository.findAllById(ids);
+        Map<Long, List<DailyNutrientRollup>> weekByUser = new HashMap<>();
+        for (DailyNutrientRollup r : rollupRepository.findByUserIdInAndRollupDateBetween(ids, today.minusDays(7), today)) {
+            weekByUser.computeIfAbsent(r.getUserId(), k -> new ArrayList<>()).add(r);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<CohortAnalysisResult> results = new ArrayList<>(users.size());
+        for (User user : users) {
+            if (job.cancelled || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            List<DailyNutrientRollup> week = weekByUser.getOrDefault(user.getId(), List.of());
+            NutrientAnalysisDTO analysis = analysisService.analyzeWeek(user, week);
+            String deficiencies = Stream.concat(analysis.getMacronutrients().stream(), analysis.getMicronutrients().stream())
+                    .filter(n -> n.getPercentage() < DEFICIENT_BELOW_PCT)
+                    .map(NutrientDetail::getName)
+                    .collect(Collectors.joining(","));
+            results.add(new CohortAnalysisResult(null, job.id, user.getId(), analysis.getOverallScore(),
+                    analysis.getMealCount(), week.size(), deficiencies, now));
+        }
+        resultRepository.saveAll(results);
+        job.processed.addAndGet(results.size());
+        job.failed.addAndGet(ids.size() - users.size()); // users deleted since the ID scan
+    }
+
+    /** Mutable progress of one run (fields read by status requests on other threads). */
+    private static final class Job {
+        final String id;
+        final long totalUsers;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final AtomicLong processed = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicInteger chunks = new AtomicInteger();       // dispatched
+        final AtomicInteger failedChunks = new AtomicInteger(); // threw before saving
+        volatile boolean cancelled;
+        volatile String status = "RUNNING";
+        volatile LocalDateTime finishedAt;
+        volatile ExecutorService workers;
+
+        Job(String id, long totalUsers) {
+            this.id = id;
+            this.totalUsers = totalUsers;
+        }
+
+        boolean isRunning() {
+            return "RUNNING".equals(status);
+        }
+
+        void finish(String finalStatus) {
+            finishedAt = LocalDateTime.now();
+            status = finalStatus;
+        }
+
+        CohortJobStatusDTO toStatus() {
+            long done = processed.get() + failed.get();
+            double pct = totalUsers == 0 ? 100 : Math.min(100, Math.round(done * 1000.0 / totalUsers) / 10.0);
+            return new CohortJobStatusDTO(id, status, totalUsers, processed.get(), failed.get(),
+                    pct, startedAt, finishedAt);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.nutrition.dietbalancetracker.model.DailyNutrientRollup;
+import com.nutrition.dietbalancetracker.model.DietaryEntry;
+import com.nutrition.dietbalancetracker.model.MealType;
+import com.nutrition.dietbalancetracker.model.Nutrient;
+import com.nutrition.dietbalancetracker.repository.DailyNutrientRollupRepository;
+import com.nutrition.dietbalancetracker.repository.DailyNutrientRollupRepository.HistorySummary;
+import com.nutrition.dietbalancetracker.repository.DietaryEntryArchiveRepository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * DAILY NUTRIENT ROLLUP SERVICE
+ * =============================
+ * Maintains the daily_nutrient_rollup table: one row per user per day with
+ * the day's nutrient totals and per-meal-type counts/calories.
+ *
+ * Writes are applied as a single atomic MySQL upsert inside the caller's
+ * transaction, so concurrent meal logs for the same day never race on the
+ * row insert. {@link #rebuildAll()} / {@link #rebuildUser(Long)} recompute
+ * rows from the raw dietary entries (backfill and repair). Days in months
+ * already moved to the entry archive are left as they are: their raw rows
+ * are no longer in the table.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class DailyNutrientRollupService {
+
+    private static final Nutrient[] NUTRIENTS = Nutrient.values();
+    private static final MealType[] MEAL_TYPES = MealType.values();
+
+    private static final String TABLE = "daily_nutrient_rollup";
+
+    /** Delta columns in the order parameters are bound by {@link DayDelta#params}. */
+    private static final List<String> DELTA_COLUMNS = Stream.of(
+            Stream.of(NUTRIENTS).map(DailyNutrientRollupService::nutrientColumn),
+            Stream.of(MEAL_TYPES).map(m -> mealColumn(m, "count")),
+            Stream.of(MEAL_TYPES).map(m -> mealColumn(m, "calories")))
+            .flatMap(s -> s)
+            .collect(Collectors.toList());
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO " + TABLE + " (user_id, rollup_date, " + String.join(", ", DELTA_COLUMNS) + ", updated_at) "
+            + "VALUES (?, ?, " + DELTA_COLUMNS.stream().map(c -> "?").collect(Collectors.joining(", ")) + ", NOW()) "
+            + "ON DUPLICATE KEY UPDATE "
+            + DELTA_COLUMNS.stream().map(c -> c + " = " + c + " + VALUES(" + c + ")").collect(Collectors.joining(", "))
+            + ", updated_at = NOW()";
+
+    private static final String DELETE_EMPTY_SQL =
+            "DELETE FROM " + TABLE + " WHERE user_id = ? AND rollup_date = ? AND "
+            + Stream.of(MEAL_TYPES).map(m -> mealColumn(m, "count")).collect(Collectors.joining(" + ")) + " <= 0";
+
+    /** Recomputes rows from raw entries; "%s" is replaced by an optional WHERE clause. */
+    private static final String REBUILD_SQL =
+            "INSERT INTO " + TABLE + " (user_id, rollup_date, " + String.join(", ", DELTA_COLUMNS) + ", updated_at) "
+            + "SELECT de.user_id, DATE(de.consumed_at), "
+            + Stream.of(NUTRIENTS)
+                    .map(n -> "SUM(COALESCE(np." + nutrientColumn(n) + ", 0) * de.portion_size)")
+                    .collect(Collectors.joining(", ")) + ", "
+            + Stream.of(MEAL_TYPES)
+                    .map(m -> "SUM(CASE WHEN de.meal_type = '" + m.name() + "' THEN 1 ELSE 0 END)")
+                    .collect(Collectors.joining(", ")) + ", "
+            + Stream.of(MEAL_TYPES)
+                    .map(m -> "SUM(CASE WHEN de.meal_type = '" + m.name()
+                            + "' THEN COALESCE(np.calories, 0) * de.portion_size ELSE 0 END)")
+                    .collect(Collectors.joining(", "))
+            + ", NOW() "
+            + "FROM dietary_entries de LEFT JOIN nutrient_profiles np ON np.food_item_id = de.food_item_id "
+            + "%s"
+            + "GROUP BY de.user_id, DATE(de.consumed_at)";
+
+    private final DailyNutrientRollupRepository rollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final DietaryEntryArchiveRepository archiveRepository;
+
+    /**
+     * Add (sign = +1) or remove (sign = -1) one entry's contribution to its day's row.
+     * Runs in the caller's transaction so the rollup commits or rolls back with the entry.
+     */
+    @Transactional
+    public void applyEntry(DietaryEntry entry, int sign) {
+        Long userId = entry.getUser().getId();
+        LocalDate day = entry.getConsumedAt().toLocalDate();
+
+        DayDelta delta = new DayDelta();
+        delta.add(entry);
+        jdbcTemplate.update(UPSERT_SQL, delta.params(userId, day, sign));
+
+        if (sign < 0) {
+            jdbcTemplate.update(DELETE_EMPTY_SQL, userId, day);
+        }
+    }
+
+    /**
+     * Add one new entry whose nutrients (profile × portion) the caller already
+     * computed, e.g. from the catalog snapshot, so its food is never loaded.
+     */
+    @Transactional
+    public void applyNewEntry(Long userId, LocalDate day, MealType mealType, NutrientVector nutrients) {
+        DayDelta delta = new DayDelta();
+        delta.add(mealType, nutrients);
+        jdbcTemplate.update(UPSERT_SQL, delta.params(userId, day, +1));
+    }
+
+    /**
+     * Add a batch of new entries of one user: entries are summed per day and
+     * each touched day is upserted once, all in a single JDBC batch. Nutrients
+     * come from the catalog snapshot, so the entries' foods are never loaded.
+     */
+    @Transactional
+    public void applyNewEntries(Long userId, List<DietaryEntry> entries, NutrientCatalogService.Snapshot catalog) {
+        Map<LocalDate, DayDelta> byDay = new TreeMap<>();
+        for (DietaryEntry entry : entries) {
+            byDay.computeIfAbsent(entry.getConsumedAt().toLocalDate(), d -> new DayDelta()).add(entry, catalog);
+        }
+        List<Object[]> batch = new ArrayList<>(byDay.size());
+        byDay.forEach((day, delta) -> batch.add(delta.params(userId, day, +1)));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+    }
+
+    /** Rollup rows for a user between two days (inclusive), oldest first. */
+    public List<DailyNutrientRollup> findRange(Long userId, LocalDate from, LocalDate to) {
+        return rollupRepository.findByUserIdAndRollupDateBetweenOrderByRollupDateAsc(userId, from, to);
+    }
+
+    /** Cumulative-sum index over a user's entire rollup history. */
+    public NutrientPrefixIndex buildPrefixIndex(Long userId) {
+        return NutrientPrefixIndex.of(rollupRepository.findByUserIdOrderByRollupDateAsc(userId));
+    }
+
+    /** Lifetime entry count, active days and calories of a user. */
+    public HistorySummary summarize(Long userId) {
+        return rollupRepository.summarize(userId);
+    }
+
+    /**
+     * Sum rollup rows into a nutrient vector.
+     *
+     * @return total number of entries the rows represent
+     */
+    public int sumInto(List<DailyNutrientRollup> rollups, NutrientVector totals) {
+        int entries = 0;
+        for (DailyNutrientRollup r : rollups) {
+            for (Nutrient n : NUTRIENTS) {
+                totals.add(n, r.getNutrient(n));
+            }
+            entries += r.getEntryCount();
+        }
+        return entries;
+    }
+
+    /** Recompute every user's rollup rows from raw entries (non-archived days). */
+    @Transactional
+    public int rebuildAll() {
+        entityManager.flush(); // make pending entity deletes visible to the SQL below
+        LocalDate from = rebuildFrom();
+        jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE rollup_date >= ?", from);
+        int rows = jdbcTemplate.update(String.format(REBUILD_SQL, "WHERE de.consumed_at >= ? "), from);
+        log.info("Rebuilt {} daily nutrient rollup rows from {}", rows, from);
+        return rows;
+    }
+
+    /** Recompute one user's rollup rows from raw entries (non-archived days). */
+    @Transactional
+    public int rebuildUser(Long userId) {
+        entityManager.flush();
+        LocalDate from = rebuildFrom();
+        jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE user_id = ? AND rollup_date >= ?", userId, from);
+        return jdbcTemplate.update(
+                String.format(REBUILD_SQL, "WHERE de.user_id = ? AND de.consumed_at >= ? "), userId, from);
+    }
+
+    /** First day whose raw entries are still in dietary_entries. */
+    private LocalDate rebuildFrom() {
+        return archiveRepository.findNewestUpperBound().orElse(LocalDate.of(1000, 1, 1));
+    }
+
+    /** Drop all rollup rows for a user (account deletion). */
+    @Transactional
+    public void deleteForUser(Long userId) {
+        rollupRepository.deleteAllByUserId(userId);
+    }
+
+    /** True when the rollup table has no rows yet (first start after upgrade). */
+    public boolean isEmpty() {
+        return rollupRepository.count() == 0;
+    }
+
+    /** Summed contribution of one or more entries to a single day's row. */
+    private static final class DayDelta {
+        final NutrientVector nutrients = new NutrientVector();
+        final int[] mealCounts = new int[MEAL_TYPES.length];
+        final double[] mealCalories = new double[MEAL_TYPES.length];
+
+        void add(DietaryEntry entry) {
+            double before = nutrients.get(Nutrient.CALORIES);
+            nutrients.addEntry(entry);
+            int meal = entry.getMealType().ordinal();
+            mealCounts[meal]++;
+            mealCalories[meal] += nutrients.get(Nutrient.CALORIES) - before;
+        }
+
+        void add(DietaryEntry entry, NutrientCatalogService.Snapshot catalog) {
+            NutrientVector entryNutrients = new NutrientVector();
+            catalog.addTo(entryNutrients, entry.getFoodItem().getId(), NutrientVector.portionOf(entry));
+            add(entry.getMealType(), entryNutrients);
+        }
+
+        void add(MealType mealType, NutrientVector entryNutrients) {
+            nutrients.addScaled(entryNutrients, 1.0);
+            mealCounts[mealType.ordinal()]++;
+            mealCalories[mealType.ordinal()] += entryNutrients.get(Nutrient.CALORIES);
+        }
+
+        /** Upsert parameters in {@link #DELTA_COLUMNS} order, multiplied by sign. */
+        Object[] params(Long userId, LocalDate day, int sign) {
+            Object[] params = new Object[2 + DELTA_COLUMNS.size()];
+            int i = 0;
+            params[i++] = userId;
+            params[i++] = day;
+            for (Nutrient n : NUTRIENTS) {
+                params[i++] = sign * nutrients.get(n);
+            }
+            for (int m = 0; m < MEAL_TYPES.length; m++) {
+                params[i++] = sign * mealCounts[m];
+            }
+            for (int m = 0; m < MEAL_TYPES.length; m++) {
+                params[i++] = sign * mealCalories[m];
+            }
+            return params;
+        }
+    }
+
+    /**
+     * Column holding a nutrient in both nutrient_profiles and daily_nutrient_rollup.
+     * The physical naming strategy only splits camelCase before a lowercase letter,
+     * so vitaminA / vitaminB12 map to "vitamina" / "vitaminb12".
+     */
+    private static String nutrientColumn(Nutrient nutrient) {
+        return nutrient.name().toLowerCase().replace("_", "");
+    }
+
+    private static String mealColumn(MealType mealType, String suffix) {
+        return mealType.name().toLowerCase() + "_" + suffix;
+    }
+}
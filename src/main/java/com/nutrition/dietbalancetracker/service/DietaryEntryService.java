@@ -1,19 +1,42 @@
 package com.nutrition.dietbalancetracker.service;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.nutrition.dietbalancetracker.dto.DietaryEntryDTO;
+import com.nutrition.dietbalancetracker.dto.DietaryEntryPageDTO;
+import com.nutrition.dietbalancetracker.dto.DietaryEntryResponseDTO;
 import com.nutrition.dietbalancetracker.model.DietaryEntry;
 import com.nutrition.dietbalancetracker.model.FoodItem;
+import com.nutrition.dietbalancetracker.model.MealType;
 import com.nutrition.dietbalancetracker.model.User;
+import com.nutrition.dietbalancetracker.repository.DailyNutrientRollupRepository.HistorySummary;
 import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository;
+import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository.EntryRow;
 import com.nutrition.dietbalancetracker.repository.FoodItemRepository;
 import com.nutrition.dietbalancetracker.repository.UserRepository;
+import com.nutrition.dietbalancetracker.service.EntryArchiveFile.Row;
 
 import lombok.RequiredArgsConstructor;
 
@@ -21,6 +44,12 @@ import lombok.RequiredArgsConstructor;
  * DIETARY ENTRY SERVICE
  * =====================
  * Handles meal logging and history.
+ *
+ * Open-session-in-view is off, so everything returned to controllers is a
+ * finished DTO built inside the service transaction. Reads select entry
+ * columns only (EntryRow projections) and describe the food from the
+ * in-memory catalog snapshot; the connection is back in the pool before
+ * any JSON is written.
  */
 @Service
 @RequiredArgsConstructor
@@ -29,55 +58,309 @@ public class DietaryEntryService {
     private final DietaryEntryRepository dietaryEntryRepository;
     private final UserRepository userRepository;
     private final FoodItemRepository foodItemRepository;
+    private final DailyNutrientRollupService rollupService;
+    private final AnalysisResultCache resultCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final NutrientCatalogService catalogService;
+    private final EntryArchiveService archiveService;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO dietary_entries (user_id, food_item_id, portion_size, meal_type, consumed_at, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+
+    private static final Comparator<DietaryEntryResponseDTO> NEWEST_FIRST = Comparator
+            .comparing(DietaryEntryResponseDTO::getConsumedAt)
+            .thenComparing(DietaryEntryResponseDTO::getId).reversed();
     
-    // Log a meal
+    /**
+     * Log a meal.
+     *
+     * Statements: three in the common case, a user primary-key check
+     * (existsById), the entry INSERT and the rollup upsert. A food id the
+     * catalog snapshot does not know adds a food primary-key check
+     * (covering() → existsById) and, when that food exists, one reload of the
+     * catalog.
+     *
+     * dietary_entries has no foreign keys (MySQL does not allow them on
+     * partitioned tables), so both references are checked here: the user with
+     * one primary-key lookup (existsById), the food against the in-memory
+     * catalog snapshot, which also supplies its nutrients for the rollup.
+     * Neither the User nor the FoodItem is hydrated; the entry only holds
+     * references (getReferenceById).
+     */
     @Transactional
-    public DietaryEntry logMeal(Long userId, DietaryEntryDTO dto) {
+    public DietaryEntryResponseDTO logMeal(Long userId, DietaryEntryDTO dto) {
         Long safeUserId = Objects.requireNonNull(userId, "User ID is required");
         Long foodItemId = Objects.requireNonNull(dto.getFoodItemId(), "Food item ID is required");
+        if (!userRepository.existsById(safeUserId)) {
+            throw new RuntimeException("User not found");
+        }
 
-        // Find user
-        User user = userRepository.findById(safeUserId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        // Find food item
-        FoodItem foodItem = foodItemRepository.findById(foodItemId)
-                .orElseThrow(() -> new RuntimeException("Food item not found"));
+        NutrientCatalogService.Snapshot catalog = catalogService.covering(foodItemId);
+        if (!catalog.contains(foodItemId)) {
+            throw new RuntimeException("Food item not found");
+        }
+        if (!catalog.isActive(foodItemId)) {
+            throw new RuntimeException("Food item is no longer available");
+        }
         
-        // Create entry
+        // Create entry (references only: the insert needs just the two foreign keys)
         DietaryEntry entry = new DietaryEntry();
-        entry.setUser(user);
-        entry.setFoodItem(foodItem);
+        entry.setUser(userRepository.getReferenceById(safeUserId));
+        entry.setFoodItem(foodItemRepository.getReferenceById(foodItemId));
         entry.setPortionSize(dto.getPortionSize());
         entry.setMealType(dto.getMealType());
         entry.setConsumedAt(dto.getConsumedAt() != null ? dto.getConsumedAt() : LocalDateTime.now());
         
-        // Save and return
-        return dietaryEntryRepository.save(entry);
+        // Save, then fold the entry into its day's rollup row (same transaction)
+        DietaryEntry saved = dietaryEntryRepository.save(entry);
+        NutrientVector nutrients = new NutrientVector();
+        catalog.addTo(nutrients, foodItemId, NutrientVector.portionOf(saved));
+        rollupService.applyNewEntry(safeUserId, saved.getConsumedAt().toLocalDate(), saved.getMealType(), nutrients);
+        resultCache.evictUser(safeUserId);
+        return toResponseDTO(catalog, safeUserId, saved.getId(), foodItemId, saved.getPortionSize(),
+                saved.getMealType(), saved.getConsumedAt(), saved.getCreatedAt());
     }
     
-    // Get user's meal history
-    public List<DietaryEntry> getMealHistory(Long userId) {
-        return dietaryEntryRepository.findByUserIdOrderByConsumedAtDesc(userId);
+    /**
+     * Log several entries at once (a whole meal or day).
+     *
+     * Round trips: one user check, one JDBC batch insert and one batched rollup
+     * upsert, however many entries there are. Foods are validated (existing and
+     * active) against the catalog snapshot, which also supplies the nutrients
+     * for the rollup, so no FoodItem is loaded. The MySQL driver collapses each
+     * batch into a single statement (rewriteBatchedStatements).
+     */
+    @Transactional
+    public List<DietaryEntryResponseDTO> logMeals(Long userId, List<DietaryEntryDTO> dtos) {
+        Long safeUserId = Objects.requireNonNull(userId, "User ID is required");
+        if (!userRepository.existsById(safeUserId)) {
+            throw new RuntimeException("User not found");
+        }
+
+        Set<Long> foodIds = dtos.stream()
+                .map(dto -> Objects.requireNonNull(dto.getFoodItemId(), "Food item ID is required"))
+                .collect(Collectors.toCollection(TreeSet::new));
+        NutrientCatalogService.Snapshot catalog = catalogService.current();
+        Set<Long> missing = new TreeSet<>();
+        Set<Long> inactive = new TreeSet<>();
+        for (Long id : foodIds) {
+            if (!catalog.contains(id)) {
+                catalog = catalogService.covering(id); // food created since the last refresh
+            }
+            if (!catalog.contains(id)) {
+                missing.add(id);
+            } else if (!catalog.isActive(id)) {
+                inactive.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("Food item not found: " + missing);
+        }
+        if (!inactive.isEmpty()) {
+            throw new RuntimeException("Food item is no longer available: " + inactive);
+        }
+        Map<Long, FoodItem> foods = foodIds.stream()
+                .collect(Collectors.toMap(id -> id, foodItemRepository::getReferenceById));
+
+        User user = userRepository.getReferenceById(safeUserId);
+        LocalDateTime now = LocalDateTime.now();
+        List<DietaryEntry> entries = new ArrayList<>(dtos.size());
+        for (DietaryEntryDTO dto : dtos) {
+            DietaryEntry entry = new DietaryEntry();
+            entry.setUser(user);
+            entry.setFoodItem(foods.get(dto.getFoodItemId()));
+            entry.setPortionSize(dto.getPortionSize());
+            entry.setMealType(dto.getMealType());
+            entry.setConsumedAt(dto.getConsumedAt() != null ? dto.getConsumedAt() : now);
+            entry.setCreatedAt(now);
+            entries.add(entry);
+        }
+
+        insertBatch(safeUserId, entries);
+        rollupService.applyNewEntries(safeUserId, entries, catalog);
+        resultCache.evictUser(safeUserId);
+
+        List<DietaryEntryResponseDTO> result = new ArrayList<>(entries.size());
+        for (DietaryEntry entry : entries) {
+            result.add(toResponseDTO(catalog, safeUserId, entry.getId(), entry.getFoodItem().getId(),
+                    entry.getPortionSize(), entry.getMealType(), entry.getConsumedAt(), entry.getCreatedAt()));
+        }
+        return result;
+    }
+
+    /**
+     * Insert entries with one JDBC batch (IDENTITY ids rule out Hibernate batching) and set their ids.
+     *
+     * @throws IllegalStateException when the driver does not return one generated key per entry
+     */
+    private void insertBatch(Long userId, List<DietaryEntry> entries) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        DietaryEntry entry = entries.get(i);
+                        ps.setLong(1, userId);
+                        ps.setLong(2, entry.getFoodItem().getId());
+                        ps.setDouble(3, entry.getPortionSize());
+                        ps.setString(4, entry.getMealType().name());
+                        ps.setObject(5, entry.getConsumedAt());
+                        ps.setObject(6, entry.getCreatedAt());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return entries.size();
+                    }
+                },
+                keys);
+        List<Map<String, Object>> ids = keys.getKeyList();
+        if (ids.size() != entries.size()) {
+            // Rolls the batch back rather than return entries without ids
+            throw new IllegalStateException("Batch insert returned " + ids.size()
+                    + " generated keys for " + entries.size() + " entries");
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).setId(((Number) ids.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    /**
+     * One page of a user's meal history, newest first.
+     *
+     * Keyset pagination: the cursor is the (consumedAt, id) of the last entry
+     * of the previous page, so page N is a single index seek, like page 1.
+     * Months moved to the archive are merged in transparently.
+     *
+     * @param cursor opaque token from the previous page (null for the first page)
+     * @param size   requested page size, clamped to 1..MAX_PAGE_SIZE
+     * @throws IllegalArgumentException when the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public DietaryEntryPageDTO getMealHistory(Long userId, String cursor, Integer size) {
+        int limit = size == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Pageable fetch = PageRequest.of(0, limit + 1); // one extra row tells us if there is a next page
+
+        Cursor after = cursor == null || cursor.isBlank() ? null : Cursor.decode(cursor);
+        List<EntryRow> rows = after == null
+                ? dietaryEntryRepository.findHistoryRows(userId, fetch)
+                : dietaryEntryRepository.findHistoryRowsAfter(userId, after.consumedAt(), after.id(), fetch);
+        List<DietaryEntryResponseDTO> entries = withArchived(userId, after, toResponseDTOs(userId, rows), limit + 1);
+
+        if (entries.size() <= limit) {
+            return new DietaryEntryPageDTO(entries, null, false);
+        }
+        List<DietaryEntryResponseDTO> page = new ArrayList<>(entries.subList(0, limit));
+        DietaryEntryResponseDTO last = page.get(limit - 1);
+        return new DietaryEntryPageDTO(page, new Cursor(last.getConsumedAt(), last.getId()).encode(), true);
+    }
+
+    /**
+     * Merge archived entries into a hot page when they can reach it: the hot
+     * page ran short, or its oldest row is not older than the newest archived
+     * entry.
+     */
+    private List<DietaryEntryResponseDTO> withArchived(Long userId, Cursor after,
+                                                       List<DietaryEntryResponseDTO> hot, int fetch) {
+        LocalDateTime newestArchived = archiveService.newestArchivedConsumedAt();
+        if (newestArchived == null
+                || (hot.size() >= fetch && hot.get(fetch - 1).getConsumedAt().isAfter(newestArchived))) {
+            return hot;
+        }
+        List<Row> archived = after == null
+                ? archiveService.findHistoryPage(userId, null, null, fetch)
+                : archiveService.findHistoryPage(userId, after.consumedAt(), after.id(), fetch);
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        NutrientCatalogService.Snapshot catalog = catalogService.current();
+        List<DietaryEntryResponseDTO> merged = new ArrayList<>(hot);
+        for (Row row : archived) {
+            merged.add(toResponseDTO(catalog, userId, row.id(), row.foodItemId(), row.portionSize(),
+                    row.mealType(), row.consumedAt(), row.createdAt()));
+        }
+        merged.sort(NEWEST_FIRST);
+        return merged.size() > fetch ? new ArrayList<>(merged.subList(0, fetch)) : merged;
+    }
+
+    // Lifetime entry count, active days and calories (profile stats)
+    public HistorySummary getHistorySummary(Long userId) {
+        return rollupService.summarize(userId);
     }
     
     // Get today's meals
-    public List<DietaryEntry> getTodaysMeals(Long userId) {
+    @Transactional(readOnly = true)
+    public List<DietaryEntryResponseDTO> getTodaysMeals(Long userId) {
         LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
         LocalDateTime endOfDay = LocalDateTime.now().withHour(23).withMinute(59).withSecond(59);
         
-        return dietaryEntryRepository.findByUserIdAndConsumedAtBetweenOrderByConsumedAtDesc(
-                userId, startOfDay, endOfDay);
+        return toResponseDTOs(userId, dietaryEntryRepository.findEntryRows(userId, startOfDay, endOfDay));
     }
 
     // Delete a meal entry (verifies ownership)
     @Transactional
     public void deleteEntry(Long entryId, Long userId) {
-        DietaryEntry entry = dietaryEntryRepository.findById(entryId)
+        DietaryEntry entry = dietaryEntryRepository.findWithFoodById(entryId)
                 .orElseThrow(() -> new RuntimeException("Entry not found"));
         if (!entry.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized: entry does not belong to user");
         }
+        rollupService.applyEntry(entry, -1);
         dietaryEntryRepository.delete(entry);
+        resultCache.evictUser(userId);
+    }
+
+    /* ============ DTO mapping ============ */
+
+    private List<DietaryEntryResponseDTO> toResponseDTOs(Long userId, List<EntryRow> rows) {
+        NutrientCatalogService.Snapshot catalog = catalogService.current();
+        List<DietaryEntryResponseDTO> dtos = new ArrayList<>(rows.size());
+        for (EntryRow row : rows) {
+            if (!catalog.contains(row.getFoodItemId())) {
+                catalog = catalogService.covering(row.getFoodItemId()); // food created since the last refresh
+            }
+            dtos.add(toResponseDTO(catalog, userId, row.getId(), row.getFoodItemId(), row.getPortionSize(),
+                    row.getMealType(), row.getConsumedAt(), row.getCreatedAt()));
+        }
+        return dtos;
+    }
+
+    private static DietaryEntryResponseDTO toResponseDTO(NutrientCatalogService.Snapshot catalog, Long userId,
+                                                         Long id, Long foodItemId, Double portionSize,
+                                                         MealType mealType, LocalDateTime consumedAt,
+                                                         LocalDateTime createdAt) {
+        DietaryEntryResponseDTO dto = new DietaryEntryResponseDTO();
+        dto.setId(id);
+        dto.setUserId(userId);
+        dto.setPortionSize(portionSize);
+        dto.setConsumedAt(consumedAt);
+        dto.setMealType(mealType);
+        dto.setCreatedAt(createdAt);
+        dto.setFoodItem(FoodItemService.toDTO(catalog, foodItemId));
+        return dto;
+    }
+
+    /** Position after an entry in (consumedAt DESC, id DESC) order, encoded as an opaque token. */
+    private record Cursor(LocalDateTime consumedAt, Long id) {
+
+        String encode() {
+            String raw = consumedAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int sep = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), Long.valueOf(raw.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid history cursor");
+            }
+        }
     }
 }
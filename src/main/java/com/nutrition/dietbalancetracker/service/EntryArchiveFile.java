@@ -0,0 +1,237 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.nutrition.dietbalancetracker.model.MealType;
+
+/**
+ * ENTRY ARCHIVE FILE
+ * ==================
+ * Compressed columnar file format for archived dietary entries.
+ *
+ * Rows are written sorted by (userId, consumedAt, id) and split into row
+ * groups of up to GROUP_SIZE rows. Each group is:
+ *
+ *   header (plain):  rowCount, minUserId, maxUserId, minConsumed, maxConsumed, payloadBytes
+ *   payload (deflate): each column stored contiguously —
+ *                      ids, userIds (delta), foodItemIds, portions,
+ *                      mealTypes (ordinal bytes), consumedAt, createdAt
+ *
+ * Readers use the plain header as a zone map and skip the payload of groups
+ * that cannot contain the requested user or time range, so looking up one
+ * user only inflates the one or two groups holding their rows.
+ * The file ends with a group header whose rowCount is 0.
+ */
+public final class EntryArchiveFile {
+
+    private static final int MAGIC = 0x44454131; // "DEA1"
+    private static final int GROUP_SIZE = 8192;
+    private static final MealType[] MEAL_TYPES = MealType.values();
+
+    private EntryArchiveFile() {
+    }
+
+    /** One archived entry. */
+    public record Row(long id, long userId, long foodItemId, double portionSize, MealType mealType,
+                      LocalDateTime consumedAt, LocalDateTime createdAt) {}
+
+    /* ============ Writing ============ */
+
+    /** Streams rows (already sorted by userId, consumedAt, id) into a file group by group. */
+    public static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+        private final long[] ids = new long[GROUP_SIZE];
+        private final long[] userIds = new long[GROUP_SIZE];
+        private final long[] foodItemIds = new long[GROUP_SIZE];
+        private final double[] portions = new double[GROUP_SIZE];
+        private final byte[] mealTypes = new byte[GROUP_SIZE];
+        private final long[] consumed = new long[GROUP_SIZE];
+        private final long[] created = new long[GROUP_SIZE];
+        private int n;
+
+        private long rowCount;
+        private long minConsumed = Long.MAX_VALUE;
+        private long maxConsumed = Long.MIN_VALUE;
+
+        public Writer(Path file) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+            out.writeInt(MAGIC);
+        }
+
+        public void add(Row row) throws IOException {
+            ids[n] = row.id();
+            userIds[n] = row.userId();
+            foodItemIds[n] = row.foodItemId();
+            portions[n] = row.portionSize();
+            mealTypes[n] = (byte) row.mealType().ordinal();
+            consumed[n] = micros(row.consumedAt());
+            created[n] = micros(row.createdAt());
+            n++;
+            if (n == GROUP_SIZE) {
+                writeGroup();
+            }
+        }
+
+        public long rowCount() {
+            return rowCount;
+        }
+
+        /** Earliest consumedAt written (null when the file is empty). */
+        public LocalDateTime minConsumedAt() {
+            return rowCount == 0 ? null : dateTime(minConsumed);
+        }
+
+        public LocalDateTime maxConsumedAt() {
+            return rowCount == 0 ? null : dateTime(maxConsumed);
+        }
+
+        private void writeGroup() throws IOException {
+            long groupMin = Long.MAX_VALUE;
+            long groupMax = Long.MIN_VALUE;
+            for (int i = 0; i < n; i++) {
+                groupMin = Math.min(groupMin, consumed[i]);
+                groupMax = Math.max(groupMax, consumed[i]);
+            }
+
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try (DataOutputStream cols = new DataOutputStream(new DeflaterOutputStream(payload, deflater))) {
+                for (int i = 0; i < n; i++) cols.writeLong(ids[i]);
+                long prevUser = 0;
+                for (int i = 0; i < n; i++) {
+                    cols.writeLong(userIds[i] - prevUser); // sorted: mostly zeros
+                    prevUser = userIds[i];
+                }
+                for (int i = 0; i < n; i++) cols.writeLong(foodItemIds[i]);
+                for (int i = 0; i < n; i++) cols.writeDouble(portions[i]);
+                cols.write(mealTypes, 0, n);
+                for (int i = 0; i < n; i++) cols.writeLong(consumed[i]);
+                for (int i = 0; i < n; i++) cols.writeLong(created[i]);
+            } finally {
+                deflater.end();
+            }
+
+            out.writeInt(n);
+            out.writeLong(userIds[0]);
+            out.writeLong(userIds[n - 1]);
+            out.writeLong(groupMin);
+            out.writeLong(groupMax);
+            out.writeInt(payload.size());
+            payload.writeTo(out);
+
+            rowCount += n;
+            minConsumed = Math.min(minConsumed, groupMin);
+            maxConsumed = Math.max(maxConsumed, groupMax);
+            n = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (n > 0) {
+                    writeGroup();
+                }
+                out.writeInt(0);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /* ============ Reading ============ */
+
+    /**
+     * All rows of one user, in file order (consumedAt, id ascending).
+     *
+     * @param before only rows consumed before this time are needed (null = all);
+     *               groups that start at or after it are skipped
+     */
+    public static List<Row> readUser(Path file, long userId, LocalDateTime before) throws IOException {
+        long beforeMicros = before != null ? micros(before) : Long.MAX_VALUE;
+        List<Row> rows = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an entry archive file: " + file);
+            }
+            while (true) {
+                int count = in.readInt();
+                if (count == 0) break;
+                long minUser = in.readLong();
+                long maxUser = in.readLong();
+                long minConsumed = in.readLong();
+                in.readLong(); // maxConsumed
+                int payloadBytes = in.readInt();
+
+                if (minUser > userId) {
+                    break; // groups are sorted by user: the rest are all later users
+                }
+                if (maxUser < userId || minConsumed >= beforeMicros) {
+                    in.skipNBytes(payloadBytes);
+                    continue;
+                }
+                readGroup(in, payloadBytes, count, userId, rows);
+            }
+        }
+        return rows;
+    }
+
+    private static void readGroup(InputStream in, int payloadBytes, int count, long userId, List<Row> rows)
+            throws IOException {
+        byte[] payload = in.readNBytes(payloadBytes);
+        try (DataInputStream cols = new DataInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(payload)))) {
+            long[] ids = new long[count];
+            long[] users = new long[count];
+            long[] foods = new long[count];
+            double[] portions = new double[count];
+            for (int i = 0; i < count; i++) ids[i] = cols.readLong();
+            long user = 0;
+            for (int i = 0; i < count; i++) {
+                user += cols.readLong();
+                users[i] = user;
+            }
+            for (int i = 0; i < count; i++) foods[i] = cols.readLong();
+            for (int i = 0; i < count; i++) portions[i] = cols.readDouble();
+            byte[] meals = cols.readNBytes(count);
+            long[] consumed = new long[count];
+            for (int i = 0; i < count; i++) consumed[i] = cols.readLong();
+            for (int i = 0; i < count; i++) {
+                long createdMicros = cols.readLong();
+                if (users[i] == userId) {
+                    rows.add(new Row(ids[i], users[i], foods[i], portions[i], MEAL_TYPES[meals[i]],
+                            dateTime(consumed[i]), dateTime(createdMicros)));
+                }
+            }
+        }
+    }
+
+    /* ============ Timestamps ============ */
+
+    /** LocalDateTime as microseconds since 1970-01-01T00:00 (the DATETIME(6) precision). */
+    static long micros(LocalDateTime t) {
+        return t.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + t.getNano() / 1_000;
+    }
+
+    static LocalDateTime dateTime(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
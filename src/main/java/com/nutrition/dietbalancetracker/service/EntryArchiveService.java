@@ -0,0 +1,416 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.nutrition.dietbalancetracker.model.DietaryEntryArchive;
+import com.nutrition.dietbalancetracker.model.MealType;
+import com.nutrition.dietbalancetracker.repository.DietaryEntryArchiveRepository;
+import com.nutrition.dietbalancetracker.service.EntryArchiveFile.Row;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ENTRY ARCHIVE SERVICE
+ * =====================
+ * Keeps dietary_entries partitioned by month and moves old months to
+ * compressed archive files on local disk (cold tier).
+ *
+ * - Partition maintenance: splits monthly partitions (pYYYYMM) off the
+ *   catch-all p_future partition, up to nutrition.archive.premake-months
+ *   ahead. Runs daily (nutrition.archive.cron) even when archiving is off.
+ * - Archiving (nutrition.archive.enabled): each partition whose month ended
+ *   more than nutrition.archive.horizon-months ago is swapped out of the
+ *   table into a staging table (EXCHANGE PARTITION) and dropped, then
+ *   streamed into an {@link EntryArchiveFile} and recorded in
+ *   dietary_entry_archives. Daily rollups of archived months are kept.
+ * - Reads: meal history and exports merge archived rows back in
+ *   ({@link #findHistoryPage}, {@link #forEachUserRow}); hot queries only
+ *   touch the partitions still in MySQL.
+ *
+ * Archived rows are read-only: they cannot be deleted individually, and
+ * deleting a user leaves their rows in the files (never read again).
+ */
+@Service
+@Slf4j
+public class EntryArchiveService {
+
+    private static final String TABLE = "dietary_entries";
+    private static final String CATCH_ALL = "p_future";
+    private static final Pattern MONTHLY = Pattern.compile("p\\d{6}");
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final Comparator<Row> NEWEST_FIRST =
+            Comparator.comparing(Row::consumedAt).thenComparingLong(Row::id).reversed();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final DietaryEntryArchiveRepository archiveRepository;
+    private final boolean enabled;
+    private final Path archiveDir;
+    private final int horizonMonths;
+    private final int premakeMonths;
+
+    private volatile List<DietaryEntryArchive> archives;
+
+    public EntryArchiveService(
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate,
+            DietaryEntryArchiveRepository archiveRepository,
+            @Value("${nutrition.archive.enabled:false}") boolean enabled,
+            @Value("${nutrition.archive.dir:./data/archive}") String archiveDir,
+            @Value("${nutrition.archive.horizon-months:24}") int horizonMonths,
+            @Value("${nutrition.archive.premake-months:2}") int premakeMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the partition
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.archiveRepository = archiveRepository;
+        this.enabled = enabled;
+        this.archiveDir = Path.of(archiveDir);
+        this.horizonMonths = Math.max(1, horizonMonths);
+        this.premakeMonths = Math.max(1, premakeMonths);
+    }
+
+    /* ============ Maintenance ============ */
+
+    @Scheduled(cron = "${nutrition.archive.cron:0 30 3 * * *}")
+    public void runScheduled() {
+        try {
+            maintain();
+        } catch (RuntimeException e) {
+            log.error("Dietary entry partition maintenance failed", e);
+        }
+    }
+
+    /** Create upcoming monthly partitions, then archive expired ones (when enabled). */
+    public synchronized Map<String, Object> maintain() {
+        int created = ensurePartitions();
+        List<String> archived = enabled ? archiveExpiredPartitions() : List.of();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("partitionsCreated", created);
+        result.put("archivingEnabled", enabled);
+        result.put("partitionsArchived", archived);
+        return result;
+    }
+
+    /** Archived months, oldest first. */
+    public List<DietaryEntryArchive> listArchives() {
+        return archives();
+    }
+
+    /**
+     * Split monthly partitions off p_future up to premakeMonths ahead.
+     *
+     * @return number of partitions created
+     */
+    int ensurePartitions() {
+        List<String> names = partitionNames();
+        if (!names.contains(CATCH_ALL)) {
+            log.warn("{} is not partitioned (no {} partition); skipping partition maintenance", TABLE, CATCH_ALL);
+            return 0;
+        }
+
+        YearMonth last = names.stream().filter(n -> MONTHLY.matcher(n).matches())
+                .map(n -> YearMonth.parse(n.substring(1), DateTimeFormatter.ofPattern("yyyyMM")))
+                .max(Comparator.naturalOrder()).orElse(null);
+        YearMonth start;
+        if (last != null) {
+            start = last.plusMonths(1);
+        } else {
+            // First run: start at the oldest entry so existing rows land in their own month
+            LocalDateTime oldest = jdbcTemplate.queryForObject(
+                    "SELECT MIN(consumed_at) FROM " + TABLE, LocalDateTime.class);
+            start = oldest != null ? YearMonth.from(oldest) : YearMonth.now();
+        }
+        // Never recreate a month that was already archived and dropped
+        YearMonth afterArchived = archives().stream().map(a -> YearMonth.from(a.getUpperBound()))
+                .max(Comparator.naturalOrder()).orElse(null);
+        if (afterArchived != null && start.isBefore(afterArchived)) {
+            start = afterArchived;
+        }
+
+        YearMonth end = YearMonth.now().plusMonths(premakeMonths);
+        if (start.isAfter(end)) {
+            return 0;
+        }
+        List<String> parts = new ArrayList<>();
+        for (YearMonth m = start; !m.isAfter(end); m = m.plusMonths(1)) {
+            parts.add("PARTITION " + m.atDay(1).format(PARTITION_NAME)
+                    + " VALUES LESS THAN ('" + m.plusMonths(1).atDay(1) + "')");
+        }
+        parts.add("PARTITION " + CATCH_ALL + " VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + CATCH_ALL
+                + " INTO (" + String.join(", ", parts) + ")");
+        log.info("Created {} monthly partitions of {} ({} to {})", parts.size() - 1, TABLE, start, end);
+        return parts.size() - 1;
+    }
+
+    private List<String> archiveExpiredPartitions() {
+        LocalDate cutoff = YearMonth.now().minusMonths(horizonMonths).atDay(1);
+        List<String> archived = new ArrayList<>();
+        // Months detached by a run that failed before finishing their archive go first
+        Set<String> names = new LinkedHashSet<>(detachedPartitionNames());
+        names.addAll(partitionNames());
+        for (String name : names) {
+            if (!MONTHLY.matcher(name).matches()) continue;
+            LocalDate upperBound = YearMonth.parse(name.substring(1), DateTimeFormatter.ofPattern("yyyyMM"))
+                    .plusMonths(1).atDay(1);
+            if (upperBound.isAfter(cutoff)) continue;
+            if (archivePartition(name, upperBound)) {
+                archived.add(name);
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Move one partition out of the table, stream it into an archive file,
+     * record it and drop the staging copy.
+     *
+     * The partition is first swapped into an empty staging table (EXCHANGE
+     * PARTITION) and dropped, both under a short table lock, so the rows
+     * being archived can no longer change and no insert can land in a
+     * partition about to be dropped. Entries backdated into the month
+     * afterwards go to the next partition and are archived with it. If the
+     * run fails after the swap, the rows stay in the staging table and the
+     * next run resumes from there.
+     */
+    private boolean archivePartition(String name, LocalDate upperBound) {
+        String fileName = TABLE + "-" + YearMonth.from(upperBound.minusDays(1)) + ".dea";
+        Path target = archiveDir.resolve(fileName);
+        Path tmp = archiveDir.resolve(fileName + ".tmp");
+        String staging = stagingTable(name);
+
+        detachPartition(name, staging);
+
+        DietaryEntryArchive existing = archiveRepository.findById(name).orElse(null);
+        if (existing != null && Files.exists(target)) {
+            // A previous run wrote and recorded the file but did not get to drop the staging table
+            long rows = countRows(staging);
+            if (rows != existing.getRowCount()) {
+                log.warn("Partition {} is archived but {} holds {} rows (archive has {}); leaving it in place",
+                        name, staging, rows, existing.getRowCount());
+                return false;
+            }
+            jdbcTemplate.execute("DROP TABLE " + staging);
+            return true;
+        }
+
+        try {
+            Files.createDirectories(archiveDir);
+            EntryArchiveFile.Writer writer = new EntryArchiveFile.Writer(tmp);
+            try (writer) {
+                streamingJdbcTemplate.query(
+                        "SELECT id, user_id, food_item_id, portion_size, meal_type, consumed_at, created_at FROM "
+                                + staging + " ORDER BY user_id, consumed_at, id",
+                        rs -> {
+                            try {
+                                writer.add(new Row(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getDouble(4),
+                                        MealType.valueOf(rs.getString(5)),
+                                        rs.getTimestamp(6).toLocalDateTime(), toLocal(rs.getTimestamp(7))));
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+            }
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            archiveRepository.save(new DietaryEntryArchive(name, upperBound, fileName, writer.rowCount(),
+                    writer.minConsumedAt(), writer.maxConsumedAt(), LocalDateTime.now()));
+            archives = null;
+            jdbcTemplate.execute("DROP TABLE " + staging);
+            log.info("Archived partition {} ({} rows) to {}", name, writer.rowCount(), target);
+            return true;
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Archiving partition {} failed; its rows stay in {} until the next run", name, staging, e);
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // best effort
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Swap a partition with an empty, unpartitioned copy of the table and
+     * drop the (now empty) partition. LOCK TABLES holds for both statements,
+     * on one connection, so no row can be written into the partition between
+     * the swap and the drop. Safe to repeat after a failure at any step.
+     */
+    private void detachPartition(String partition, String staging) {
+        if (!partitionNames().contains(partition)) {
+            return; // already swapped out and dropped: the rows are in the staging table
+        }
+        if (!tableExists(staging)) {
+            jdbcTemplate.execute("CREATE TABLE " + staging + " LIKE " + TABLE);
+            jdbcTemplate.execute("ALTER TABLE " + staging + " REMOVE PARTITIONING");
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            try (Statement st = con.createStatement()) {
+                st.execute("LOCK TABLES " + TABLE + " WRITE, " + staging + " WRITE");
+                try {
+                    if (isEmpty(st, staging)) {
+                        st.execute("ALTER TABLE " + TABLE + " EXCHANGE PARTITION " + partition
+                                + " WITH TABLE " + staging);
+                    } else if (!isEmpty(st, TABLE + " PARTITION (" + partition + ")")) {
+                        throw new IllegalStateException("Both partition " + partition + " and " + staging
+                                + " hold rows; resolve by hand before archiving this month");
+                    }
+                    // else: a previous run swapped the rows out but did not get to the drop
+                    st.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + partition);
+                } finally {
+                    st.execute("UNLOCK TABLES");
+                }
+            }
+            return null;
+        });
+    }
+
+    private static boolean isEmpty(Statement st, String table) throws SQLException {
+        try (ResultSet rs = st.executeQuery("SELECT 1 FROM " + table + " LIMIT 1")) {
+            return !rs.next();
+        }
+    }
+
+    private static String stagingTable(String partition) {
+        return TABLE + "_" + partition + "_archiving";
+    }
+
+    /** Partitions already swapped out into a staging table whose archive was not finished. */
+    private List<String> detachedPartitionNames() {
+        return jdbcTemplate.queryForList(
+                "SELECT table_name FROM information_schema.tables "
+                        + "WHERE table_schema = DATABASE() AND table_name LIKE ? ORDER BY table_name",
+                String.class, TABLE + "\\_p%\\_archiving").stream()
+                .map(t -> t.substring(TABLE.length() + 1, t.length() - "_archiving".length()))
+                .toList();
+    }
+
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = ?",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private long countRows(String table) {
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        return rows != null ? rows : 0;
+    }
+
+    private List<String> partitionNames() {
+        return jdbcTemplate.queryForList(
+                "SELECT partition_name FROM information_schema.partitions "
+                        + "WHERE table_schema = DATABASE() AND table_name = ? AND partition_name IS NOT NULL "
+                        + "ORDER BY partition_ordinal_position", String.class, TABLE);
+    }
+
+    /* ============ Reads ============ */
+
+    /** Latest consumedAt among archived rows (null when nothing is archived). */
+    public LocalDateTime newestArchivedConsumedAt() {
+        return archives().stream().map(DietaryEntryArchive::getMaxConsumedAt).filter(Objects::nonNull)
+                .max(Comparator.naturalOrder()).orElse(null);
+    }
+
+    /**
+     * Up to {@code limit} archived rows of a user, newest first, strictly
+     * before the (consumedAt, id) cursor (null cursor = from the newest).
+     * Files are visited newest first and reading stops as soon as no older
+     * file can contribute to the page.
+     */
+    public List<Row> findHistoryPage(long userId, LocalDateTime beforeConsumedAt, Long beforeId, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        List<DietaryEntryArchive> files = new ArrayList<>(archives());
+        files.removeIf(a -> a.getMaxConsumedAt() == null);
+        files.sort(Comparator.comparing(DietaryEntryArchive::getMaxConsumedAt).reversed());
+
+        List<Row> page = new ArrayList<>();
+        for (DietaryEntryArchive archive : files) {
+            if (page.size() >= limit && page.get(limit - 1).consumedAt().isAfter(archive.getMaxConsumedAt())) {
+                break;
+            }
+            if (beforeConsumedAt != null && archive.getMinConsumedAt().isAfter(beforeConsumedAt)) {
+                continue;
+            }
+            LocalDateTime before = beforeConsumedAt != null ? beforeConsumedAt.plusNanos(1_000) : null;
+            for (Row row : read(archive, userId, before)) {
+                if (beforeConsumedAt == null || row.consumedAt().isBefore(beforeConsumedAt)
+                        || (row.consumedAt().isEqual(beforeConsumedAt) && row.id() < beforeId)) {
+                    page.add(row);
+                }
+            }
+            page.sort(NEWEST_FIRST);
+            if (page.size() > limit) {
+                page = new ArrayList<>(page.subList(0, limit));
+            }
+        }
+        return page;
+    }
+
+    /** Every archived row of a user, file by file from the oldest month (for exports). */
+    public void forEachUserRow(long userId, Consumer<Row> action) {
+        for (DietaryEntryArchive archive : archives()) {
+            read(archive, userId, null).forEach(action);
+        }
+    }
+
+    private List<Row> read(DietaryEntryArchive archive, long userId, LocalDateTime before) {
+        try {
+            return EntryArchiveFile.readUser(archiveDir.resolve(archive.getFileName()), userId, before);
+        } catch (IOException e) {
+            throw new IllegalStateException("Archive file " + archive.getFileName() + " is unreadable", e);
+        }
+    }
+
+    private List<DietaryEntryArchive> archives() {
+        List<DietaryEntryArchive> a = archives;
+        if (a == null) {
+            a = List.copyOf(archiveRepository.findAllByOrderByUpperBoundAsc());
+            archives = a;
+        }
+        return a;
+    }
+
+    private static LocalDateTime toLocal(Timestamp ts) {
+        return ts != null ? ts.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,298 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.nutrition.dietbalancetracker.model.FoodCategory;
+import com.nutrition.dietbalancetracker.model.FoodItem;
+import com.nutrition.dietbalancetracker.repository.FoodItemRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * FOOD CATEGORY COUNTER
+ * =====================
+ * Number of active foods per category, kept in memory so the category tabs
+ * (/api/foods/categories) never touch the database.
+ *
+ * - Counts live in an EnumMap of AtomicLongs (one slot per FoodCategory).
+ * - Hibernate post-commit listeners adjust them when a FoodItem is
+ *   inserted, deleted, or updated in a way that changes its category or
+ *   active flag (deactivate()/reactivate(), reseed). They only fire after a
+ *   successful commit, so rolled-back changes are never counted.
+ * - reconcile() recounts with one GROUP BY query. It runs at startup and on
+ *   nutrition.catalog.category-counts.repair-cron, and repairs drift from
+ *   writes that bypass Hibernate (bulk JPQL, plain SQL).
+ * - The recount cannot tell whether a write it saw has reached its listener
+ *   yet. So a category is only corrected when no FoodItem write touching it
+ *   was in flight (flushed, post-commit listener not yet run) or completed
+ *   while the query ran; otherwise it is left to the next run.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FoodCategoryCounter implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private static final String CATEGORY = "category";
+    private static final String IS_ACTIVE = "isActive";
+
+    private final FoodItemRepository foodItemRepository;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final EnumMap<FoodCategory, AtomicLong> counts = new EnumMap<>(FoodCategory.class);
+    private final EnumMap<FoodCategory, AtomicLong> changes = new EnumMap<>(FoodCategory.class);    // post-commit events applied
+    private final EnumMap<FoodCategory, AtomicInteger> inFlight = new EnumMap<>(FoodCategory.class); // flushed, not yet completed
+
+    @PostConstruct
+    void register() {
+        for (FoodCategory category : FoodCategory.values()) {
+            counts.put(category, new AtomicLong());
+            changes.put(category, new AtomicLong());
+            inFlight.put(category, new AtomicInteger());
+        }
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        FlushListener flushed = new FlushListener();
+        registry.appendListeners(EventType.POST_INSERT, flushed);
+        registry.appendListeners(EventType.POST_UPDATE, flushed);
+        registry.appendListeners(EventType.POST_DELETE, flushed);
+    }
+
+    /** Active food count per category, in enum order, omitting empty categories. */
+    public List<Map<String, Object>> getCounts() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<FoodCategory, AtomicLong> e : counts.entrySet()) {
+            long count = e.getValue().get();
+            if (count > 0) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("category", e.getKey().name());
+                item.put("count", count);
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    /* ============ Repair ============ */
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reconcile();
+    }
+
+    @Scheduled(cron = "${nutrition.catalog.category-counts.repair-cron:0 15 * * * *}")
+    public void runScheduledRepair() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("Category count repair failed", e);
+        }
+    }
+
+    /**
+     * Recount active foods per category from the database and correct the
+     * in-memory counts.
+     *
+     * Per category, in-flight writes and applied events are read before and
+     * after the query. The correction (recount minus the count read before
+     * the query) is only applied when neither moved: a write the query may or
+     * may not have seen could otherwise be counted twice or not at all.
+     *
+     * @return number of categories whose count had drifted and was corrected
+     */
+    public synchronized int reconcile() {
+        EnumMap<FoodCategory, Long> changesBefore = new EnumMap<>(FoodCategory.class);
+        EnumMap<FoodCategory, Long> before = new EnumMap<>(FoodCategory.class);
+        for (FoodCategory category : FoodCategory.values()) {
+            if (inFlight.get(category).get() == 0) {
+                changesBefore.put(category, changes.get(category).get());
+                before.put(category, counts.get(category).get());
+            }
+        }
+        EnumMap<FoodCategory, Long> actual = new EnumMap<>(FoodCategory.class);
+        for (FoodItemRepository.CategoryCount row : foodItemRepository.countActiveByCategory()) {
+            actual.put(row.getCategory(), row.getCount());
+        }
+        int drifted = 0;
+        int deferred = 0;
+        for (FoodCategory category : FoodCategory.values()) {
+            Long changesAtStart = changesBefore.get(category);
+            // in-flight first: a listener finishes its change before leaving in-flight
+            if (changesAtStart == null || inFlight.get(category).get() != 0
+                    || changes.get(category).get() != changesAtStart) {
+                deferred++;
+                continue;
+            }
+            long drift = actual.getOrDefault(category, 0L) - before.get(category);
+            if (drift != 0) {
+                counts.get(category).addAndGet(drift);
+                drifted++;
+            }
+        }
+        if (drifted > 0) {
+            log.info("Category counts reconciled: {} categories corrected", drifted);
+        }
+        if (deferred > 0) {
+            log.debug("Category counts: {} categories had writes in flight, left to the next run", deferred);
+        }
+        return drifted;
+    }
+
+    /* ============ Hibernate post-commit events ============ */
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return FoodItem.class.equals(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        adjust(event.getPersister(), event.getState(), 1);
+        complete(event.getPersister(), event.getState());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object[] oldState = event.getOldState();
+        if (oldState != null) { // detached update without a snapshot: left to reconcile()
+            adjust(event.getPersister(), oldState, -1);
+            adjust(event.getPersister(), event.getState(), 1);
+        }
+        complete(event.getPersister(), oldState, event.getState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        adjust(event.getPersister(), event.getDeletedState(), -1);
+        complete(event.getPersister(), event.getDeletedState());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        complete(event.getPersister(), event.getState());
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        complete(event.getPersister(), event.getOldState(), event.getState());
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        complete(event.getPersister(), event.getDeletedState());
+    }
+
+    /**
+     * Flush-time events (same transaction, before commit): mark the touched
+     * categories in flight until the post-commit or commit-failed event.
+     */
+    private final class FlushListener implements PostInsertEventListener, PostUpdateEventListener,
+            PostDeleteEventListener {
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return false;
+        }
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            track(event.getPersister(), 1, event.getState());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            track(event.getPersister(), 1, event.getOldState(), event.getState());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            track(event.getPersister(), 1, event.getDeletedState());
+        }
+    }
+
+    /** A write's post-commit (or commit-failed) event: record it and leave in-flight. */
+    private void complete(EntityPersister persister, Object[]... states) {
+        if (!requiresPostCommitHandling(persister)) {
+            return;
+        }
+        for (FoodCategory category : categories(persister, states)) {
+            changes.get(category).incrementAndGet();
+        }
+        track(persister, -1, states);
+    }
+
+    private void track(EntityPersister persister, int delta, Object[]... states) {
+        if (!requiresPostCommitHandling(persister)) {
+            return;
+        }
+        for (FoodCategory category : categories(persister, states)) {
+            inFlight.get(category).addAndGet(delta);
+        }
+    }
+
+    /** Categories of the given states (null states skipped), each once. */
+    private static EnumSet<FoodCategory> categories(EntityPersister persister, Object[]... states) {
+        EnumSet<FoodCategory> categories = EnumSet.noneOf(FoodCategory.class);
+        String[] properties = persister.getPropertyNames();
+        for (Object[] state : states) {
+            if (state == null) continue;
+            for (int i = 0; i < properties.length; i++) {
+                if (CATEGORY.equals(properties[i]) && state[i] != null) {
+                    categories.add((FoodCategory) state[i]);
+                }
+            }
+        }
+        return categories;
+    }
+
+    /** Add delta to the category of an active food state; inactive states count nowhere. */
+    private void adjust(EntityPersister persister, Object[] state, int delta) {
+        if (state == null || !requiresPostCommitHandling(persister)) {
+            return; // listeners see every entity type; only FoodItem counts
+        }
+        String[] properties = persister.getPropertyNames();
+        FoodCategory category = null;
+        boolean active = false;
+        for (int i = 0; i < properties.length; i++) {
+            if (CATEGORY.equals(properties[i])) {
+                category = (FoodCategory) state[i];
+            } else if (IS_ACTIVE.equals(properties[i])) {
+                active = Boolean.TRUE.equals(state[i]);
+            }
+        }
+        if (active && category != null) {
+            counts.get(category).addAndGet(delta);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+import com.nutrition.dietbalancetracker.model.FoodCategory;
+
+/**
+ * FOOD FUZZY MATCHER
+ * ==================
+ * Typo- and transliteration-tolerant matching of food names, word by word.
+ *
+ * Every word of every active food name is reduced to its
+ * {@link IndicPhonetics} key. The distinct keys (the vocabulary) are held in
+ * a BK-tree keyed on Levenshtein distance, plus a sorted array for prefix
+ * lookups; each key maps to the ascending ids of the foods using it.
+ *
+ * A query word matches vocabulary keys within an edit-distance tolerance that
+ * grows with its length (0 below 4 letters, 1 below 7, else 2). The last query
+ * word is also treated as a prefix (distance 0) so results appear while the
+ * user is still typing. A food matches when every query word matches one of
+ * its name words; its distance is the sum of the best per-word distances.
+ */
+final class FoodFuzzyMatcher {
+
+    private static final int FULL = Integer.MAX_VALUE / 2;
+
+    private final String[] vocabulary;    // sorted phonetic keys
+    private final int[][] foodsByWord;    // parallel to vocabulary, ids ascending
+
+    // BK-tree over vocabulary indexes: children as linked lists of (edge distance, node)
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] edge;
+    private final int[] maxChildEdge;
+    private final int maxKeyLength;
+
+    private FoodFuzzyMatcher(String[] vocabulary, int[][] foodsByWord) {
+        this.vocabulary = vocabulary;
+        this.foodsByWord = foodsByWord;
+        int n = vocabulary.length;
+        firstChild = new int[n];
+        nextSibling = new int[n];
+        edge = new int[n];
+        maxChildEdge = new int[n];
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(nextSibling, -1);
+        int longest = 0;
+        for (String key : vocabulary) {
+            longest = Math.max(longest, key.length());
+        }
+        maxKeyLength = longest;
+        for (int v = 1; v < n; v++) {
+            insert(v);
+        }
+    }
+
+    /** Build from normalized food names indexed by foodItemId (null = not searchable). */
+    static FoodFuzzyMatcher of(String[] names) {
+        TreeMap<String, List<Integer>> words = new TreeMap<>();
+        for (int id = 0; id < names.length; id++) {
+            if (names[id] == null || names[id].isEmpty()) continue;
+            for (String word : names[id].split(" ")) {
+                List<Integer> ids = words.computeIfAbsent(IndicPhonetics.key(word), k -> new ArrayList<>());
+                if (ids.isEmpty() || ids.get(ids.size() - 1) != id) ids.add(id);
+            }
+        }
+        String[] vocabulary = words.keySet().toArray(new String[0]);
+        int[][] foodsByWord = new int[vocabulary.length][];
+        int v = 0;
+        for (List<Integer> ids : words.values()) {
+            foodsByWord[v++] = ids.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new FoodFuzzyMatcher(vocabulary, foodsByWord);
+    }
+
+    /** Number of distinct phonetic keys. */
+    int vocabularySize() {
+        return vocabulary.length;
+    }
+
+    /**
+     * Ids of foods matching every word of a normalized query, best first:
+     * lowest total distance, then shorter name, then lower id.
+     *
+     * @param names      normalized names by foodItemId (for the length tie-break)
+     * @param categories categories by foodItemId
+     * @param category   only this category (null = any)
+     */
+    long[] search(String query, String[] names, FoodCategory[] categories, FoodCategory category, int limit) {
+        if (query.isEmpty() || vocabulary.length == 0 || limit <= 0) {
+            return new long[0];
+        }
+        String[] words = query.split(" ");
+        // matched[id] = number of leading query words the food has matched; total[id] = their distance sum
+        int[] matched = new int[names.length];
+        int[] total = new int[names.length];
+        long[] lastHits = null;
+        for (int w = 0; w < words.length; w++) {
+            // (distance, vocabulary index) ascending, so a food's first hit for this word is its best
+            long[] hits = matchWord(IndicPhonetics.key(words[w]), w == words.length - 1);
+            Arrays.sort(hits);
+            boolean any = false;
+            for (long hit : hits) {
+                for (int id : foodsByWord[(int) hit]) {
+                    if (matched[id] != w) continue;
+                    if (category != null && categories[id] != category) continue;
+                    matched[id] = w + 1;
+                    total[id] += (int) (hit >>> 32);
+                    any = true;
+                }
+            }
+            if (!any) {
+                return new long[0];
+            }
+            if (w == words.length - 1) {
+                lastHits = hits;
+            }
+        }
+
+        FoodSearchIndex.TopK top = new FoodSearchIndex.TopK(limit);
+        for (long hit : lastHits) {
+            for (int id : foodsByWord[(int) hit]) {
+                if (matched[id] != words.length) continue;
+                matched[id] = -1; // offered once
+                long length = Math.min(names[id].length(), 0xFFFF);
+                top.offer(((long) total[id] << 48) | (length << 32) | id);
+            }
+        }
+        long[] ids = top.sorted();
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] &= 0xFFFFFFFFL;
+        }
+        return ids;
+    }
+
+    /**
+     * Vocabulary entries within tolerance of the key (and, for the last word,
+     * those extending it), packed as distance << 32 | vocabulary index.
+     */
+    private long[] matchWord(String key, boolean prefix) {
+        int tolerance = key.length() < 4 ? 0 : key.length() < 7 ? 1 : 2;
+        long[] hits = new long[16];
+        int n = 0;
+
+        // BK-tree walk: only children whose edge is within d ± tolerance can match. Past
+        // maxChildEdge + tolerance the exact distance no longer matters, so it is capped there.
+        int[] prev = new int[maxKeyLength + 1];
+        int[] cur = new int[maxKeyLength + 1];
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int d = IndicPhonetics.distance(key, vocabulary[node], maxChildEdge[node] + tolerance, prev, cur);
+            if (d <= tolerance) {
+                if (n == hits.length) hits = Arrays.copyOf(hits, n * 2);
+                hits[n++] = ((long) d << 32) | node;
+            }
+            for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                if (Math.abs(edge[child] - d) <= tolerance) {
+                    if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                    stack[top++] = child;
+                }
+            }
+        }
+
+        if (prefix && key.length() >= 2) {
+            int from = lowerBound(key);
+            for (int v = from; v < vocabulary.length && vocabulary[v].startsWith(key); v++) {
+                if (n == hits.length) hits = Arrays.copyOf(hits, n * 2);
+                hits[n++] = v; // distance 0; an exact BK hit for the same entry sorts identically
+            }
+        }
+        return Arrays.copyOf(hits, n);
+    }
+
+    private void insert(int v) {
+        int node = 0;
+        while (true) {
+            int d = IndicPhonetics.distance(vocabulary[v], vocabulary[node], FULL);
+            int child = firstChild[node];
+            while (child >= 0 && edge[child] != d) {
+                child = nextSibling[child];
+            }
+            if (child < 0) {
+                edge[v] = d;
+                maxChildEdge[node] = Math.max(maxChildEdge[node], d);
+                nextSibling[v] = firstChild[node];
+                firstChild[node] = v;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    private int lowerBound(String key) {
+        int idx = Arrays.binarySearch(vocabulary, key);
+        return idx >= 0 ? idx : -idx - 1;
+    }
+}
@@ -1,92 +1,211 @@
 package com.nutrition.dietbalancetracker.service;
 
 import com.nutrition.dietbalancetracker.dto.FoodItemResponseDTO;
+import com.nutrition.dietbalancetracker.dto.FoodQueryResultDTO;
 import com.nutrition.dietbalancetracker.model.FoodCategory;
-import com.nutrition.dietbalancetracker.model.FoodItem;
-import com.nutrition.dietbalancetracker.repository.FoodItemRepository;
+import com.nutrition.dietbalancetracker.model.Nutrient;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * FOOD ITEM SERVICE
  * =================
  * Handles food search and retrieval.
+ *
+ * Search and listing are served from the in-memory catalog snapshot and its
+ * n-gram {@link FoodSearchIndex}; no query reaches the database per keystroke.
+ * Fuzzy mode also returns spelling variants ("chapatti", "parotta") ranked by
+ * phonetic edit distance after the exact matches.
+ *
+ * Nutrient range queries ("iron >= 2, calories <= 150, best protein per
+ * kcal first") run on the snapshot's {@link NutrientRangeIndex}.
  */
 @Service
 @RequiredArgsConstructor
 public class FoodItemService {
-    
-    private final FoodItemRepository foodItemRepository;
 
-    // Search foods by name and optionally filter by category
+    static final int DEFAULT_SEARCH_LIMIT = 100;
+    static final int MAX_SEARCH_LIMIT = 500;
+    static final int DEFAULT_QUERY_LIMIT = 50;
+
+    private final NutrientCatalogService catalogService;
+    private final FoodCategoryCounter categoryCounter;
+
+    /**
+     * Search active foods by name/description, best match first, optionally
+     * within one category. A blank query lists every active food (of the
+     * category) in id order; an unknown category is ignored.
+     *
+     * @param limit maximum results for a non-blank query (null = DEFAULT_SEARCH_LIMIT)
+     * @param fuzzy also match typos and transliteration variants of food names
+     */
+    public List<FoodItemResponseDTO> searchFoods(String query, String category, Integer limit, boolean fuzzy) {
+        NutrientCatalogService.Snapshot catalog = catalogService.current();
+        FoodCategory cat = parseCategory(category);
+
+        long[] ids;
+        if (query == null || query.trim().isEmpty()) {
+            ids = catalog.activeIds();
+            if (cat != null) {
+                ids = Arrays.stream(ids).filter(id -> catalog.category(id) == cat).toArray();
+            }
+        } else {
+            int max = limit == null ? DEFAULT_SEARCH_LIMIT : Math.min(Math.max(limit, 1), MAX_SEARCH_LIMIT);
+            ids = fuzzy
+                    ? catalog.searchIndex().searchFuzzy(query, cat, max)
+                    : catalog.searchIndex().search(query, cat, max);
+        }
+
+        List<FoodItemResponseDTO> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(toDTO(catalog, id));
+        }
+        return result;
+    }
+
     public List<FoodItemResponseDTO> searchFoods(String query, String category) {
-        List<FoodItem> foods;
-
-        if (category != null && !category.trim().isEmpty()) {
-            try {
-                FoodCategory cat = FoodCategory.valueOf(category.toUpperCase());
-                foods = foodItemRepository.findByCategoryAndIsActiveTrue(cat);
-                if (query != null && !query.trim().isEmpty()) {
-                    String q = query.toLowerCase();
-                    foods = foods.stream()
-                            .filter(f -> f.getName().toLowerCase().contains(q))
-                            .collect(Collectors.toList());
+        return searchFoods(query, category, null, false);
+    }
+
+    /** A parsed, validated nutrient range query (see {@link #parseNutrientQuery}). */
+    public record NutrientQuery(List<NutrientRangeIndex.Range> ranges, FoodCategory category,
+                                NutrientRangeIndex.Column sort, boolean descending, int limit) {}
+
+    /**
+     * Parse the parameters of a nutrient range query. Needs no catalog, so
+     * the controller can reject a malformed query before revalidation.
+     *
+     * Parameters (names case-insensitive; columns are nutrients such as
+     * "iron", "vitaminB12", or per-kcal densities such as "proteinPerKcal"):
+     * - minColumn / maxColumn: inclusive bounds, e.g. minIron=2, maxCalories=150
+     * - sort: column to order by; order: desc (default) or asc
+     * - category: only this food category
+     * - limit: foods to return (default DEFAULT_QUERY_LIMIT, at most MAX_SEARCH_LIMIT)
+     *
+     * @throws IllegalArgumentException on an unknown parameter or an unparsable value
+     */
+    public NutrientQuery parseNutrientQuery(Map<String, String> params) {
+        List<NutrientRangeIndex.Range> ranges = new ArrayList<>();
+        NutrientRangeIndex.Column sort = null;
+        boolean descending = true;
+        FoodCategory category = null;
+        int limit = DEFAULT_QUERY_LIMIT;
+
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            String name = param.getKey();
+            String value = param.getValue() == null ? "" : param.getValue().trim();
+            String key = name.toLowerCase(Locale.ROOT);
+            if (key.equals("sort")) {
+                sort = requireColumn(value, name);
+            } else if (key.equals("order")) {
+                if (!value.equalsIgnoreCase("asc") && !value.equalsIgnoreCase("desc")) {
+                    throw new IllegalArgumentException("order must be asc or desc");
                 }
-            } catch (IllegalArgumentException e) {
-                foods = foodItemRepository.findByIsActiveTrue();
+                descending = value.equalsIgnoreCase("desc");
+            } else if (key.equals("category")) {
+                category = parseCategory(value);
+                if (category == null) {
+                    throw new IllegalArgumentException("Unknown category: " + value);
+                }
+            } else if (key.equals("limit")) {
+                limit = Math.min(Math.max(parseNumber(value, name).intValue(), 1), MAX_SEARCH_LIMIT);
+            } else if (key.startsWith("min") || key.startsWith("max")) {
+                NutrientRangeIndex.Column column = requireColumn(name.substring(3), name);
+                double bound = parseNumber(value, name);
+                ranges.add(key.startsWith("min")
+                        ? new NutrientRangeIndex.Range(column, bound, Double.POSITIVE_INFINITY)
+                        : new NutrientRangeIndex.Range(column, Double.NEGATIVE_INFINITY, bound));
+            } else {
+                throw new IllegalArgumentException("Unknown query parameter: " + name);
             }
-        } else if (query == null || query.trim().isEmpty()) {
-            foods = foodItemRepository.findByIsActiveTrue();
-        } else {
-            // Search by name
-            foods = foodItemRepository.findByNameContainingIgnoreCaseAndIsActiveTrue(query);
         }
-        
-        // Convert to DTOs
-        return foods.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return new NutrientQuery(List.copyOf(ranges), category, sort, descending, limit);
     }
-    
-    // Convert FoodItem to DTO
-    private FoodItemResponseDTO convertToDTO(FoodItem food) {
-        FoodItemResponseDTO dto = new FoodItemResponseDTO();
-        dto.setId(food.getId());
-        dto.setName(food.getName());
-        dto.setDescription(food.getDescription());
-        dto.setCategory(food.getCategory());
-        
-        // Add nutrient info if available
-        if (food.getNutrientProfile() != null) {
-            var np = food.getNutrientProfile();
-            dto.setCalories(np.getCalories());
-            dto.setProtein(np.getProtein());
-            dto.setCarbohydrates(np.getCarbohydrates());
-            dto.setFat(np.getFat());
-
-            FoodItemResponseDTO.NutrientProfileDTO npDTO = new FoodItemResponseDTO.NutrientProfileDTO();
-            npDTO.setServingSize(np.getServingSize());
-            npDTO.setCalories(np.getCalories());
-            npDTO.setProtein(np.getProtein());
-            npDTO.setCarbohydrates(np.getCarbohydrates());
-            npDTO.setFat(np.getFat());
-            npDTO.setFiber(np.getFiber());
-            npDTO.setVitaminA(np.getVitaminA());
-            npDTO.setVitaminC(np.getVitaminC());
-            npDTO.setVitaminD(np.getVitaminD());
-            npDTO.setVitaminE(np.getVitaminE());
-            npDTO.setVitaminK(np.getVitaminK());
-            npDTO.setVitaminB12(np.getVitaminB12());
-            npDTO.setCalcium(np.getCalcium());
-            npDTO.setIron(np.getIron());
-            npDTO.setMagnesium(np.getMagnesium());
-            npDTO.setZinc(np.getZinc());
-            npDTO.setPotassium(np.getPotassium());
-            dto.setNutrientProfile(npDTO);
+
+    /** Run a nutrient range query over the active foods of the current catalog. */
+    public FoodQueryResultDTO queryByNutrients(NutrientQuery query) {
+        NutrientCatalogService.Snapshot catalog = catalogService.current();
+        NutrientRangeIndex.Result hits = catalog.rangeIndex().query(
+                query.ranges(), query.category(), query.sort(), query.descending(), query.limit());
+        List<FoodItemResponseDTO> foods = new ArrayList<>(hits.ids().length);
+        for (long id : hits.ids()) {
+            foods.add(toDTO(catalog, id));
+        }
+        return new FoodQueryResultDTO(hits.total(), query.sort() == null ? null : query.sort().name(), foods);
+    }
+
+    private static NutrientRangeIndex.Column requireColumn(String name, String param) {
+        NutrientRangeIndex.Column column = name.isEmpty() ? null : NutrientRangeIndex.column(name);
+        if (column == null) {
+            throw new IllegalArgumentException("Unknown nutrient in " + param + ": " + name);
+        }
+        return column;
+    }
+
+    private static Double parseNumber(String value, String param) {
+        try {
+            double d = Double.parseDouble(value);
+            if (Double.isNaN(d)) {
+                throw new NumberFormatException();
+            }
+            return d;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(param + " must be a number");
+        }
+    }
+
+    /** Validators for the catalog endpoints: content version (ETag) and when it changed. */
+    public record CatalogVersion(String etag, long lastModifiedMillis) {}
+
+    /** Version of the current catalog snapshot; no database access unless the catalog changed. */
+    public CatalogVersion catalogVersion() {
+        NutrientCatalogService.Snapshot catalog = catalogService.current();
+        return new CatalogVersion("\"" + catalog.version() + "\"", catalog.lastModified().toEpochMilli());
+    }
+
+    private static FoodCategory parseCategory(String category) {
+        if (category == null || category.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return FoodCategory.valueOf(category.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
         }
-        
+    }
+
+    /** Food DTO built from the in-memory catalog snapshot. */
+    static FoodItemResponseDTO toDTO(NutrientCatalogService.Snapshot catalog, long foodItemId) {
+        FoodItemResponseDTO dto = new FoodItemResponseDTO();
+        dto.setId(foodItemId);
+        dto.setName(catalog.name(foodItemId));
+        dto.setDescription(catalog.description(foodItemId));
+        dto.setCategory(catalog.category(foodItemId));
+        dto.setCalories(catalog.get(foodItemId, Nutrient.CALORIES));
+        dto.setProtein(catalog.get(foodItemId, Nutrient.PROTEIN));
+        dto.setCarbohydrates(catalog.get(foodItemId, Nutrient.CARBOHYDRATES));
+        dto.setFat(catalog.get(foodItemId, Nutrient.FAT));
+
+        FoodItemResponseDTO.NutrientProfileDTO npDTO = new FoodItemResponseDTO.NutrientProfileDTO();
+        npDTO.setServingSize(catalog.servingSize(foodItemId));
+        npDTO.setCalories(catalog.get(foodItemId, Nutrient.CALORIES));
+        npDTO.setProtein(catalog.get(foodItemId, Nutrient.PROTEIN));
+        npDTO.setCarbohydrates(catalog.get(foodItemId, Nutrient.CARBOHYDRATES));
+        npDTO.setFat(catalog.get(foodItemId, Nutrient.FAT));
+        npDTO.setFiber(catalog.get(foodItemId, Nutrient.FIBER));
+        npDTO.setVitaminA(catalog.get(foodItemId, Nutrient.VITAMIN_A));
+        npDTO.setVitaminC(catalog.get(foodItemId, Nutrient.VITAMIN_C));
+        npDTO.setVitaminD(catalog.get(foodItemId, Nutrient.VITAMIN_D));
+        npDTO.setVitaminE(catalog.get(foodItemId, Nutrient.VITAMIN_E));
+        npDTO.setVitaminK(catalog.get(foodItemId, Nutrient.VITAMIN_K));
+        npDTO.setVitaminB12(catalog.get(foodItemId, Nutrient.VITAMIN_B12));
+        npDTO.setCalcium(catalog.get(foodItemId, Nutrient.CALCIUM));
+        npDTO.setIron(catalog.get(foodItemId, Nutrient.IRON));
+        npDTO.setMagnesium(catalog.get(foodItemId, Nutrient.MAGNESIUM));
+        npDTO.setZinc(catalog.get(foodItemId, Nutrient.ZINC));
+        npDTO.setPotassium(catalog.get(foodItemId, Nutrient.POTASSIUM));
+        dto.setNutrientProfile(npDTO);
         return dto;
     }
 
@@ -95,22 +214,8 @@ public class FoodItemService {
         return searchFoods(query, null);
     }
 
-    // Get category counts for the sidebar/tabs
+    // Get category counts for the sidebar/tabs (in memory, no database access)
     public List<Map<String, Object>> getCategoryCounts() {
-        List<FoodItem> allActive = foodItemRepository.findByIsActiveTrue();
-        Map<FoodCategory, Long> counts = allActive.stream()
-                .collect(Collectors.groupingBy(FoodItem::getCategory, Collectors.counting()));
-
-        List<Map<String, Object>> result = new ArrayList<>();
-        for (FoodCategory cat : FoodCategory.values()) {
-            long count = counts.getOrDefault(cat, 0L);
-            if (count > 0) {
-                Map<String, Object> item = new LinkedHashMap<>();
-                item.put("category", cat.name());
-                item.put("count", count);
-                result.add(item);
-            }
-        }
-        return result;
+        return categoryCounter.getCounts();
     }
 }
@@ -0,0 +1,467 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import com.nutrition.dietbalancetracker.model.FoodCategory;
+
+/**
+ * FOOD SEARCH INDEX
+ * =================
+ * Immutable in-memory n-gram index over the names and descriptions of active
+ * foods, built alongside each catalog snapshot.
+ *
+ * Text is normalized (lower case, accents stripped, anything that is not a
+ * letter or digit turned into a single space). Names and descriptions have
+ * separate posting maps; each text is posted under every trigram and under
+ * the first one and two characters of every word. Keys are the characters
+ * packed into a long; posting lists are foodItemIds in ascending order.
+ *
+ * A query of 3+ characters intersects the lists of its trigrams (shortest
+ * first, galloping) and checks the survivors with a substring test; a shorter
+ * query reads the single word-prefix list, so it only matches word starts.
+ *
+ * Ranking (best first): name prefix, name word prefix, name substring,
+ * description word prefix, description substring; ties go to the shorter
+ * name, then the lower id. Only the best `limit` results are kept (bounded
+ * heap), and descriptions are not scanned at all when names alone fill it.
+ *
+ * Updates are incremental: {@link #update} diffs the new catalog against the
+ * previous index, re-normalizes only texts that changed, and rebuilds only
+ * the posting lists whose foods changed. Untouched lists are shared with the
+ * previous index.
+ *
+ * {@link #searchFuzzy} appends typo- and transliteration-tolerant matches from
+ * a {@link FoodFuzzyMatcher} after the exact ones; the matcher is rebuilt only
+ * when some food name changed.
+ */
+public final class FoodSearchIndex {
+
+    private static final int[] NO_IDS = new int[0];
+
+    /** Above this share of changed texts, a full rebuild is cheaper than patching lists. */
+    private static final double REBUILD_RATIO = 0.25;
+
+    private static final int TIER_BITS = 3;
+    private static final int LENGTH_BITS = 16;
+    private static final int ID_BITS = 63 - TIER_BITS - LENGTH_BITS; // sign bit clear: tier 4 must not sort first
+
+    private final Field names;
+    private final Field descriptions;
+    private final FoodCategory[] categories;   // index = foodItemId
+    private final int size;
+    private final FoodFuzzyMatcher fuzzy;
+
+    private FoodSearchIndex(Field names, Field descriptions, FoodCategory[] categories, int size,
+                            FoodFuzzyMatcher fuzzy) {
+        this.names = names;
+        this.descriptions = descriptions;
+        this.categories = categories;
+        this.size = size;
+        this.fuzzy = fuzzy;
+    }
+
+    /** One searchable food: its id and the raw (not yet normalized) texts. */
+    record Food(int id, String name, String description, FoodCategory category) {}
+
+    /**
+     * Index the given active foods, reusing the previous index where nothing changed.
+     *
+     * @param previous index of the last catalog snapshot, or null to build from scratch
+     * @param foods    every active food of the new snapshot
+     */
+    static FoodSearchIndex update(FoodSearchIndex previous, List<Food> foods) {
+        int maxId = 0;
+        for (Food f : foods) {
+            maxId = Math.max(maxId, f.id());
+        }
+        String[] rawNames = new String[maxId + 1];
+        String[] rawDescriptions = new String[maxId + 1];
+        FoodCategory[] categories = new FoodCategory[maxId + 1];
+        for (Food f : foods) {
+            rawNames[f.id()] = f.name() != null ? f.name() : "";
+            rawDescriptions[f.id()] = f.description() != null ? f.description() : "";
+            categories[f.id()] = f.category();
+        }
+        Field names = Field.update(previous != null ? previous.names : null, rawNames);
+        FoodFuzzyMatcher fuzzy = previous != null && names.postings == previous.names.postings
+                ? previous.fuzzy // no name changed
+                : FoodFuzzyMatcher.of(names.text);
+        return new FoodSearchIndex(names,
+                Field.update(previous != null ? previous.descriptions : null, rawDescriptions),
+                categories, foods.size(), fuzzy);
+    }
+
+    /** Number of searchable (active) foods. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Ids of matching foods, best match first.
+     *
+     * @param query    raw search text; blank returns nothing
+     * @param category only foods of this category (null = any)
+     * @param limit    maximum number of ids returned
+     */
+    public long[] search(String query, FoodCategory category, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return new long[0];
+        }
+        boolean wordPrefixOnly = q.length() < 3;
+        String wordStart = " " + q;
+        TopK top = new TopK(limit);
+
+        for (int id : names.candidates(q)) {
+            if (category != null && categories[id] != category) continue;
+            int tier = textTier(names.text[id], q, wordStart, wordPrefixOnly);
+            if (tier >= 0) top.offer(score(tier, id));
+        }
+        if (top.isFull()) {
+            return ids(top); // every description-only match ranks below a full page of name matches
+        }
+        for (int id : descriptions.candidates(q)) {
+            if (category != null && categories[id] != category) continue;
+            if (textTier(names.text[id], q, wordStart, wordPrefixOnly) >= 0) continue; // counted above
+            int tier = textTier(descriptions.text[id], q, wordStart, wordPrefixOnly);
+            if (tier >= 0) top.offer(score(tier == 2 ? 4 : 3, id));
+        }
+        return ids(top);
+    }
+
+    /**
+     * Exact matches (as {@link #search}) followed by fuzzy name matches,
+     * the latter ordered by phonetic edit distance.
+     */
+    public long[] searchFuzzy(String query, FoodCategory category, int limit) {
+        long[] exact = search(query, category, limit);
+        if (exact.length >= limit) {
+            return exact;
+        }
+        long[] fuzzyIds = fuzzy.search(normalize(query), names.text, categories, category, limit + exact.length);
+        long[] result = Arrays.copyOf(exact, limit);
+        int n = exact.length;
+        long[] seen = exact.clone();
+        Arrays.sort(seen);
+        for (int i = 0; i < fuzzyIds.length && n < limit; i++) {
+            if (Arrays.binarySearch(seen, fuzzyIds[i]) < 0) result[n++] = fuzzyIds[i];
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /** Distinct phonetic name-word keys known to the fuzzy matcher. */
+    public int fuzzyVocabularySize() {
+        return fuzzy.vocabularySize();
+    }
+
+    /** 0 = prefix, 1 = word prefix, 2 = substring (not for word-prefix-only queries), -1 = no match. */
+    private static int textTier(String text, String q, String wordStart, boolean wordPrefixOnly) {
+        if (text.startsWith(q)) return 0;
+        if (text.contains(wordStart)) return 1;
+        if (!wordPrefixOnly && text.contains(q)) return 2;
+        return -1;
+    }
+
+    private static long[] ids(TopK top) {
+        long[] scores = top.sorted();
+        long idMask = (1L << ID_BITS) - 1;
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] &= idMask;
+        }
+        return scores;
+    }
+
+    private long score(int tier, int id) {
+        int length = Math.min(names.text[id].length(), (1 << LENGTH_BITS) - 1);
+        return ((long) tier << (LENGTH_BITS + ID_BITS)) | ((long) length << ID_BITS) | id;
+    }
+
+    /* ============ Grams ============ */
+
+    /** Trigram key: three chars packed into the low 48 bits. */
+    private static long trigram(String text, int i) {
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    /** Word-prefix key (1 or 2 chars); bit 48/49 keeps it apart from trigram keys. */
+    private static long prefixKey(String text, int start, int length) {
+        return length == 1
+                ? (1L << 48) | text.charAt(start)
+                : (2L << 48) | ((long) text.charAt(start) << 16) | text.charAt(start + 1);
+    }
+
+    /** Distinct keys of one normalized text, ascending. */
+    private static long[] grams(String text) {
+        if (text == null || text.isEmpty()) {
+            return new long[0];
+        }
+        long[] keys = new long[Math.max(0, text.length() - 2) + 2 * (text.length() / 2 + 1)];
+        int n = 0;
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            keys[n++] = trigram(text, i);
+        }
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf(' ', start);
+            if (end < 0) end = text.length();
+            keys[n++] = prefixKey(text, start, 1);
+            if (end - start >= 2) {
+                keys[n++] = prefixKey(text, start, 2);
+            }
+            start = end + 1;
+        }
+        Arrays.sort(keys, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || keys[i] != keys[distinct - 1]) keys[distinct++] = keys[i];
+        }
+        return Arrays.copyOf(keys, distinct);
+    }
+
+    /* ============ Per-field index ============ */
+
+    /** Normalized texts of one field (by foodItemId) and their posting lists. */
+    private static final class Field {
+
+        private final String[] raw;    // as stored in the catalog, null = not indexed
+        private final String[] text;   // normalized
+        private final Map<Long, int[]> postings;
+
+        private Field(String[] raw, String[] text, Map<Long, int[]> postings) {
+            this.raw = raw;
+            this.text = text;
+            this.postings = postings;
+        }
+
+        static Field update(Field previous, String[] raw) {
+            String[] text = new String[raw.length];
+            List<Integer> changed = new ArrayList<>();
+            int indexed = 0;
+            int ids = Math.max(raw.length, previous != null ? previous.raw.length : 0);
+            for (int id = 0; id < ids; id++) {
+                String value = at(raw, id);
+                String before = previous != null ? at(previous.raw, id) : null;
+                if (value != null) {
+                    indexed++;
+                    // Unchanged raw text: reuse the normalized form instead of normalizing again
+                    text[id] = value.equals(before) ? previous.text[id] : normalize(value);
+                }
+                if (previous != null && !Objects.equals(at(text, id), at(previous.text, id))) {
+                    changed.add(id);
+                }
+            }
+
+            if (previous == null || changed.size() > REBUILD_RATIO * Math.max(indexed, 1)) {
+                return new Field(raw, text, build(text));
+            }
+            if (changed.isEmpty()) {
+                return new Field(raw, text, previous.postings);
+            }
+            return new Field(raw, text, patch(previous, text, changed));
+        }
+
+        private static Map<Long, int[]> build(String[] text) {
+            Map<Long, IntList> lists = new HashMap<>();
+            for (int id = 0; id < text.length; id++) {
+                for (long key : grams(text[id])) {
+                    lists.computeIfAbsent(key, k -> new IntList()).add(id); // ids ascending: lists stay sorted
+                }
+            }
+            Map<Long, int[]> postings = new HashMap<>(lists.size() * 4 / 3 + 1);
+            lists.forEach((key, list) -> postings.put(key, list.toArray()));
+            return postings;
+        }
+
+        /** Copy-on-write update: only lists that gain or lose an id are rebuilt. */
+        private static Map<Long, int[]> patch(Field previous, String[] text, List<Integer> changed) {
+            Map<Long, IntList> removed = new HashMap<>();
+            Map<Long, IntList> added = new HashMap<>();
+            for (int id : changed) {
+                long[] before = grams(at(previous.text, id));
+                long[] after = grams(at(text, id));
+                for (long key : before) {
+                    if (Arrays.binarySearch(after, key) < 0) removed.computeIfAbsent(key, k -> new IntList()).add(id);
+                }
+                for (long key : after) {
+                    if (Arrays.binarySearch(before, key) < 0) added.computeIfAbsent(key, k -> new IntList()).add(id);
+                }
+            }
+
+            Map<Long, int[]> postings = new HashMap<>(previous.postings);
+            for (Map.Entry<Long, IntList> e : removed.entrySet()) {
+                int[] drop = e.getValue().toArray(); // ascending: changed ids are visited in order
+                int[] ids = postings.get(e.getKey());
+                IntList kept = new IntList();
+                for (int id : ids) {
+                    if (Arrays.binarySearch(drop, id) < 0) kept.add(id);
+                }
+                if (kept.size == 0) {
+                    postings.remove(e.getKey());
+                } else {
+                    postings.put(e.getKey(), kept.toArray());
+                }
+            }
+            for (Map.Entry<Long, IntList> e : added.entrySet()) {
+                int[] ids = postings.getOrDefault(e.getKey(), NO_IDS);
+                int[] add = e.getValue().toArray();
+                int[] merged = Arrays.copyOf(ids, ids.length + add.length);
+                System.arraycopy(add, 0, merged, ids.length, add.length);
+                Arrays.sort(merged);
+                postings.put(e.getKey(), merged);
+            }
+            return postings;
+        }
+
+        /** Ids whose text may contain the (normalized) query. */
+        int[] candidates(String q) {
+            if (q.length() < 3) {
+                return postings.getOrDefault(prefixKey(q, 0, q.length()), NO_IDS);
+            }
+            List<int[]> lists = new ArrayList<>();
+            for (int i = 0; i + 3 <= q.length(); i++) {
+                int[] list = postings.get(trigram(q, i));
+                if (list == null) return NO_IDS;
+                lists.add(list);
+            }
+            lists.sort((a, b) -> Integer.compare(a.length, b.length));
+
+            int[] result = lists.get(0);
+            for (int l = 1; l < lists.size() && result.length > 0; l++) {
+                int[] other = lists.get(l);
+                if (other == result) continue; // repeated trigram
+                int[] next = new int[result.length];
+                int n = 0;
+                int j = 0;
+                for (int id : result) {
+                    j = seek(other, j, id);
+                    if (j == other.length) break;
+                    if (other[j] == id) next[n++] = id;
+                }
+                result = Arrays.copyOf(next, n);
+            }
+            return result;
+        }
+
+        /** First index at or after from whose value is >= id (galloping, then binary search). */
+        private static int seek(int[] list, int from, int id) {
+            int step = 1;
+            int hi = from;
+            while (hi < list.length && list[hi] < id) {
+                from = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            int idx = Arrays.binarySearch(list, from, Math.min(hi + 1, list.length), id);
+            return idx >= 0 ? idx : -idx - 1;
+        }
+    }
+
+    private static String at(String[] values, int id) {
+        return id < values.length ? values[id] : null;
+    }
+
+    /** Lower case, accents stripped, runs of non letters/digits collapsed to one space, trimmed. */
+    static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) >= 0x80) {
+                lower = Normalizer.normalize(lower, Normalizer.Form.NFD); // only non-ASCII text needs decomposing
+                break;
+            }
+        }
+        StringBuilder out = new StringBuilder(lower.length());
+        boolean space = false;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (space && out.length() > 0) out.append(' ');
+                out.append(c);
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return out.toString();
+    }
+
+    /* ============ Helpers ============ */
+
+    /** Keeps the k smallest scores seen (max-heap on primitives). */
+    static final class TopK {
+        private final long[] heap;
+        private int size;
+
+        TopK(int k) {
+            heap = new long[k];
+        }
+
+        boolean isFull() {
+            return size == heap.length;
+        }
+
+        void offer(long value) {
+            if (size < heap.length) {
+                int i = size++;
+                heap[i] = value;
+                while (i > 0 && heap[(i - 1) / 2] < heap[i]) {
+                    swap(i, (i - 1) / 2);
+                    i = (i - 1) / 2;
+                }
+            } else if (value < heap[0]) {
+                heap[0] = value;
+                int i = 0;
+                while (true) {
+                    int largest = i;
+                    int left = 2 * i + 1;
+                    int right = left + 1;
+                    if (left < size && heap[left] > heap[largest]) largest = left;
+                    if (right < size && heap[right] > heap[largest]) largest = right;
+                    if (largest == i) break;
+                    swap(i, largest);
+                    i = largest;
+                }
+            }
+        }
+
+        /** The kept scores, ascending. */
+        long[] sorted() {
+            long[] scores = Arrays.copyOf(heap, size);
+            Arrays.sort(scores);
+            return scores;
+        }
+
+        private void swap(int a, int b) {
+            long t = heap[a];
+            heap[a] = heap[b];
+            heap[b] = t;
+        }
+    }
+
+    /** Growable int array (avoids boxing while building posting lists). */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.nutrition.dietbalancetracker.service;
+
+/**
+ * INDIC PHONETICS
+ * ===============
+ * Phonetic key for romanized Indian food names, so spelling variants of the
+ * same dish collapse to (nearly) the same key before edit distance is taken:
+ *
+ *   chapati / chapatti / chappati  → capati
+ *   paratha / parantha / parotta   → parata / paranta / parota
+ *   papad / papadum / pappadam     → papad / papadum / papadam
+ *
+ * Rules, applied left to right on a normalized word (lower case, letters and
+ * digits only):
+ * - aspirates lose the h: chh/ch → c, kh → k, gh → g, th → t, dh → d,
+ *   bh → b, jh → j, sh → s, ph → f
+ * - long vowels shorten: aa → a, ee/ii → i, oo/uu → u; ai → e, au → o
+ * - ck/q → k, z → j, w → v, x → ks, y between letters → i
+ * - any remaining doubled letter is written once (tt → t), and a final h
+ *   is dropped
+ */
+public final class IndicPhonetics {
+
+    private IndicPhonetics() {
+    }
+
+    /** Phonetic key of one normalized word. */
+    public static String key(String word) {
+        StringBuilder out = new StringBuilder(word.length());
+        int i = 0;
+        int n = word.length();
+        while (i < n) {
+            char c = word.charAt(i);
+            char next = i + 1 < n ? word.charAt(i + 1) : 0;
+            String emit;
+            int consumed = 1;
+            if (c == 'c' && next == 'h') {
+                emit = "c";
+                consumed = i + 2 < n && word.charAt(i + 2) == 'h' ? 3 : 2;
+            } else if (next == 'h' && "kgtdbjs".indexOf(c) >= 0) {
+                emit = String.valueOf(c);
+                consumed = 2;
+            } else if (c == 'p' && next == 'h') {
+                emit = "f";
+                consumed = 2;
+            } else if (c == 'a' && next == 'i') {
+                emit = "e";
+                consumed = 2;
+            } else if (c == 'a' && next == 'u') {
+                emit = "o";
+                consumed = 2;
+            } else if (c == 'e' && next == 'e') {
+                emit = "i";
+                consumed = 2;
+            } else if (c == 'o' && next == 'o') {
+                emit = "u";
+                consumed = 2;
+            } else if (c == 'c' && next == 'k') {
+                emit = "k";
+                consumed = 2;
+            } else if (c == 'q') {
+                emit = "k";
+            } else if (c == 'z') {
+                emit = "j";
+            } else if (c == 'w') {
+                emit = "v";
+            } else if (c == 'x') {
+                emit = "ks";
+            } else if (c == 'y' && i > 0 && next != 0) {
+                emit = "i";
+            } else {
+                emit = String.valueOf(c);
+            }
+            for (int k = 0; k < emit.length(); k++) {
+                char e = emit.charAt(k);
+                if (out.length() == 0 || out.charAt(out.length() - 1) != e) {
+                    out.append(e); // doubled letters (tt, aa, ii, uu, ...) are written once
+                }
+            }
+            i += consumed;
+        }
+        if (out.length() > 1 && out.charAt(out.length() - 1) == 'h') {
+            out.setLength(out.length() - 1);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Levenshtein distance between two keys, or max + 1 as soon as it is
+     * certain to exceed max.
+     */
+    public static int distance(String a, String b, int max) {
+        return distance(a, b, max, new int[b.length() + 1], new int[b.length() + 1]);
+    }
+
+    /** As above, with caller-supplied rows of at least b.length() + 1 ints (no allocation). */
+    static int distance(String a, String b, int max, int[] prev, int[] cur) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, cur[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] t = prev;
+            prev = cur;
+            cur = t;
+        }
+        return Math.min(prev[b.length()], max + 1);
+    }
+}
@@ -0,0 +1,229 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nutrition.dietbalancetracker.model.DietaryEntry;
+import com.nutrition.dietbalancetracker.model.FoodItem;
+import com.nutrition.dietbalancetracker.model.MealType;
+import com.nutrition.dietbalancetracker.model.Nutrient;
+import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * MEAL HISTORY EXPORT SERVICE
+ * ===========================
+ * Writes a user's full meal history as NDJSON (one JSON object per line) or
+ * CSV, oldest entry first, in constant memory.
+ *
+ * - Rows come from a forward-only streaming result set
+ *   ({@link DietaryEntryRepository#streamHistory(Long)}), never a List.
+ * - Each row is written to the response as soon as it is read.
+ * - The persistence context is cleared every CLEAR_EVERY rows, so
+ *   already-written entries can be garbage collected.
+ *
+ * Archived months ({@link EntryArchiveService}) are written first, file by
+ * file, with food names and nutrients taken from the catalog snapshot; the
+ * rows still in MySQL follow.
+ *
+ * Nutrient columns hold the amount actually consumed (per-serving value × portion).
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MealHistoryExportService {
+
+    /** Rows written between EntityManager.clear() calls. */
+    private static final int CLEAR_EVERY = 500;
+
+    private static final Nutrient[] NUTRIENTS = Nutrient.values();
+
+    private final DietaryEntryRepository dietaryEntryRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final EntryArchiveService archiveService;
+    private final NutrientCatalogService catalogService;
+
+    /** Supported export formats. */
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        public final String contentType;
+        public final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        /** Parse a ?format= value (case-insensitive). */
+        public static Format of(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value + " (use ndjson or csv)");
+            }
+        }
+    }
+
+    /**
+     * Stream every entry of a user to the output.
+     *
+     * @return number of entries written
+     */
+    @Transactional(readOnly = true)
+    public long export(Long userId, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writeCsvHeader(writer);
+        }
+        JsonGenerator json = format == Format.NDJSON ? newlineDelimited(writer) : null;
+        NutrientVector nutrients = new NutrientVector();
+        long[] rows = {0};
+
+        NutrientCatalogService.Snapshot catalog = catalogService.current();
+        try {
+            archiveService.forEachUserRow(userId, row -> {
+                nutrients.clear();
+                catalog.addTo(nutrients, row.foodItemId(), row.portionSize());
+                try {
+                    writeRow(json, writer, row.id(), row.consumedAt(), row.mealType(), row.foodItemId(),
+                            catalog.name(row.foodItemId()), row.portionSize(), nutrients);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        try (Stream<DietaryEntry> entries = dietaryEntryRepository.streamHistory(userId)) {
+            Iterator<DietaryEntry> it = entries.iterator();
+            while (it.hasNext()) {
+                DietaryEntry entry = it.next();
+                FoodItem food = entry.getFoodItem();
+                nutrients.clear();
+                nutrients.addEntry(entry);
+                writeRow(json, writer, entry.getId(), entry.getConsumedAt(), entry.getMealType(), food.getId(),
+                        food.getName(), NutrientVector.portionOf(entry), nutrients);
+                if (++rows[0] % CLEAR_EVERY == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+        log.info("Exported {} meal entries for user {} as {}", rows[0], userId, format);
+        return rows[0];
+    }
+
+    private void writeRow(JsonGenerator json, Writer writer, Long id, LocalDateTime consumedAt, MealType mealType,
+                          Long foodItemId, String foodName, double portion, NutrientVector nutrients)
+            throws IOException {
+        if (json != null) {
+            writeJson(json, id, consumedAt, mealType, foodItemId, foodName, portion, nutrients);
+        } else {
+            writeCsvRow(writer, id, consumedAt, mealType, foodItemId, foodName, portion, nutrients);
+        }
+    }
+
+    /* ============ NDJSON ============ */
+
+    /** A generator that separates top-level objects with nothing (we write the newlines). */
+    private JsonGenerator newlineDelimited(Writer writer) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        json.setRootValueSeparator(null);
+        return json;
+    }
+
+    private void writeJson(JsonGenerator json, Long id, LocalDateTime consumedAt, MealType mealType,
+                           Long foodItemId, String foodName, double portion, NutrientVector nutrients)
+            throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", id);
+        json.writeStringField("consumedAt", String.valueOf(consumedAt));
+        json.writeStringField("mealType", String.valueOf(mealType));
+        json.writeNumberField("foodItemId", foodItemId);
+        json.writeStringField("foodName", foodName);
+        json.writeNumberField("portionSize", portion);
+        for (Nutrient n : NUTRIENTS) {
+            json.writeNumberField(fieldName(n), nutrients.get(n));
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    /* ============ CSV ============ */
+
+    private void writeCsvHeader(Writer writer) throws IOException {
+        writer.write("id,consumedAt,mealType,foodItemId,foodName,portionSize");
+        for (Nutrient n : NUTRIENTS) {
+            writer.write(',');
+            writer.write(fieldName(n));
+        }
+        writer.write('\n');
+    }
+
+    private void writeCsvRow(Writer writer, Long id, LocalDateTime consumedAt, MealType mealType,
+                             Long foodItemId, String foodName, double portion, NutrientVector nutrients)
+            throws IOException {
+        writer.write(String.valueOf(id));
+        writer.write(',');
+        writer.write(String.valueOf(consumedAt));
+        writer.write(',');
+        writer.write(String.valueOf(mealType));
+        writer.write(',');
+        writer.write(String.valueOf(foodItemId));
+        writer.write(',');
+        writer.write(csvText(foodName));
+        writer.write(',');
+        writer.write(Double.toString(portion));
+        for (Nutrient n : NUTRIENTS) {
+            writer.write(',');
+            writer.write(Double.toString(nutrients.get(n)));
+        }
+        writer.write('\n');
+    }
+
+    /** Quote a text field when it contains a separator, quote or line break. */
+    private static String csvText(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /* ============ Helpers ============ */
+
+    /** Column / field name of a nutrient, e.g. VITAMIN_B12 → vitaminB12. */
+    private static String fieldName(Nutrient n) {
+        String[] parts = n.name().toLowerCase(Locale.ROOT).split("_");
+        StringBuilder name = new StringBuilder(parts[0]);
+        for (int i = 1; i < parts.length; i++) {
+            name.append(Character.toUpperCase(parts[i].charAt(0))).append(parts[i].substring(1));
+        }
+        return name.toString();
+    }
+}
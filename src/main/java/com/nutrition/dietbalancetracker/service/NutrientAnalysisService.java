@@ -1,5 +1,6 @@
 package com.nutrition.dietbalancetracker.service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -7,16 +8,21 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.nutrition.dietbalancetracker.dto.NutrientAnalysisDTO;
 import com.nutrition.dietbalancetracker.dto.NutrientAnalysisDTO.NutrientDetail;
 import com.nutrition.dietbalancetracker.dto.NutrientAnalysisDTO.Recommendation;
-import com.nutrition.dietbalancetracker.model.DietaryEntry;
-import com.nutrition.dietbalancetracker.model.NutrientProfile;
+import com.nutrition.dietbalancetracker.model.DailyNutrientRollup;
+import com.nutrition.dietbalancetracker.model.Nutrient;
 import com.nutrition.dietbalancetracker.model.User;
 import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository;
+import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository.DayTotal;
+import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository.EntryTuple;
 import com.nutrition.dietbalancetracker.repository.UserRepository;
+import com.nutrition.dietbalancetracker.service.NutrientRequirementService.Requirements;
 
 import lombok.RequiredArgsConstructor;
 
@@ -33,114 +39,203 @@ public class NutrientAnalysisService {
 
     private final DietaryEntryRepository dietaryEntryRepository;
     private final UserRepository userRepository;
+    private final DailyNutrientRollupService rollupService;
+    private final AnalysisResultCache resultCache;
+    private final NutrientCatalogService catalogService;
+    private final NutrientRequirementService requirementService;
+
+    @Value("${nutrition.aggregation.source:ROLLUP}")
+    private AggregationSource aggregationSource;
 
     /**
-     * Analyze nutrition for today's meals.
+     * Analyze nutrition for today's meals (cached until the user's data changes).
      */
+    @Transactional(readOnly = true)
     public NutrientAnalysisDTO analyzeToday(Long userId) {
+        return resultCache.get(userId, "today", () -> computeToday(userId));
+    }
+
+    /**
+     * Analyze nutrition for the past 7 days (cached until the user's data changes).
+     */
+    @Transactional(readOnly = true)
+    public NutrientAnalysisDTO analyzeWeek(Long userId) {
+        return resultCache.get(userId, "week", () -> computeWeek(userId));
+    }
+
+    /**
+     * Analyze an arbitrary date range (inclusive), averaged per active day.
+     * Answered from the user's cached prefix-sum index over daily rollups,
+     * so a multi-year range costs the same as a single day.
+     *
+     * That holds on cache hits only. The index lives in the result cache, so
+     * it is rebuilt from every one of the user's rollup rows (O(active days))
+     * on the first range request after each of their writes, after midnight,
+     * after LRU eviction, and on every request when nutrition.cache.enabled
+     * is false.
+     */
+    @Transactional(readOnly = true)
+    public NutrientAnalysisDTO analyzeRange(Long userId, LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("'from' must be on or before 'to'");
+        }
+        NutrientPrefixIndex index = resultCache.get(userId, "prefix-index",
+                () -> rollupService.buildPrefixIndex(userId));
+        User user = userRepository.findById(userId).orElse(null);
+
+        NutrientVector totals = new NutrientVector();
+        NutrientPrefixIndex.RangeSum sum = index.sumInto(from, to, totals);
+        return buildAnalysis(totals, sum.entryCount(), Math.max(sum.activeDays(), 1), user);
+    }
+
+    /**
+     * Weekly analysis from rollup rows the caller already loaded
+     * (batch scoring across many users).
+     */
+    public NutrientAnalysisDTO analyzeWeek(User user, List<DailyNutrientRollup> weekRows) {
+        return buildAnalysis(weekRows, true, user);
+    }
+
+    private NutrientAnalysisDTO computeToday(Long userId) {
+        User user = userRepository.findById(userId).orElse(null);
+
+        if (aggregationSource == AggregationSource.ROLLUP) {
+            LocalDate today = LocalDate.now();
+            return buildAnalysis(rollupService.findRange(userId, today, today), false, user);
+        }
+        if (aggregationSource == AggregationSource.DATABASE) {
+            LocalDate today = LocalDate.now();
+            List<DayTotal> rows = dietaryEntryRepository
+                    .findDailyTotals(userId, today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+            return buildAnalysisFromDayTotals(rows, false, user);
+        }
+
         LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0);
         LocalDateTime endOfDay = LocalDateTime.now().withHour(23).withMinute(59).withSecond(59);
 
-        List<DietaryEntry> entries = dietaryEntryRepository
-                .findByUserIdAndConsumedAtBetweenOrderByConsumedAtDesc(userId, startOfDay, endOfDay);
+        List<EntryTuple> entries = dietaryEntryRepository.findEntryTuples(userId, startOfDay, endOfDay);
 
-        User user = userRepository.findById(userId).orElse(null);
         return buildAnalysis(entries, 1, user);
     }
 
     /**
-     * Analyze nutrition for the past 7 days (averaged per day).
+     * Past 7 days, averaged per active day.
      */
-    public NutrientAnalysisDTO analyzeWeek(Long userId) {
+    private NutrientAnalysisDTO computeWeek(Long userId) {
+        User user = userRepository.findById(userId).orElse(null);
+
+        if (aggregationSource == AggregationSource.ROLLUP) {
+            LocalDate today = LocalDate.now();
+            return buildAnalysis(rollupService.findRange(userId, today.minusDays(7), today), true, user);
+        }
+        if (aggregationSource == AggregationSource.DATABASE) {
+            LocalDateTime startOfWeek = LocalDate.now().minusDays(7).atStartOfDay();
+            List<DayTotal> rows = dietaryEntryRepository
+                    .findDailyTotals(userId, startOfWeek, LocalDateTime.now());
+            return buildAnalysisFromDayTotals(rows, true, user);
+        }
+
         LocalDateTime startOfWeek = LocalDateTime.now().minusDays(7).withHour(0).withMinute(0).withSecond(0).withNano(0);
         LocalDateTime now = LocalDateTime.now();
 
-        List<DietaryEntry> entries = dietaryEntryRepository
-                .findByUserIdAndConsumedAtBetweenOrderByConsumedAtDesc(userId, startOfWeek, now);
+        List<EntryTuple> entries = dietaryEntryRepository.findEntryTuples(userId, startOfWeek, now);
 
         // Count distinct days with entries
-        Set<String> activeDays = new HashSet<>();
-        for (DietaryEntry e : entries) {
-            activeDays.add(e.getConsumedAt().toLocalDate().toString());
+        Set<LocalDate> activeDays = new HashSet<>();
+        for (EntryTuple e : entries) {
+            activeDays.add(e.getConsumedAt().toLocalDate());
         }
         int days = Math.max(activeDays.size(), 1);
 
-        User user = userRepository.findById(userId).orElse(null);
         return buildAnalysis(entries, days, user);
     }
 
     /**
-     * Core analysis logic: aggregate nutrients from entries,
-     * compare against recommended daily values, generate recommendations.
+     * Analysis from daily rollup rows (one row per active day).
+     *
+     * @param averagePerActiveDay divide totals by the number of days that have entries
      */
-    private NutrientAnalysisDTO buildAnalysis(List<DietaryEntry> entries, int days, User user) {
-        NutrientAnalysisDTO dto = new NutrientAnalysisDTO();
-        dto.setMealCount(entries.size());
-
-        // Accumulated nutrient totals
-        double calories = 0, protein = 0, carbs = 0, fat = 0, fiber = 0;
-        double vitA = 0, vitC = 0, vitD = 0, vitE = 0, vitK = 0, vitB12 = 0;
-        double calcium = 0, iron = 0, magnesium = 0, zinc = 0, potassium = 0;
-
-        for (DietaryEntry entry : entries) {
-            NutrientProfile np = entry.getFoodItem() != null ? entry.getFoodItem().getNutrientProfile() : null;
-            if (np == null) continue;
-            double p = entry.getPortionSize() != null ? entry.getPortionSize() : 1.0;
-
-            calories += np.getCalories() * p;
-            protein += np.getProtein() * p;
-            carbs += np.getCarbohydrates() * p;
-            fat += np.getFat() * p;
-            fiber += np.getFiber() * p;
-            vitA += np.getVitaminA() * p;
-            vitC += np.getVitaminC() * p;
-            vitD += np.getVitaminD() * p;
-            vitE += np.getVitaminE() * p;
-            vitK += np.getVitaminK() * p;
-            vitB12 += np.getVitaminB12() * p;
-            calcium += np.getCalcium() * p;
-            iron += np.getIron() * p;
-            magnesium += np.getMagnesium() * p;
-            zinc += np.getZinc() * p;
-            potassium += np.getPotassium() * p;
+    private NutrientAnalysisDTO buildAnalysis(List<DailyNutrientRollup> rollups, boolean averagePerActiveDay, User user) {
+        NutrientVector totals = new NutrientVector();
+        int mealCount = rollupService.sumInto(rollups, totals);
+        int days = averagePerActiveDay ? Math.max(rollups.size(), 1) : 1;
+        return buildAnalysis(totals, mealCount, days, user);
+    }
+
+    /**
+     * Analysis from per-day totals aggregated by the database.
+     *
+     * @param averagePerActiveDay divide totals by the number of days that have entries
+     */
+    private NutrientAnalysisDTO buildAnalysisFromDayTotals(List<DayTotal> rows, boolean averagePerActiveDay, User user) {
+        NutrientVector totals = new NutrientVector();
+        int mealCount = 0;
+        for (DayTotal row : rows) {
+            for (Nutrient n : Nutrient.values()) {
+                totals.add(n, row.get(n));
+            }
+            mealCount += row.getEntryCount().intValue();
+        }
+        int days = averagePerActiveDay ? Math.max(rows.size(), 1) : 1;
+        return buildAnalysis(totals, mealCount, days, user);
+    }
+
+    /**
+     * Core analysis logic: aggregate nutrients from entry tuples (values from
+     * the catalog snapshot), compare against recommended daily values,
+     * generate recommendations.
+     */
+    private NutrientAnalysisDTO buildAnalysis(List<EntryTuple> entries, int days, User user) {
+        NutrientVector totals = new NutrientVector();
+        NutrientCatalogService.Snapshot catalog = catalogService.current();
+        for (EntryTuple entry : entries) {
+            long foodItemId = entry.getFoodItemId();
+            if (!catalog.contains(foodItemId)) {
+                catalog = catalogService.covering(foodItemId);
+            }
+            catalog.addTo(totals, foodItemId, entry.portion());
         }
+        return buildAnalysis(totals, entries.size(), days, user);
+    }
+
+    /**
+     * Build the analysis from already-accumulated nutrient totals.
+     */
+    private NutrientAnalysisDTO buildAnalysis(NutrientVector totals, int mealCount, int days, User user) {
+        NutrientAnalysisDTO dto = new NutrientAnalysisDTO();
+        dto.setMealCount(mealCount);
+
+        double calories = totals.get(Nutrient.CALORIES);
+        double protein = totals.get(Nutrient.PROTEIN);
+        double carbs = totals.get(Nutrient.CARBOHYDRATES);
+        double fat = totals.get(Nutrient.FAT);
+        double fiber = totals.get(Nutrient.FIBER);
+        double vitA = totals.get(Nutrient.VITAMIN_A);
+        double vitC = totals.get(Nutrient.VITAMIN_C);
+        double vitD = totals.get(Nutrient.VITAMIN_D);
+        double vitE = totals.get(Nutrient.VITAMIN_E);
+        double vitK = totals.get(Nutrient.VITAMIN_K);
+        double vitB12 = totals.get(Nutrient.VITAMIN_B12);
+        double calcium = totals.get(Nutrient.CALCIUM);
+        double iron = totals.get(Nutrient.IRON);
+        double magnesium = totals.get(Nutrient.MAGNESIUM);
+        double zinc = totals.get(Nutrient.ZINC);
+        double potassium = totals.get(Nutrient.POTASSIUM);
 
         // Average per day when looking at a multi-day period
         double d = days;
         dto.setTotalCalories(calories / d);
 
-        // ── BMI-adjusted Recommended Daily Values ──
-        // Base values (adult approximate)
-        double recProtein = 50, recCarbs = 275, recFat = 78, recFiber = 28;
-        double recVitA = 900, recVitC = 90, recVitD = 20, recVitE = 15, recVitK = 120, recVitB12 = 2.4;
-        double recCalcium = 1000, recIron = 18, recMagnesium = 400, recZinc = 11, recPotassium = 2600;
-
-        // Adjust RDAs based on user's BMI profile
-        if (user != null && user.getBmi() != null) {
-            Double bmi = user.getBmi();
-            if (bmi < 18.5) {
-                // Underweight: boost calories & protein to encourage healthy weight gain
-                recProtein *= 1.3;   // +30% protein
-                recCarbs *= 1.2;     // +20% carbs
-                recFat *= 1.1;       // +10% fat
-                recCalcium *= 1.15;  // bone support
-                recIron *= 1.1;
-            } else if (bmi >= 25 && bmi < 30) {
-                // Overweight: moderate reduction in calorie-dense macros
-                recCarbs *= 0.85;    // -15% carbs
-                recFat *= 0.85;      // -15% fat
-                recProtein *= 1.1;   // slightly more protein for satiety
-                recFiber *= 1.15;    // +15% fiber for fullness
-            } else if (bmi >= 30) {
-                // Obese: more significant reduction, higher protein & fiber
-                recCarbs *= 0.75;    // -25% carbs
-                recFat *= 0.75;      // -25% fat
-                recProtein *= 1.2;   // +20% protein for satiety & muscle preservation
-                recFiber *= 1.25;    // +25% fiber
-                recVitD *= 1.3;      // obese individuals often low in Vit D
-            }
-            // Normal weight (18.5-25): keep defaults
-        }
+        // ── Personalised Recommended Daily Values (age group × BMI category) ──
+        Requirements req = requirementService.forUser(user);
+        double recProtein = req.get(Nutrient.PROTEIN), recCarbs = req.get(Nutrient.CARBOHYDRATES);
+        double recFat = req.get(Nutrient.FAT), recFiber = req.get(Nutrient.FIBER);
+        double recVitA = req.get(Nutrient.VITAMIN_A), recVitC = req.get(Nutrient.VITAMIN_C);
+        double recVitD = req.get(Nutrient.VITAMIN_D), recVitE = req.get(Nutrient.VITAMIN_E);
+        double recVitK = req.get(Nutrient.VITAMIN_K), recVitB12 = req.get(Nutrient.VITAMIN_B12);
+        double recCalcium = req.get(Nutrient.CALCIUM), recIron = req.get(Nutrient.IRON);
+        double recMagnesium = req.get(Nutrient.MAGNESIUM), recZinc = req.get(Nutrient.ZINC);
+        double recPotassium = req.get(Nutrient.POTASSIUM);
 
         // Macronutrients
         List<NutrientDetail> macros = new ArrayList<>();
@@ -0,0 +1,598 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.nutrition.dietbalancetracker.model.FoodCategory;
+import com.nutrition.dietbalancetracker.model.FoodItem;
+import com.nutrition.dietbalancetracker.model.Nutrient;
+import com.nutrition.dietbalancetracker.model.NutrientProfile;
+import com.nutrition.dietbalancetracker.repository.FoodItemRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * NUTRIENT CATALOG SERVICE
+ * ========================
+ * Holds an immutable in-memory snapshot of the food catalog's nutrient
+ * values so aggregation code never reaches through Hibernate entities.
+ *
+ * The snapshot stores every food's 16 nutrient values (per serving) in one
+ * dense row-major double[] matrix; a foodItemId → row index array gives
+ * O(1) lookups. With the snapshot, aggregation only needs
+ * (foodItemId, portionSize, consumedAt, mealType) tuples from the database.
+ *
+ * Each snapshot also carries a {@link FoodSearchIndex} over the active
+ * foods, derived incrementally from the previous snapshot's index, and a
+ * {@link NutrientRangeIndex} (per-nutrient sorted columns and bitmaps) for
+ * nutrient range queries. Rows are laid out in ascending foodItemId order.
+ *
+ * The catalog only changes on reseed or food edits. Writers call
+ * {@link #refresh()} (or {@link #refreshAfterCommit()} inside a transaction):
+ * a new snapshot is built off to the side and published with a single
+ * volatile write, so readers always see a complete, consistent catalog.
+ * Any other committed FoodItem/NutrientProfile change (seen through
+ * Hibernate post-commit events) records the food's id, and the next
+ * {@link #current()} re-reads only those foods and patches a copy of the
+ * snapshot: changed rows are replaced, rows of new foods appended and rows
+ * of deleted foods emptied, and the range index merges just those rows
+ * into its sorted columns. A patch still copies the snapshot's arrays and
+ * re-diffs every food's search text (no query, but O(catalog) memory
+ * work); a full reload happens on {@link #refresh()}, when a change cannot
+ * be tied to a food, when a new food's id falls below the last row, or
+ * once a quarter of the rows belong to deleted foods.
+ *
+ * Every snapshot carries a content version (a sum of per-food SHA-256
+ * prefixes, so a patch only re-hashes the changed rows) and the time that
+ * content first appeared; the catalog endpoints serve them as ETag and
+ * Last-Modified.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class NutrientCatalogService implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private final FoodItemRepository foodItemRepository;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private volatile Snapshot snapshot;
+    private volatile boolean stale;
+    private final Set<Long> changedIds = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /** Build the first snapshot once the app (and DataInitializer) is up. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
+    }
+
+    /** The current snapshot (built on first use, or patched after a catalog change, if needed). */
+    public Snapshot current() {
+        Snapshot s = snapshot;
+        if (s != null && !stale && changedIds.isEmpty()) {
+            return s;
+        }
+        synchronized (this) {
+            if (snapshot == null || stale) {
+                return refresh();
+            }
+            return changedIds.isEmpty() ? snapshot : applyChanges();
+        }
+    }
+
+    /**
+     * A snapshot that contains the given food if it exists. An id newer than
+     * anything in the current snapshot (a food created since the last refresh)
+     * is first checked with a primary-key lookup, and only a food that really
+     * exists is loaded and patched in: unknown ids, deleted or made up, cost
+     * one indexed select and never a catalog reload.
+     */
+    public Snapshot covering(long foodItemId) {
+        Snapshot s = current();
+        if (s.contains(foodItemId) || foodItemId <= s.maxId || !foodItemRepository.existsById(foodItemId)) {
+            return s;
+        }
+        synchronized (this) {
+            if (snapshot.contains(foodItemId)) {
+                return snapshot;
+            }
+            changedIds.add(foodItemId);
+            return applyChanges();
+        }
+    }
+
+    /** Rebuild from the database and atomically swap in the new snapshot. */
+    public synchronized Snapshot refresh() {
+        stale = false; // cleared first: a change committed while loading marks it stale again
+        changedIds.clear(); // likewise: ids recorded from here on are patched into the new snapshot
+        Snapshot previous = snapshot;
+        Snapshot fresh = Snapshot.of(foodItemRepository.findAllWithNutrientProfile(), previous);
+        snapshot = fresh;
+        log.info("Nutrient catalog snapshot rebuilt: {} foods ({} searchable), version {}",
+                fresh.size(), fresh.searchIndex.size(), fresh.version());
+        return fresh;
+    }
+
+    /** Re-read the recorded foods and patch them into the snapshot (or rebuild it when a patch cannot). */
+    private Snapshot applyChanges() {
+        List<Long> ids = new ArrayList<>(changedIds);
+        changedIds.removeAll(ids); // before loading: an id changed again meanwhile stays recorded
+        Snapshot patched = snapshot.patch(ids, foodItemRepository.findAllWithNutrientProfileByIdIn(ids));
+        if (patched == null) {
+            return refresh();
+        }
+        snapshot = patched;
+        log.debug("Nutrient catalog snapshot patched: {} foods changed, version {}", ids.size(), patched.version());
+        return patched;
+    }
+
+    /** Refresh once the current transaction commits (immediately if there is none). */
+    public void refreshAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh();
+                }
+            });
+        } else {
+            refresh();
+        }
+    }
+
+    /* ============ Hibernate post-commit events ============ */
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return FoodItem.class.equals(type) || NutrientProfile.class.equals(type);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        recordChange(event.getPersister(), event.getId(), event.getState());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        recordChange(event.getPersister(), event.getId(), event.getState(), event.getOldState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        recordChange(event.getPersister(), event.getId(), event.getDeletedState());
+    }
+
+    /**
+     * Record which food a committed change touched: the entity's own id for a
+     * FoodItem, the owning food's id for a NutrientProfile. A profile change
+     * whose food cannot be read from the event marks the whole snapshot stale.
+     */
+    private void recordChange(EntityPersister persister, Object id, Object[]... states) {
+        Class<?> type = persister.getMappedClass();
+        if (FoodItem.class.equals(type)) {
+            if (id instanceof Long foodItemId) {
+                changedIds.add(foodItemId);
+            } else {
+                stale = true;
+            }
+        } else if (NutrientProfile.class.equals(type)) {
+            boolean found = false;
+            int property = Arrays.asList(persister.getPropertyNames()).indexOf("foodItem");
+            for (Object[] state : states) {
+                if (property >= 0 && state != null && state[property] instanceof FoodItem food
+                        && food.getId() != null) {
+                    changedIds.add(food.getId());
+                    found = true;
+                }
+            }
+            if (!found) {
+                stale = true;
+            }
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    /**
+     * Immutable catalog snapshot. Row r holds a food's nutrients at
+     * values[r * SIZE .. r * SIZE + SIZE - 1], in Nutrient ordinal order.
+     * Foods without a nutrient profile have an all-zero row. Rows are in
+     * ascending foodItemId order; a patched snapshot may hold rows of deleted
+     * foods (inactive, not reachable by id) until the next full build.
+     */
+    public static final class Snapshot {
+
+        private static final int SIZE = NutrientVector.SIZE;
+        private static final Nutrient[] NUTRIENTS = Nutrient.values();
+
+        /** Above this share of deleted-food rows, a patch gives way to a full build. */
+        private static final double DEAD_ROW_RATIO = 0.25;
+
+        private final Rows rows;
+        private final long maxId;
+        private final FoodSearchIndex searchIndex;
+        private final NutrientRangeIndex rangeIndex;
+        private final String version;
+        private final Instant lastModified;
+
+        private Snapshot(Rows rows, FoodSearchIndex searchIndex, NutrientRangeIndex rangeIndex, Snapshot previous) {
+            this.rows = rows;
+            this.maxId = rows.rowById.length - 1;
+            this.searchIndex = searchIndex;
+            this.rangeIndex = rangeIndex;
+            this.version = String.format("%016x%016x", rows.hashHi, rows.hashLo);
+            this.lastModified = previous != null && previous.version.equals(version)
+                    ? previous.lastModified
+                    : Instant.now().truncatedTo(ChronoUnit.SECONDS); // HTTP dates have second precision
+        }
+
+        /**
+         * @param previous the snapshot being replaced (null on the first build); only the foods
+         *                 whose text changed are re-indexed, and its lastModified is kept when
+         *                 the content is identical
+         */
+        static Snapshot of(List<FoodItem> foods, Snapshot previous) {
+            foods = new ArrayList<>(foods);
+            foods.sort(Comparator.comparing(FoodItem::getId)); // row order = id order (range query output)
+            long maxId = 0;
+            for (FoodItem f : foods) {
+                maxId = Math.max(maxId, f.getId());
+            }
+            Rows rows = new Rows(foods.size(), maxId);
+            for (int r = 0; r < foods.size(); r++) {
+                rows.set(r, foods.get(r));
+            }
+            return new Snapshot(rows,
+                    FoodSearchIndex.update(previous != null ? previous.searchIndex : null, rows.searchable()),
+                    NutrientRangeIndex.of(rows.values, rows.idByRow, rows.active, rows.categories),
+                    previous);
+        }
+
+        /**
+         * A copy of this snapshot with the given foods re-read: rows of foods in
+         * {@code loaded} are replaced (or appended, for ids above the last row),
+         * rows of requested ids missing from it are dropped. Only the changed
+         * rows are hashed, and the range index is patched rather than re-sorted.
+         *
+         * @param ids    foods that changed
+         * @param loaded the current state of those of them that still exist
+         * @return the patched snapshot, or null when a full build is needed (a new
+         *         id below the last row, or too many deleted-food rows)
+         */
+        Snapshot patch(Collection<Long> ids, List<FoodItem> loaded) {
+            Map<Long, FoodItem> byId = new HashMap<>();
+            for (FoodItem f : loaded) {
+                byId.put(f.getId(), f);
+            }
+            int oldRows = rows.idByRow.length;
+            long lastId = oldRows == 0 ? 0 : rows.idByRow[oldRows - 1];
+            List<Long> existing = new ArrayList<>();
+            List<FoodItem> appended = new ArrayList<>();
+            for (Long id : new TreeSet<>(ids)) {
+                FoodItem f = byId.get(id);
+                if (contains(id)) {
+                    existing.add(id);
+                } else if (f == null) {
+                    continue; // gone before this snapshot ever held it
+                } else if (id > lastId) {
+                    appended.add(f); // ascending: rows stay in id order
+                } else {
+                    return null;
+                }
+            }
+            long newMaxId = appended.isEmpty() ? maxId : Math.max(maxId, appended.get(appended.size() - 1).getId());
+            Rows patched = rows.copy(oldRows + appended.size(), newMaxId);
+            int[] changedRows = new int[existing.size() + appended.size()];
+            int n = 0;
+            for (Long id : existing) {
+                int r = row(id);
+                FoodItem f = byId.get(id);
+                if (f != null) {
+                    patched.set(r, f);
+                } else {
+                    patched.remove(r);
+                }
+                changedRows[n++] = r;
+            }
+            for (int i = 0; i < appended.size(); i++) {
+                patched.set(oldRows + i, appended.get(i));
+                changedRows[n++] = oldRows + i;
+            }
+            if (patched.idByRow.length - patched.size > DEAD_ROW_RATIO * Math.max(patched.idByRow.length, 1)) {
+                return null;
+            }
+            return new Snapshot(patched,
+                    FoodSearchIndex.update(searchIndex, patched.searchable()),
+                    NutrientRangeIndex.update(rangeIndex, patched.values, patched.idByRow, patched.active,
+                            patched.categories, changedRows),
+                    this);
+        }
+
+        /** Content version: equal for snapshots with identical catalog data. */
+        public String version() {
+            return version;
+        }
+
+        /** When this content version was first built. */
+        public Instant lastModified() {
+            return lastModified;
+        }
+
+        /** Number of foods in the snapshot. */
+        public int size() {
+            return rows.size;
+        }
+
+        public boolean contains(long foodItemId) {
+            return row(foodItemId) >= 0;
+        }
+
+        /**
+         * Add one food's nutrients × portion into a vector.
+         *
+         * @return false when the food is not in the snapshot (nothing added)
+         */
+        public boolean addTo(NutrientVector target, long foodItemId, double portion) {
+            int r = row(foodItemId);
+            if (r < 0) return false;
+            target.addScaled(rows.values, r * SIZE, portion);
+            return true;
+        }
+
+        /** Per-serving value of one nutrient (0 when the food is unknown). */
+        public double get(long foodItemId, Nutrient nutrient) {
+            int r = row(foodItemId);
+            return r < 0 ? 0 : rows.values[r * SIZE + nutrient.ordinal()];
+        }
+
+        /** Food name, or "Unknown" when the food is not in the snapshot. */
+        public String name(long foodItemId) {
+            int r = row(foodItemId);
+            return r < 0 ? "Unknown" : rows.names[r];
+        }
+
+        /** Food description (may be null). */
+        public String description(long foodItemId) {
+            int r = row(foodItemId);
+            return r < 0 ? null : rows.descriptions[r];
+        }
+
+        /** Food category, or null when the food is not in the snapshot. */
+        public FoodCategory category(long foodItemId) {
+            int r = row(foodItemId);
+            return r < 0 ? null : rows.categories[r];
+        }
+
+        /** Serving size of the food's nutrient profile (0 when unknown). */
+        public double servingSize(long foodItemId) {
+            int r = row(foodItemId);
+            return r < 0 ? 0 : rows.servingSizes[r];
+        }
+
+        public boolean isActive(long foodItemId) {
+            int r = row(foodItemId);
+            return r >= 0 && rows.active[r];
+        }
+
+        /** Ids of all active foods, ascending. */
+        public long[] activeIds() {
+            int[] rowById = rows.rowById;
+            long[] ids = new long[rowById.length];
+            int n = 0;
+            for (int id = 0; id < rowById.length; id++) {
+                int r = rowById[id];
+                if (r >= 0 && rows.active[r]) ids[n++] = id;
+            }
+            return Arrays.copyOf(ids, n);
+        }
+
+        /** Name/description search over the active foods of this snapshot. */
+        public FoodSearchIndex searchIndex() {
+            return searchIndex;
+        }
+
+        /** Nutrient range / density queries over the active foods of this snapshot. */
+        public NutrientRangeIndex rangeIndex() {
+            return rangeIndex;
+        }
+
+        private int row(long foodItemId) {
+            return foodItemId >= 0 && foodItemId < rows.rowById.length ? rows.rowById[(int) foodItemId] : -1;
+        }
+
+        /**
+         * The column arrays of a snapshot while it is being built or patched,
+         * plus a content hash kept as the sum of per-row SHA-256 prefixes, so
+         * replacing a row only re-hashes that row.
+         */
+        private static final class Rows {
+
+            private final int[] rowById;     // index = foodItemId, -1 = not in catalog
+            private final long[] idByRow;
+            private final double[] values;   // rows × SIZE
+            private final String[] names;
+            private final String[] descriptions;
+            private final FoodCategory[] categories;
+            private final double[] servingSizes;
+            private final boolean[] active;
+            private final long[] hashes;     // two longs per row, 0 for a deleted food's row
+            private long hashHi;
+            private long hashLo;
+            private int size;                // rows holding a food
+            private MessageDigest digest;
+
+            Rows(int rows, long maxId) {
+                rowById = new int[Math.toIntExact(maxId + 1)];
+                Arrays.fill(rowById, -1);
+                idByRow = new long[rows];
+                values = new double[rows * SIZE];
+                names = new String[rows];
+                descriptions = new String[rows];
+                categories = new FoodCategory[rows];
+                servingSizes = new double[rows];
+                active = new boolean[rows];
+                hashes = new long[2 * rows];
+            }
+
+            private Rows(Rows from, int rows, long maxId) {
+                rowById = Arrays.copyOf(from.rowById, Math.toIntExact(maxId + 1));
+                Arrays.fill(rowById, from.rowById.length, rowById.length, -1);
+                idByRow = Arrays.copyOf(from.idByRow, rows);
+                values = Arrays.copyOf(from.values, rows * SIZE);
+                names = Arrays.copyOf(from.names, rows);
+                descriptions = Arrays.copyOf(from.descriptions, rows);
+                categories = Arrays.copyOf(from.categories, rows);
+                servingSizes = Arrays.copyOf(from.servingSizes, rows);
+                active = Arrays.copyOf(from.active, rows);
+                hashes = Arrays.copyOf(from.hashes, 2 * rows);
+                hashHi = from.hashHi;
+                hashLo = from.hashLo;
+                size = from.size;
+            }
+
+            /** A copy with room for the given number of rows and ids up to maxId. */
+            Rows copy(int rows, long maxId) {
+                return new Rows(this, rows, maxId);
+            }
+
+            /** Put a food into row r (new or replacing the food already there). */
+            void set(int r, FoodItem f) {
+                if (rowById[f.getId().intValue()] != r) {
+                    size++;
+                }
+                unhash(r);
+                rowById[f.getId().intValue()] = r;
+                idByRow[r] = f.getId();
+                names[r] = f.getName();
+                descriptions[r] = f.getDescription();
+                categories[r] = f.getCategory();
+                active[r] = Boolean.TRUE.equals(f.getIsActive());
+                NutrientProfile np = f.getNutrientProfile();
+                servingSizes[r] = np != null && np.getServingSize() != null ? np.getServingSize() : 0;
+                int base = r * SIZE;
+                for (Nutrient n : NUTRIENTS) {
+                    values[base + n.ordinal()] = np != null ? NutrientVector.read(np, n) : 0;
+                }
+                hash(r);
+            }
+
+            /** Empty row r (its food was deleted); the row keeps its place in id order. */
+            void remove(int r) {
+                unhash(r);
+                rowById[(int) idByRow[r]] = -1;
+                names[r] = null;
+                descriptions[r] = null;
+                categories[r] = null;
+                active[r] = false;
+                servingSizes[r] = 0;
+                Arrays.fill(values, r * SIZE, r * SIZE + SIZE, 0);
+                size--;
+            }
+
+            /** Every active food, for the search index. */
+            List<FoodSearchIndex.Food> searchable() {
+                List<FoodSearchIndex.Food> foods = new ArrayList<>(size);
+                for (int r = 0; r < idByRow.length; r++) {
+                    if (active[r]) {
+                        foods.add(new FoodSearchIndex.Food(
+                                (int) idByRow[r], names[r], descriptions[r], categories[r]));
+                    }
+                }
+                return foods;
+            }
+
+            private void unhash(int r) {
+                hashHi -= hashes[2 * r];
+                hashLo -= hashes[2 * r + 1];
+                hashes[2 * r] = 0;
+                hashes[2 * r + 1] = 0;
+            }
+
+            /** First 128 bits of a SHA-256 over one row, added into the content hash. */
+            private void hash(int r) {
+                if (digest == null) {
+                    try {
+                        digest = MessageDigest.getInstance("SHA-256");
+                    } catch (NoSuchAlgorithmException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                ByteBuffer row = ByteBuffer.allocate(8 + 4 + 1 + 8 + SIZE * 8);
+                row.putLong(idByRow[r]);
+                row.putInt(categories[r] != null ? categories[r].ordinal() : -1);
+                row.put((byte) (active[r] ? 1 : 0));
+                row.putDouble(servingSizes[r]);
+                for (int i = 0; i < SIZE; i++) {
+                    row.putDouble(values[r * SIZE + i]);
+                }
+                digest.update(row.array(), 0, row.position());
+                updateString(digest, names[r]);
+                updateString(digest, descriptions[r]);
+                ByteBuffer sum = ByteBuffer.wrap(digest.digest());
+                hashes[2 * r] = sum.getLong();
+                hashes[2 * r + 1] = sum.getLong();
+                hashHi += hashes[2 * r];
+                hashLo += hashes[2 * r + 1];
+            }
+
+            private static void updateString(MessageDigest digest, String value) {
+                byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+                digest.update(ByteBuffer.allocate(4).putInt(value != null ? bytes.length : -1).array());
+                digest.update(bytes);
+            }
+        }
+    }
+}
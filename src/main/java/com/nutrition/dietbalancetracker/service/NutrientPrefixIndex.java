@@ -0,0 +1,92 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import com.nutrition.dietbalancetracker.model.DailyNutrientRollup;
+import com.nutrition.dietbalancetracker.model.Nutrient;
+
+/**
+ * NUTRIENT PREFIX INDEX
+ * =====================
+ * Immutable per-user cumulative sums over daily rollup rows, so the nutrient
+ * totals of any date range are the difference of two prefix rows.
+ *
+ * Only days with entries are stored (sorted epoch days); a range query is two
+ * binary searches plus one 16-value subtraction, O(log activeDays), no matter
+ * how many years the range spans.
+ *
+ * Layout: prefix row i (i = 0..days) holds the sum of the first i active days,
+ * at prefix[i * SIZE .. i * SIZE + SIZE - 1] in Nutrient ordinal order.
+ *
+ * Building one reads the user's whole rollup history. The index is never
+ * patched: NutrientAnalysisService keeps it in the AnalysisResultCache, so
+ * any write by the user (and each midnight) means a full rebuild on the next
+ * range query.
+ */
+public final class NutrientPrefixIndex {
+
+    private static final int SIZE = NutrientVector.SIZE;
+    private static final Nutrient[] NUTRIENTS = Nutrient.values();
+
+    private final long[] epochDays;      // active days, ascending
+    private final double[] prefix;       // (days + 1) × SIZE
+    private final int[] prefixEntries;   // days + 1
+
+    private NutrientPrefixIndex(long[] epochDays, double[] prefix, int[] prefixEntries) {
+        this.epochDays = epochDays;
+        this.prefix = prefix;
+        this.prefixEntries = prefixEntries;
+    }
+
+    /** Build from one user's rollup rows, oldest first. */
+    public static NutrientPrefixIndex of(List<DailyNutrientRollup> rows) {
+        int days = rows.size();
+        long[] epochDays = new long[days];
+        double[] prefix = new double[(days + 1) * SIZE];
+        int[] prefixEntries = new int[days + 1];
+
+        for (int i = 0; i < days; i++) {
+            DailyNutrientRollup r = rows.get(i);
+            epochDays[i] = r.getRollupDate().toEpochDay();
+            int prev = i * SIZE;
+            int next = prev + SIZE;
+            for (Nutrient n : NUTRIENTS) {
+                prefix[next + n.ordinal()] = prefix[prev + n.ordinal()] + r.getNutrient(n);
+            }
+            prefixEntries[i + 1] = prefixEntries[i] + r.getEntryCount();
+        }
+        return new NutrientPrefixIndex(epochDays, prefix, prefixEntries);
+    }
+
+    /** Number of active days in the whole history. */
+    public int size() {
+        return epochDays.length;
+    }
+
+    /**
+     * Add the nutrient totals of [from, to] (inclusive) into a vector.
+     *
+     * @return entry count and active-day count of the range
+     */
+    public RangeSum sumInto(LocalDate from, LocalDate to, NutrientVector target) {
+        int lo = lowerBound(from.toEpochDay());
+        int hi = lowerBound(to.toEpochDay() + 1);
+        if (hi <= lo) {
+            return new RangeSum(0, 0);
+        }
+        target.addScaled(prefix, hi * SIZE, 1.0);
+        target.addScaled(prefix, lo * SIZE, -1.0);
+        return new RangeSum(prefixEntries[hi] - prefixEntries[lo], hi - lo);
+    }
+
+    /** Index of the first active day >= epochDay. */
+    private int lowerBound(long epochDay) {
+        int i = Arrays.binarySearch(epochDays, epochDay);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    /** Entry and active-day counts for a queried range. */
+    public record RangeSum(int entryCount, int activeDays) {}
+}
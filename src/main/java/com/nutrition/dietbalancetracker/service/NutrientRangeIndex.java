@@ -0,0 +1,378 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.nutrition.dietbalancetracker.model.FoodCategory;
+import com.nutrition.dietbalancetracker.model.Nutrient;
+
+/**
+ * NUTRIENT RANGE INDEX
+ * ====================
+ * Answers "foods with iron >= 2 and calories <= 150, highest protein per
+ * kcal first" over the active foods of a catalog snapshot without touching
+ * entities.
+ *
+ * Columns: each of the 16 nutrients per serving, plus each nutrient per kcal
+ * (nutrient density). For every column the active rows are stored sorted by
+ * value (int[] of snapshot rows); values themselves are read from the
+ * snapshot's row-major matrix, and densities are value / calories (rows with
+ * no calories have no density and are left out of density columns). The
+ * sorted orders, density ones included, are built once per snapshot, or
+ * patched from the previous snapshot's when only a few rows changed
+ * ({@link #update}).
+ *
+ * Query:
+ * - each range predicate is two binary searches in its column's order; the
+ *   matching slice (or, when that is over half the column, its complement)
+ *   is turned into a bitmap over snapshot rows;
+ * - predicates and the category filter are combined by AND-ing bitmaps
+ *   word by word;
+ * - sorted output walks the sort column's precomputed order and keeps rows
+ *   whose bit is set, stopping at the limit. No per-query sort. Equal values
+ *   come out in ascending id either way (descending walks runs of equal
+ *   values backwards, each run forwards).
+ */
+public final class NutrientRangeIndex {
+
+    private static final int SIZE = NutrientVector.SIZE;
+    private static final Nutrient[] NUTRIENTS = Nutrient.values();
+    private static final Map<String, Column> COLUMNS_BY_NAME = new HashMap<>();
+
+    static {
+        for (Nutrient n : NUTRIENTS) {
+            for (boolean perKcal : new boolean[] { false, true }) {
+                Column c = new Column(n, perKcal);
+                COLUMNS_BY_NAME.put(c.name().toLowerCase(Locale.ROOT), c);
+            }
+        }
+    }
+
+    /** One queryable column: a nutrient per serving, or per kcal. */
+    public record Column(Nutrient nutrient, boolean perKcal) {
+
+        /** Query-parameter name: "iron", "vitaminB12", "proteinPerKcal". */
+        public String name() {
+            StringBuilder camel = new StringBuilder();
+            for (String part : nutrient.name().toLowerCase(Locale.ROOT).split("_")) {
+                camel.append(camel.length() == 0 ? part : Character.toUpperCase(part.charAt(0)) + part.substring(1));
+            }
+            return perKcal ? camel + "PerKcal" : camel.toString();
+        }
+
+        private int index() {
+            return nutrient.ordinal() + (perKcal ? SIZE : 0);
+        }
+    }
+
+    /** Inclusive value range on one column (use infinities for open ends). */
+    public record Range(Column column, double min, double max) {}
+
+    /** Matching food count and the ids of the requested page, in output order. */
+    public record Result(int total, long[] ids) {}
+
+    private final double[] values;        // snapshot matrix: row r at values[r * SIZE ..]
+    private final long[] idByRow;
+    private final long[] activeBits;
+    private final int[][] order;          // [column] rows with a value, ascending by value
+    private final long[][] validBits;     // [column] rows present in order[column]
+    private final Map<FoodCategory, long[]> categoryBits;
+
+    private NutrientRangeIndex(double[] values, long[] idByRow, long[] activeBits, int[][] order,
+                               long[][] validBits, Map<FoodCategory, long[]> categoryBits) {
+        this.values = values;
+        this.idByRow = idByRow;
+        this.activeBits = activeBits;
+        this.order = order;
+        this.validBits = validBits;
+        this.categoryBits = categoryBits;
+    }
+
+    /** Column for a query-parameter name (case-insensitive), or null when unknown. */
+    public static Column column(String name) {
+        return COLUMNS_BY_NAME.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Build over a snapshot's rows.
+     *
+     * @param values  row-major nutrient matrix (rows × SIZE)
+     * @param idByRow foodItemId of each row
+     * @param active  rows that may be returned
+     */
+    static NutrientRangeIndex of(double[] values, long[] idByRow, boolean[] active, FoodCategory[] categories) {
+        int rows = idByRow.length;
+        int words = (rows + 63) >>> 6;
+        long[] activeBits = new long[words];
+        Map<FoodCategory, long[]> categoryBits = new EnumMap<>(FoodCategory.class);
+        for (int r = 0; r < rows; r++) {
+            if (!active[r]) continue;
+            set(activeBits, r);
+            if (categories[r] != null) {
+                set(categoryBits.computeIfAbsent(categories[r], c -> new long[words]), r);
+            }
+        }
+
+        int[][] order = new int[2 * SIZE][];
+        long[][] validBits = new long[2 * SIZE][];
+        int calories = Nutrient.CALORIES.ordinal();
+        for (Nutrient n : NUTRIENTS) {
+            for (boolean perKcal : new boolean[] { false, true }) {
+                int c = n.ordinal() + (perKcal ? SIZE : 0);
+                long[] valid = new long[words];
+                double[] keys = new double[rows];
+                int[] keyRows = new int[rows];
+                int m = 0;
+                for (int r = 0; r < rows; r++) {
+                    if (!active[r] || (perKcal && !(values[r * SIZE + calories] > 0))) continue;
+                    keys[m] = value(values, r, n.ordinal(), perKcal);
+                    keyRows[m++] = r;
+                    set(valid, r);
+                }
+                order[c] = sortRowsByKey(Arrays.copyOf(keys, m), keyRows);
+                validBits[c] = valid;
+            }
+        }
+        return new NutrientRangeIndex(values, idByRow, activeBits, order, validBits, categoryBits);
+    }
+
+    /**
+     * Patch the previous snapshot's index for a few changed rows: each
+     * column's order drops the changed rows and merges them back in at their
+     * new values (O(rows) per column, no sort of the whole column). Rows keep
+     * their numbers; rows past the previous end are new.
+     *
+     * @param changedRows rows whose values, activity or category changed, or that were appended
+     */
+    static NutrientRangeIndex update(NutrientRangeIndex previous, double[] values, long[] idByRow,
+                                     boolean[] active, FoodCategory[] categories, int[] changedRows) {
+        int rows = idByRow.length;
+        int words = (rows + 63) >>> 6;
+        int[] changed = changedRows.clone();
+        Arrays.sort(changed);
+
+        long[] activeBits = Arrays.copyOf(previous.activeBits, words);
+        Map<FoodCategory, long[]> categoryBits = new EnumMap<>(FoodCategory.class);
+        previous.categoryBits.forEach((c, bits) -> categoryBits.put(c, Arrays.copyOf(bits, words)));
+        for (int r : changed) {
+            clear(activeBits, r);
+            categoryBits.values().forEach(bits -> clear(bits, r));
+            if (!active[r]) continue;
+            set(activeBits, r);
+            if (categories[r] != null) {
+                set(categoryBits.computeIfAbsent(categories[r], c -> new long[words]), r);
+            }
+        }
+
+        int[][] order = new int[2 * SIZE][];
+        long[][] validBits = new long[2 * SIZE][];
+        int calories = Nutrient.CALORIES.ordinal();
+        for (Nutrient n : NUTRIENTS) {
+            for (boolean perKcal : new boolean[] { false, true }) {
+                int c = n.ordinal() + (perKcal ? SIZE : 0);
+                long[] valid = Arrays.copyOf(previous.validBits[c], words);
+                double[] keys = new double[changed.length];
+                int[] keyRows = new int[changed.length];
+                int m = 0;
+                for (int r : changed) {
+                    clear(valid, r);
+                    if (!active[r] || (perKcal && !(values[r * SIZE + calories] > 0))) continue;
+                    keys[m] = value(values, r, n.ordinal(), perKcal);
+                    keyRows[m++] = r;
+                    set(valid, r);
+                }
+                int[] added = sortRowsByKey(Arrays.copyOf(keys, m), Arrays.copyOf(keyRows, m));
+                order[c] = merge(previous.order[c], changed, added, values, n.ordinal(), perKcal);
+                validBits[c] = valid;
+            }
+        }
+        return new NutrientRangeIndex(values, idByRow, activeBits, order, validBits, categoryBits);
+    }
+
+    /**
+     * Foods matching every range (and the category, if given), in the order
+     * of the sort column (null = snapshot row order, i.e. ascending id),
+     * ties in ascending id. Foods without a value in the sort column (no
+     * calories, for densities) come last.
+     */
+    public Result query(List<Range> ranges, FoodCategory category, Column sort, boolean descending, int limit) {
+        long[] bits;
+        if (category != null) {
+            long[] own = categoryBits.get(category);
+            if (own == null) return new Result(0, new long[0]);
+            bits = own.clone();
+        } else {
+            bits = activeBits.clone();
+        }
+        for (Range range : ranges) {
+            and(bits, rangeBits(range));
+        }
+
+        int total = 0;
+        for (long word : bits) {
+            total += Long.bitCount(word);
+        }
+        int n = Math.min(total, Math.max(limit, 0));
+        long[] ids = new long[n];
+        int k = 0;
+        if (sort != null && n > 0) {
+            int[] sorted = order[sort.index()];
+            if (descending) {
+                // Walk runs of equal values from the top, each run forwards: ties stay in ascending id
+                int end = sorted.length;
+                while (end > 0 && k < n) {
+                    int start = end - 1;
+                    double v = value(sorted[start], sort);
+                    while (start > 0 && Double.compare(value(sorted[start - 1], sort), v) == 0) start--;
+                    for (int i = start; i < end && k < n; i++) {
+                        if (get(bits, sorted[i])) ids[k++] = idByRow[sorted[i]];
+                    }
+                    end = start;
+                }
+            } else {
+                for (int i = 0; i < sorted.length && k < n; i++) {
+                    if (get(bits, sorted[i])) ids[k++] = idByRow[sorted[i]];
+                }
+            }
+            andNot(bits, validBits[sort.index()]); // what is left has no value in the sort column
+        }
+        for (int w = 0; w < bits.length && k < n; w++) {
+            long word = bits[w];
+            while (word != 0 && k < n) {
+                int r = (w << 6) + Long.numberOfTrailingZeros(word);
+                ids[k++] = idByRow[r];
+                word &= word - 1;
+            }
+        }
+        return new Result(total, ids);
+    }
+
+    /** Per-serving or per-kcal value of one food (NaN density when it has no calories). */
+    public double value(int row, Column column) {
+        return value(values, row, column.nutrient().ordinal(), column.perKcal());
+    }
+
+    /* ============ Internals ============ */
+
+    /** Bitmap of rows whose value lies in [min, max], built from the smaller of slice and complement. */
+    private long[] rangeBits(Range range) {
+        int c = range.column().index();
+        int[] sorted = order[c];
+        int lo = lowerBound(sorted, range.column(), range.min());
+        int hi = Math.max(lo, upperBound(sorted, range.column(), range.max()));
+        long[] bits;
+        if (hi - lo <= sorted.length / 2) {
+            bits = new long[activeBits.length];
+            for (int i = lo; i < hi; i++) set(bits, sorted[i]);
+        } else {
+            bits = validBits[c].clone();
+            for (int i = 0; i < lo; i++) clear(bits, sorted[i]);
+            for (int i = hi; i < sorted.length; i++) clear(bits, sorted[i]);
+        }
+        return bits;
+    }
+
+    /** First position whose value is >= min. */
+    private int lowerBound(int[] sorted, Column column, double min) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (value(sorted[mid], column) < min) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** First position whose value is > max. */
+    private int upperBound(int[] sorted, Column column, double max) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (value(sorted[mid], column) <= max) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static double value(double[] values, int row, int nutrient, boolean perKcal) {
+        double v = values[row * SIZE + nutrient];
+        if (!perKcal) return v;
+        double kcal = values[row * SIZE + Nutrient.CALORIES.ordinal()];
+        return kcal > 0 ? v / kcal : Double.NaN;
+    }
+
+    /**
+     * Rows ordered by key without boxing: keys are replaced by their rank in
+     * the sorted key array, packed above the row index into a long, and the
+     * longs sorted.
+     */
+    private static int[] sortRowsByKey(double[] keys, int[] rows) {
+        double[] sortedKeys = keys.clone();
+        Arrays.sort(sortedKeys);
+        long[] packed = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            long rank = Arrays.binarySearch(sortedKeys, keys[i]);
+            packed[i] = (rank << 32) | rows[i];
+        }
+        Arrays.sort(packed);
+        int[] order = new int[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            order[i] = (int) packed[i];
+        }
+        return order;
+    }
+
+    /**
+     * The previous order without the changed rows, merged with the changed
+     * rows' new order; both are ascending by (value, row).
+     */
+    private static int[] merge(int[] before, int[] changed, int[] added, double[] values, int nutrient,
+                               boolean perKcal) {
+        int[] merged = new int[before.length + added.length];
+        int n = 0;
+        int j = 0;
+        for (int r : before) {
+            if (Arrays.binarySearch(changed, r) >= 0) continue;
+            double v = value(values, r, nutrient, perKcal);
+            while (j < added.length && precedes(values, added[j], r, v, nutrient, perKcal)) {
+                merged[n++] = added[j++];
+            }
+            merged[n++] = r;
+        }
+        while (j < added.length) {
+            merged[n++] = added[j++];
+        }
+        return Arrays.copyOf(merged, n);
+    }
+
+    private static boolean precedes(double[] values, int a, int b, double bValue, int nutrient, boolean perKcal) {
+        int cmp = Double.compare(value(values, a, nutrient, perKcal), bValue);
+        return cmp < 0 || (cmp == 0 && a < b);
+    }
+
+    private static void set(long[] bits, int row) {
+        bits[row >>> 6] |= 1L << row;
+    }
+
+    private static void clear(long[] bits, int row) {
+        bits[row >>> 6] &= ~(1L << row);
+    }
+
+    private static boolean get(long[] bits, int row) {
+        return (bits[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private static void and(long[] target, long[] other) {
+        for (int w = 0; w < target.length; w++) target[w] &= other[w];
+    }
+
+    private static void andNot(long[] target, long[] other) {
+        for (int w = 0; w < target.length; w++) target[w] &= ~other[w];
+    }
+}
@@ -0,0 +1,259 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.nutrition.dietbalancetracker.dto.DeficiencyThresholdDTO;
+import com.nutrition.dietbalancetracker.model.AgeGroup;
+import com.nutrition.dietbalancetracker.model.BmiCategory;
+import com.nutrition.dietbalancetracker.model.DeficiencyThreshold;
+import com.nutrition.dietbalancetracker.model.Nutrient;
+import com.nutrition.dietbalancetracker.model.User;
+import com.nutrition.dietbalancetracker.repository.DeficiencyThresholdRepository;
+import com.nutrition.dietbalancetracker.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * NUTRIENT REQUIREMENT SERVICE
+ * ============================
+ * Single source of recommended daily amounts for the analysis and chart
+ * services.
+ *
+ * - Base amounts per age group are built-in defaults, overridden by any
+ *   admin-configured DeficiencyThreshold row for that (age group, nutrient).
+ * - BMI adjustments (more protein when underweight, fewer calorie-dense
+ *   macros when overweight, ...) are applied once per BMI category.
+ * - Every (AgeGroup, BmiCategory) combination is precomputed into an
+ *   immutable {@link Requirements} vector; lookups are two array indexes.
+ * - Admin updates rebuild the whole table off to the side and publish it
+ *   with a single volatile write after the change commits.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class NutrientRequirementService {
+
+    private static final Nutrient[] NUTRIENTS = Nutrient.values();
+    private static final AgeGroup[] AGE_GROUPS = AgeGroup.values();
+    private static final BmiCategory[] BMI_CATEGORIES = BmiCategory.values();
+
+    /**
+     * Built-in daily amounts per age group, in Nutrient ordinal order:
+     * calories, protein g, carbs g, fat g, fiber g, vitamin A mcg, vitamin C mg,
+     * vitamin D mcg, vitamin E mg, vitamin K mcg, vitamin B12 mcg, calcium mg,
+     * iron mg, magnesium mg, zinc mg, potassium mg.
+     * Children's values follow the DRI tables; adults use the Daily Values.
+     */
+    private static final Map<AgeGroup, double[]> DEFAULTS = new EnumMap<>(AgeGroup.class);
+    static {
+        DEFAULTS.put(AgeGroup.AGE_1_3,   new double[] {1000, 13, 130, 33, 19, 300, 15, 15,  6,  30, 0.9,  700,  7,  80,  3, 2000});
+        DEFAULTS.put(AgeGroup.AGE_4_8,   new double[] {1400, 19, 130, 47, 25, 400, 25, 15,  7,  55, 1.2, 1000, 10, 130,  5, 2300});
+        DEFAULTS.put(AgeGroup.AGE_9_13,  new double[] {1800, 34, 130, 60, 28, 600, 45, 15, 11,  60, 1.8, 1300,  8, 240,  8, 2400});
+        DEFAULTS.put(AgeGroup.AGE_14_18, new double[] {2200, 52, 130, 73, 31, 800, 75, 15, 15,  75, 2.4, 1300, 13, 385, 10, 2650});
+        DEFAULTS.put(AgeGroup.ADULT,     new double[] {2000, 50, 275, 78, 28, 900, 90, 20, 15, 120, 2.4, 1000, 18, 420, 11, 2600});
+    }
+
+    private final DeficiencyThresholdRepository thresholdRepository;
+    private final UserRepository userRepository;
+    private final AnalysisResultCache resultCache;
+
+    private volatile Requirements[][] table;
+
+    /** Build the table once the app is up. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    /** Requirements for a user (ADULT / no BMI adjustment when the profile is incomplete). */
+    public Requirements forUser(User user) {
+        if (user == null) {
+            return get(AgeGroup.ADULT, BmiCategory.UNKNOWN);
+        }
+        return get(AgeGroup.fromAge(user.getAge()), BmiCategory.of(user.getBmi()));
+    }
+
+    public Requirements get(AgeGroup ageGroup, BmiCategory bmiCategory) {
+        Requirements[][] t = table;
+        if (t == null) {
+            t = reload();
+        }
+        return t[ageGroup.ordinal()][bmiCategory.ordinal()];
+    }
+
+    /** Recompute every (age group, BMI category) vector and swap the table in. */
+    public synchronized Requirements[][] reload() {
+        Map<AgeGroup, double[]> base = new EnumMap<>(AgeGroup.class);
+        Map<AgeGroup, boolean[]> critical = new EnumMap<>(AgeGroup.class);
+        for (AgeGroup g : AGE_GROUPS) {
+            base.put(g, DEFAULTS.get(g).clone());
+            critical.put(g, new boolean[NUTRIENTS.length]);
+        }
+        List<DeficiencyThreshold> thresholds = thresholdRepository.findAll();
+        for (DeficiencyThreshold t : thresholds) {
+            base.get(t.getAgeGroup())[t.getNutrient().ordinal()] = t.getDailyRequirement();
+            critical.get(t.getAgeGroup())[t.getNutrient().ordinal()] = Boolean.TRUE.equals(t.getIsCritical());
+        }
+
+        Requirements[][] fresh = new Requirements[AGE_GROUPS.length][BMI_CATEGORIES.length];
+        for (AgeGroup g : AGE_GROUPS) {
+            for (BmiCategory c : BMI_CATEGORIES) {
+                fresh[g.ordinal()][c.ordinal()] =
+                        new Requirements(g, c, adjustForBmi(base.get(g), c), critical.get(g));
+            }
+        }
+        table = fresh;
+        log.info("Nutrient requirement table rebuilt ({} admin thresholds)", thresholds.size());
+        return fresh;
+    }
+
+    /** Effective base (unadjusted) requirement of every nutrient in every age group. */
+    public List<DeficiencyThresholdDTO> listThresholds() {
+        Map<AgeGroup, Map<Nutrient, DeficiencyThreshold>> custom = new EnumMap<>(AgeGroup.class);
+        for (DeficiencyThreshold t : thresholdRepository.findAllByOrderByAgeGroupAscNutrientAsc()) {
+            custom.computeIfAbsent(t.getAgeGroup(), g -> new EnumMap<>(Nutrient.class)).put(t.getNutrient(), t);
+        }
+        List<DeficiencyThresholdDTO> result = new ArrayList<>();
+        for (AgeGroup g : AGE_GROUPS) {
+            Map<Nutrient, DeficiencyThreshold> rows = custom.getOrDefault(g, Map.of());
+            for (Nutrient n : NUTRIENTS) {
+                DeficiencyThreshold t = rows.get(n);
+                result.add(t != null
+                        ? new DeficiencyThresholdDTO(g.name(), n.name(), t.getDailyRequirement(), t.getIsCritical(), true)
+                        : new DeficiencyThresholdDTO(g.name(), n.name(), DEFAULTS.get(g)[n.ordinal()], false, false));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create or update the admin-configured requirement for one nutrient in
+     * one age group. The requirement table is swapped (and cached analyses
+     * dropped) once the change commits.
+     */
+    @Transactional
+    public DeficiencyThresholdDTO updateThreshold(AgeGroup ageGroup, Nutrient nutrient,
+                                                  double dailyRequirement, Boolean isCritical,
+                                                  String adminUsername) {
+        if (dailyRequirement <= 0) {
+            throw new IllegalArgumentException("Daily requirement must be positive");
+        }
+        DeficiencyThreshold t = thresholdRepository.findByAgeGroupAndNutrient(ageGroup, nutrient)
+                .orElseGet(() -> {
+                    DeficiencyThreshold created = new DeficiencyThreshold();
+                    created.setAgeGroup(ageGroup);
+                    created.setNutrient(nutrient);
+                    return created;
+                });
+        t.setDailyRequirement(dailyRequirement);
+        if (isCritical != null) {
+            t.setIsCritical(isCritical);
+        }
+        if (adminUsername != null) {
+            userRepository.findByUsername(adminUsername).ifPresent(t::setUpdatedBy);
+        }
+        thresholdRepository.save(t);
+        reloadAfterCommit();
+        return new DeficiencyThresholdDTO(ageGroup.name(), nutrient.name(),
+                t.getDailyRequirement(), t.getIsCritical(), true);
+    }
+
+    private void reloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                    resultCache.clear();
+                }
+            });
+        } else {
+            reload();
+            resultCache.clear();
+        }
+    }
+
+    /** BMI-based adjustment of a base requirement vector (returns a new array). */
+    private static double[] adjustForBmi(double[] base, BmiCategory category) {
+        double[] v = base.clone();
+        switch (category) {
+            case UNDERWEIGHT -> {
+                // Boost calories & protein to encourage healthy weight gain
+                scale(v, Nutrient.PROTEIN, 1.3);
+                scale(v, Nutrient.CARBOHYDRATES, 1.2);
+                scale(v, Nutrient.FAT, 1.1);
+                scale(v, Nutrient.CALCIUM, 1.15);   // bone support
+                scale(v, Nutrient.IRON, 1.1);
+            }
+            case OVERWEIGHT -> {
+                // Moderate reduction in calorie-dense macros
+                scale(v, Nutrient.CARBOHYDRATES, 0.85);
+                scale(v, Nutrient.FAT, 0.85);
+                scale(v, Nutrient.PROTEIN, 1.1);    // slightly more protein for satiety
+                scale(v, Nutrient.FIBER, 1.15);     // more fiber for fullness
+            }
+            case OBESE -> {
+                // Larger reduction, higher protein & fiber
+                scale(v, Nutrient.CARBOHYDRATES, 0.75);
+                scale(v, Nutrient.FAT, 0.75);
+                scale(v, Nutrient.PROTEIN, 1.2);    // satiety & muscle preservation
+                scale(v, Nutrient.FIBER, 1.25);
+                scale(v, Nutrient.VITAMIN_D, 1.3);  // often low in obese individuals
+            }
+            default -> { } // NORMAL / UNKNOWN: keep base values
+        }
+        return v;
+    }
+
+    private static void scale(double[] v, Nutrient n, double factor) {
+        v[n.ordinal()] *= factor;
+    }
+
+    /**
+     * Immutable requirement vector for one (age group, BMI category):
+     * daily amount and critical flag per nutrient, indexed by ordinal.
+     */
+    public static final class Requirements {
+
+        private final AgeGroup ageGroup;
+        private final BmiCategory bmiCategory;
+        private final double[] daily;
+        private final boolean[] critical;
+
+        Requirements(AgeGroup ageGroup, BmiCategory bmiCategory, double[] daily, boolean[] critical) {
+            this.ageGroup = ageGroup;
+            this.bmiCategory = bmiCategory;
+            this.daily = daily;
+            this.critical = critical.clone();
+        }
+
+        public AgeGroup getAgeGroup() {
+            return ageGroup;
+        }
+
+        public BmiCategory getBmiCategory() {
+            return bmiCategory;
+        }
+
+        /** Recommended daily amount of one nutrient. */
+        public double get(Nutrient nutrient) {
+            return daily[nutrient.ordinal()];
+        }
+
+        /** Whether an admin flagged this nutrient as critical for the age group. */
+        public boolean isCritical(Nutrient nutrient) {
+            return critical[nutrient.ordinal()];
+        }
+    }
+}
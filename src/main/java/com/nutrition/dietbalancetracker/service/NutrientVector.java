@@ -0,0 +1,157 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.util.Arrays;
+
+import com.nutrition.dietbalancetracker.model.DietaryEntry;
+import com.nutrition.dietbalancetracker.model.Nutrient;
+import com.nutrition.dietbalancetracker.model.NutrientProfile;
+
+/**
+ * NUTRIENT VECTOR
+ * ===============
+ * A fixed-size primitive accumulator holding one double per {@link Nutrient},
+ * indexed by the enum ordinal.
+ *
+ * Aggregation code adds entries into a vector with fused multiply-add
+ * (value × portion + running total) instead of keeping sixteen separate
+ * local variables. Vectors are mutable and meant to be reused: call
+ * {@link #clear()} rather than allocating a new one per entry or per day.
+ */
+public final class NutrientVector {
+
+    /** Number of tracked nutrients (length of every vector). */
+    public static final int SIZE = Nutrient.values().length;
+
+    private static final int CALORIES      = Nutrient.CALORIES.ordinal();
+    private static final int PROTEIN       = Nutrient.PROTEIN.ordinal();
+    private static final int CARBOHYDRATES = Nutrient.CARBOHYDRATES.ordinal();
+    private static final int FAT           = Nutrient.FAT.ordinal();
+    private static final int FIBER         = Nutrient.FIBER.ordinal();
+    private static final int VITAMIN_A     = Nutrient.VITAMIN_A.ordinal();
+    private static final int VITAMIN_C     = Nutrient.VITAMIN_C.ordinal();
+    private static final int VITAMIN_D     = Nutrient.VITAMIN_D.ordinal();
+    private static final int VITAMIN_E     = Nutrient.VITAMIN_E.ordinal();
+    private static final int VITAMIN_K     = Nutrient.VITAMIN_K.ordinal();
+    private static final int VITAMIN_B12   = Nutrient.VITAMIN_B12.ordinal();
+    private static final int CALCIUM       = Nutrient.CALCIUM.ordinal();
+    private static final int IRON          = Nutrient.IRON.ordinal();
+    private static final int MAGNESIUM     = Nutrient.MAGNESIUM.ordinal();
+    private static final int ZINC          = Nutrient.ZINC.ordinal();
+    private static final int POTASSIUM     = Nutrient.POTASSIUM.ordinal();
+
+    private final double[] values = new double[SIZE];
+
+    /** Value for one nutrient. */
+    public double get(Nutrient nutrient) {
+        return values[nutrient.ordinal()];
+    }
+
+    /** Overwrite the value for one nutrient. */
+    public void set(Nutrient nutrient, double value) {
+        values[nutrient.ordinal()] = value;
+    }
+
+    /** Add an amount to one nutrient. */
+    public void add(Nutrient nutrient, double amount) {
+        values[nutrient.ordinal()] += amount;
+    }
+
+    /** Reset every nutrient to zero so the vector can be reused. */
+    public void clear() {
+        Arrays.fill(values, 0);
+    }
+
+    /**
+     * Add the nutrients of one logged entry (profile × portion).
+     *
+     * @return false when the entry has no food or nutrient profile (nothing added)
+     */
+    public boolean addEntry(DietaryEntry entry) {
+        NutrientProfile np = entry.getFoodItem() != null ? entry.getFoodItem().getNutrientProfile() : null;
+        if (np == null) return false;
+        addProfile(np, portionOf(entry));
+        return true;
+    }
+
+    /**
+     * Add a nutrient profile scaled by a portion multiplier.
+     * Missing (null) profile values count as zero.
+     */
+    public void addProfile(NutrientProfile np, double portion) {
+        double[] v = values;
+        v[CALORIES]      = Math.fma(safe(np.getCalories()),      portion, v[CALORIES]);
+        v[PROTEIN]       = Math.fma(safe(np.getProtein()),       portion, v[PROTEIN]);
+        v[CARBOHYDRATES] = Math.fma(safe(np.getCarbohydrates()), portion, v[CARBOHYDRATES]);
+        v[FAT]           = Math.fma(safe(np.getFat()),           portion, v[FAT]);
+        v[FIBER]         = Math.fma(safe(np.getFiber()),         portion, v[FIBER]);
+        v[VITAMIN_A]     = Math.fma(safe(np.getVitaminA()),      portion, v[VITAMIN_A]);
+        v[VITAMIN_C]     = Math.fma(safe(np.getVitaminC()),      portion, v[VITAMIN_C]);
+        v[VITAMIN_D]     = Math.fma(safe(np.getVitaminD()),      portion, v[VITAMIN_D]);
+        v[VITAMIN_E]     = Math.fma(safe(np.getVitaminE()),      portion, v[VITAMIN_E]);
+        v[VITAMIN_K]     = Math.fma(safe(np.getVitaminK()),      portion, v[VITAMIN_K]);
+        v[VITAMIN_B12]   = Math.fma(safe(np.getVitaminB12()),    portion, v[VITAMIN_B12]);
+        v[CALCIUM]       = Math.fma(safe(np.getCalcium()),       portion, v[CALCIUM]);
+        v[IRON]          = Math.fma(safe(np.getIron()),          portion, v[IRON]);
+        v[MAGNESIUM]     = Math.fma(safe(np.getMagnesium()),     portion, v[MAGNESIUM]);
+        v[ZINC]          = Math.fma(safe(np.getZinc()),          portion, v[ZINC]);
+        v[POTASSIUM]     = Math.fma(safe(np.getPotassium()),     portion, v[POTASSIUM]);
+    }
+
+    /** Add another vector scaled by a factor (this += other × factor). */
+    public void addScaled(NutrientVector other, double factor) {
+        addScaled(other.values, 0, factor);
+    }
+
+    /**
+     * Add {@link #SIZE} consecutive values from a flat array, scaled by a factor.
+     * Lets callers keep many vectors in one dense {@code double[]}.
+     */
+    public void addScaled(double[] source, int offset, double factor) {
+        double[] v = values;
+        for (int i = 0; i < SIZE; i++) {
+            v[i] = Math.fma(source[offset + i], factor, v[i]);
+        }
+    }
+
+    /** Copy this vector's values into a flat array at the given offset. */
+    public void copyTo(double[] target, int offset) {
+        System.arraycopy(values, 0, target, offset, SIZE);
+    }
+
+    /** Portion multiplier of an entry; a missing portion counts as one serving. */
+    public static double portionOf(DietaryEntry entry) {
+        return entry.getPortionSize() != null ? entry.getPortionSize() : 1.0;
+    }
+
+    /** Read one nutrient value from a profile (null-safe). */
+    public static double read(NutrientProfile np, Nutrient nutrient) {
+        Double value = switch (nutrient) {
+            case CALORIES -> np.getCalories();
+            case PROTEIN -> np.getProtein();
+            case CARBOHYDRATES -> np.getCarbohydrates();
+            case FAT -> np.getFat();
+            case FIBER -> np.getFiber();
+            case VITAMIN_A -> np.getVitaminA();
+            case VITAMIN_C -> np.getVitaminC();
+            case VITAMIN_D -> np.getVitaminD();
+            case VITAMIN_E -> np.getVitaminE();
+            case VITAMIN_K -> np.getVitaminK();
+            case VITAMIN_B12 -> np.getVitaminB12();
+            case CALCIUM -> np.getCalcium();
+            case IRON -> np.getIron();
+            case MAGNESIUM -> np.getMagnesium();
+            case ZINC -> np.getZinc();
+            case POTASSIUM -> np.getPotassium();
+        };
+        return safe(value);
+    }
+
+    private static double safe(Double v) {
+        return v != null ? v : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "NutrientVector" + Arrays.toString(values);
+    }
+}
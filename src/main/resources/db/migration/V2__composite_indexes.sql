@@ -0,0 +1,34 @@
+-- ============================================
+-- V2: COMPOSITE INDEXES FOR REPOSITORY FINDERS
+-- ============================================
+-- One index per hot finder, column order = equality columns first, then the
+-- range/sort column. QueryPlanVerifier checks these are picked by EXPLAIN.
+
+-- DietaryEntryRepository: history, range finders, tuple and aggregate queries.
+-- (user_id, consumed_at) serves the WHERE + ORDER BY; the trailing columns make
+-- it covering for findEntryTuples, which then never touches the table rows.
+create index idx_entries_user_consumed
+    on dietary_entries (user_id, consumed_at, food_item_id, portion_size, meal_type);
+
+-- ChatMessageRepository: a user's conversation in creation order
+create index idx_chat_user_created
+    on chat_messages (user_id, created_at);
+
+-- UserRepository: admin stats (findByCreatedAtAfter, countByRole)
+create index idx_users_created_at
+    on users (created_at);
+
+create index idx_users_role
+    on users (role);
+
+-- UserRepository: login lookups (findByUsernameIgnoreCase / findByEmailIgnoreCase
+-- compare lower(column) = lower(?), which the plain unique indexes cannot serve)
+create index idx_users_username_lower
+    on users ((lower(username)));
+
+create index idx_users_email_lower
+    on users ((lower(email)));
+
+-- FoodItemRepository: active foods, optionally filtered by category
+create index idx_food_active_category
+    on food_items (is_active, category);
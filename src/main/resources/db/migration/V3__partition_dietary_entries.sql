@@ -0,0 +1,51 @@
+-- ============================================
+-- V3: MONTHLY PARTITIONING OF DIETARY ENTRIES
+-- ============================================
+-- dietary_entries becomes RANGE COLUMNS partitioned on consumed_at.
+-- This script only creates the catch-all p_future partition; monthly
+-- partitions are split off it by EntryArchiveService (REORGANIZE PARTITION),
+-- which later archives and drops months older than the configured horizon.
+
+-- MySQL does not allow foreign keys on partitioned tables, so this drops the
+-- user_id and food_item_id foreign keys: the database no longer enforces
+-- referential integrity for dietary entries. The application does instead:
+-- - DietaryEntryService.logMeal/logMeals check the user (existsById) and the
+--   food (catalog snapshot: exists and active) before inserting;
+-- - entries are removed with their user by JPA cascades (User.dietaryEntries);
+-- - foods are deactivated, not deleted (except by the reseed, which deletes
+--   their entries first).
+-- Any other writer (manual SQL, imports) must check both ids itself.
+-- FK names differ between databases created by this schema and by the old
+-- ddl-auto=update, so look them up.
+SET @drop_fks := (
+    SELECT GROUP_CONCAT(CONCAT('DROP FOREIGN KEY ', constraint_name) SEPARATOR ', ')
+    FROM information_schema.table_constraints
+    WHERE table_schema = DATABASE()
+      AND table_name = 'dietary_entries'
+      AND constraint_type = 'FOREIGN KEY');
+SET @sql := IF(@drop_fks IS NULL, 'DO 0', CONCAT('ALTER TABLE dietary_entries ', @drop_fks));
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Every unique key of a partitioned table must contain the partitioning column
+alter table dietary_entries
+    drop primary key,
+    add primary key (id, consumed_at);
+
+alter table dietary_entries
+    partition by range columns (consumed_at) (
+        partition p_future values less than (maxvalue)
+    );
+
+-- One row per month moved out of dietary_entries into an archive file
+create table dietary_entry_archives (
+    partition_name varchar(16) not null,
+    upper_bound date not null,
+    file_name varchar(255) not null,
+    row_count bigint not null,
+    min_consumed_at datetime(6),
+    max_consumed_at datetime(6),
+    archived_at datetime(6) not null,
+    primary key (partition_name)
+) engine=InnoDB;
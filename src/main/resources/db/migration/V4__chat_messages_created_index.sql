@@ -0,0 +1,7 @@
+-- ============================================
+-- V4: CHAT HISTORY RETENTION
+-- ============================================
+-- The nightly retention job deletes messages older than the configured age
+-- across all users ("WHERE created_at < ? LIMIT ?"); without this index every
+-- chunk would scan chat_messages.
+create index idx_chat_created on chat_messages (created_at);
@@ -0,0 +1,72 @@
+-- ============================================
+-- V5: TABLES AND CONSTRAINTS ADDED AFTER THE V1 BASELINE
+-- ============================================
+-- daily_nutrient_rollup (per-user daily totals), cohort_analysis_results
+-- (cohort batch output), the personalised RDA age groups, and the unique
+-- keys behind the rollup upsert and one requirement per age group.
+--
+-- A database baselined at version 1 may have been created by ddl-auto=update
+-- from a later build that already had some of these, so every step is
+-- written to be a no-op when its object already exists.
+
+create table if not exists daily_nutrient_rollup (
+    id bigint not null auto_increment,
+    breakfast_calories float(53) not null,
+    breakfast_count integer not null,
+    calcium float(53) not null,
+    calories float(53) not null,
+    carbohydrates float(53) not null,
+    dinner_calories float(53) not null,
+    dinner_count integer not null,
+    fat float(53) not null,
+    fiber float(53) not null,
+    iron float(53) not null,
+    lunch_calories float(53) not null,
+    lunch_count integer not null,
+    magnesium float(53) not null,
+    potassium float(53) not null,
+    protein float(53) not null,
+    rollup_date date not null,
+    snack_calories float(53) not null,
+    snack_count integer not null,
+    updated_at datetime(6) not null,
+    user_id bigint not null,
+    vitamina float(53) not null,
+    vitaminb12 float(53) not null,
+    vitaminc float(53) not null,
+    vitamind float(53) not null,
+    vitamine float(53) not null,
+    vitamink float(53) not null,
+    zinc float(53) not null,
+    primary key (id),
+    constraint uk_rollup_user_date unique (user_id, rollup_date)
+) engine=InnoDB;
+
+create table if not exists cohort_analysis_results (
+    id bigint not null auto_increment,
+    active_days integer not null,
+    computed_at datetime(6) not null,
+    deficiencies varchar(500),
+    job_id varchar(36) not null,
+    meal_count integer not null,
+    overall_score float(53) not null,
+    user_id bigint not null,
+    primary key (id),
+    index idx_cohort_job_score (job_id, overall_score)
+) engine=InnoDB;
+
+-- AGE_4_8 and ADULT requirement rows (NutrientRequirementService)
+alter table deficiency_thresholds
+    modify age_group enum ('AGE_1_3','AGE_4_8','AGE_9_13','AGE_14_18','ADULT') not null;
+
+-- One requirement per (age group, nutrient), so admin updates cannot duplicate rows
+SET @sql := IF(
+    (SELECT COUNT(*) FROM information_schema.table_constraints
+     WHERE table_schema = DATABASE()
+       AND table_name = 'deficiency_thresholds'
+       AND constraint_name = 'uk_threshold_age_nutrient') > 0,
+    'DO 0',
+    'ALTER TABLE deficiency_thresholds ADD CONSTRAINT uk_threshold_age_nutrient UNIQUE (age_group, nutrient)');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,9 @@
+-- ============================================
+-- V6: KEYSET INDEX FOR ENTRY HISTORY
+-- ============================================
+-- History pages (findHistoryRows / findHistoryRowsAfter) order by
+-- "consumed_at DESC, id DESC". In idx_entries_user_consumed the id only comes
+-- after food_item_id, portion_size and meal_type, so that order needs a
+-- filesort over all of a user's entries. (user_id, consumed_at, id) is read
+-- backwards in exactly the page order and stops after LIMIT rows.
+create index idx_entries_user_consumed_id on dietary_entries (user_id, consumed_at, id);
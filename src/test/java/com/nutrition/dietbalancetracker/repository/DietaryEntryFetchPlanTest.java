@@ -0,0 +1,161 @@
+package com.nutrition.dietbalancetracker.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.nutrition.dietbalancetracker.model.DietaryEntry;
+import com.nutrition.dietbalancetracker.model.FoodCategory;
+import com.nutrition.dietbalancetracker.model.FoodItem;
+import com.nutrition.dietbalancetracker.model.MealType;
+import com.nutrition.dietbalancetracker.model.NutrientProfile;
+import com.nutrition.dietbalancetracker.model.User;
+import com.nutrition.dietbalancetracker.model.UserRole;
+
+/**
+ * Statement counts of the DietaryEntry read paths: each use case must cost
+ * one select no matter how many entries or distinct foods it returns, with
+ * the food, its nutrient profile and the user id usable afterwards.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class DietaryEntryFetchPlanTest {
+
+    private static final int FOODS = 5;
+    private static final int ENTRIES = 20;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private DietaryEntryRepository repository;
+
+    private Statistics statistics;
+    private Long userId;
+    private Long entryId;
+    private final LocalDateTime start = LocalDate.now().atStartOfDay();
+    private final LocalDateTime end = start.plusDays(1);
+
+    @BeforeEach
+    void setUp() {
+        statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        User user = new User();
+        user.setUsername("fetchplan");
+        user.setEmail("fetchplan@example.com");
+        user.setPasswordHash("x");
+        user.setRole(UserRole.USER);
+        user.setAge(30);
+        em.persist(user);
+        userId = user.getId();
+
+        FoodItem[] foods = new FoodItem[FOODS];
+        for (int i = 0; i < FOODS; i++) {
+            FoodItem food = new FoodItem();
+            food.setName("Food " + i);
+            food.setCategory(FoodCategory.values()[i % FoodCategory.values().length]);
+            NutrientProfile np = new NutrientProfile();
+            np.setServingSize(100.0);
+            np.setCalories(100.0 + i);
+            np.setProtein(5.0);
+            np.setCarbohydrates(10.0);
+            np.setFat(2.0);
+            np.setFiber(1.0);
+            np.setVitaminA(10.0);
+            np.setVitaminC(1.0);
+            np.setVitaminD(0.1);
+            np.setVitaminE(0.5);
+            np.setVitaminK(1.0);
+            np.setVitaminB12(0.1);
+            np.setCalcium(20.0);
+            np.setIron(0.5);
+            np.setMagnesium(10.0);
+            np.setZinc(0.3);
+            np.setPotassium(100.0);
+            np.setFoodItem(food);
+            food.setNutrientProfile(np);
+            em.persist(food);
+            em.persist(np);
+            foods[i] = food;
+        }
+        for (int i = 0; i < ENTRIES; i++) {
+            DietaryEntry e = new DietaryEntry();
+            e.setUser(user);
+            e.setFoodItem(foods[i % FOODS]);
+            e.setPortionSize(1.0);
+            e.setConsumedAt(start.plusMinutes(10L * i));
+            e.setMealType(MealType.values()[i % MealType.values().length]);
+            em.persist(e);
+            entryId = e.getId();
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void historyPagesAreOneSelect() {
+        assertSingleSelect(() -> repository.findHistoryRows(userId, PageRequest.of(0, 10)), 10);
+        assertSingleSelect(() -> repository.findHistoryRowsAfter(userId, end, Long.MAX_VALUE, PageRequest.of(0, 10)), 10);
+    }
+
+    @Test
+    void todaysMealsAreOneSelect() {
+        assertSingleSelect(() -> repository.findEntryRows(userId, start, end), ENTRIES);
+    }
+
+    @Test
+    void chartTuplesAreOneSelect() {
+        assertSingleSelect(() -> repository.findEntryTuples(userId, start, end), ENTRIES);
+    }
+
+    @Test
+    void adminDetailLoadsFoodsAndProfilesInOneSelect() {
+        assertSingleSelect(() -> touch(repository.findByUserIdOrderByConsumedAtDesc(userId, PageRequest.of(0, 20))),
+                ENTRIES);
+    }
+
+    @Test
+    void analysisRangeLoadsFoodsAndProfilesInOneSelect() {
+        assertSingleSelect(() -> touch(repository.findByUserIdAndConsumedAtBetweenOrderByConsumedAtDesc(
+                userId, start, end)), ENTRIES);
+    }
+
+    @Test
+    void deleteLookupLoadsFoodAndProfileInOneSelect() {
+        assertSingleSelect(() -> touch(List.of(repository.findWithFoodById(entryId).orElseThrow())), 1);
+    }
+
+    /** Read everything callers use from a loaded entry: user id, food name, profile values. */
+    private static List<DietaryEntry> touch(List<DietaryEntry> entries) {
+        for (DietaryEntry e : entries) {
+            assertTrue(e.getUser().getId() > 0);
+            assertTrue(e.getFoodItem().getName().startsWith("Food "));
+            assertTrue(e.getFoodItem().getNutrientProfile().getCalories() > 0);
+        }
+        return entries;
+    }
+
+    private void assertSingleSelect(Supplier<List<?>> read, int expectedRows) {
+        em.clear();
+        statistics.clear();
+        List<?> rows = read.get();
+        assertEquals(expectedRows, rows.size());
+        assertEquals(1, statistics.getPrepareStatementCount(), "statements prepared");
+    }
+}
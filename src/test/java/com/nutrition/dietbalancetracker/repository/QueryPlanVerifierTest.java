@@ -0,0 +1,222 @@
+package com.nutrition.dietbalancetracker.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.nutrition.dietbalancetracker.model.DietaryEntry;
+import com.nutrition.dietbalancetracker.model.UserRole;
+
+/**
+ * QUERY PLAN VERIFIER
+ * ===================
+ * Runs the repository finders of DietaryEntryRepository, ChatMessageRepository
+ * and UserRepository against MySQL with the Flyway schema, captures the SQL
+ * each one actually sends ({@link SqlCapture}) and fails when EXPLAIN shows a
+ * full table scan, or a filesort for the keyset-paginated history finders.
+ *
+ * - The schema comes from the migrations (V1..Vn) and is validated against the
+ *   entities (ddl-auto=validate), as in production.
+ * - Tables are seeded and analyzed so the optimizer sees realistic volumes; a
+ *   scan of a table estimated below {@value #SMALL_TABLE_ROWS} rows (the food
+ *   catalog) is ignored, since reading it whole is the cheaper plan there.
+ * - Needs Docker; skipped when no daemon is available.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "nutrition.rollup.backfill-on-startup=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class QueryPlanVerifierTest {
+
+    private static final int SMALL_TABLE_ROWS = 1000;
+    private static final int USERS = 2000;
+    private static final int FOODS = 200;
+    private static final int ENTRIES = 60_000;
+    private static final int MESSAGES = 20_000;
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0")
+            .withUrlParam("queryInterceptors", SqlCapture.class.getName());
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+    }
+
+    private static boolean seeded;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private DietaryEntryRepository entries;
+
+    @Autowired
+    private ChatMessageRepository messages;
+
+    @Autowired
+    private UserRepository users;
+
+    private final long userId = 7;
+    private final long entryId = 7;
+    private final LocalDateTime end = LocalDateTime.now();
+    private final LocalDateTime start = end.minusDays(7);
+
+    /** Seed once, committed outside the test transaction (the schema exists once the context is up). */
+    @BeforeEach
+    void seed() throws SQLException {
+        if (seeded) {
+            return;
+        }
+        try (Connection conn = MYSQL.createConnection(""); Statement st = conn.createStatement()) {
+            st.execute("SET SESSION cte_max_recursion_depth = " + ENTRIES);
+            st.execute("INSERT INTO users (age, created_at, email, password_hash, role, updated_at, username) "
+                    + seq(USERS) + "SELECT 30, NOW(6) - INTERVAL n DAY, CONCAT('probe', n, '@example.com'), 'x', "
+                    + "IF(n % 100 = 0, 'ADMIN', 'USER'), NOW(6), CONCAT('probe', n) FROM seq");
+            st.execute("INSERT INTO food_items (category, created_at, is_active, is_custom, name, version) "
+                    + seq(FOODS) + "SELECT ELT(1 + n % 11, 'FRUIT','VEGETABLE','GRAIN','PROTEIN','DAIRY','LEGUME',"
+                    + "'NUT_SEED','BEVERAGE','SNACK','DESSERT','OTHER'), NOW(6), 1, 0, CONCAT('Food ', n), 0 FROM seq");
+            st.execute("INSERT INTO nutrient_profiles (calcium, calories, carbohydrates, fat, fiber, iron, magnesium, "
+                    + "potassium, protein, serving_size, vitamina, vitaminb12, vitaminc, vitamind, vitamine, vitamink, "
+                    + "zinc, food_item_id) " + seq(FOODS)
+                    + "SELECT 20, 100 + n, 10, 2, 1, 0.5, 10, 100, 5, 100, 10, 0.1, 1, 0.1, 0.5, 1, 0.3, n FROM seq");
+            st.execute("INSERT INTO dietary_entries (consumed_at, created_at, meal_type, portion_size, food_item_id, "
+                    + "user_id) " + seq(ENTRIES) + "SELECT NOW(6) - INTERVAL (n * 37 % 86400) MINUTE, NOW(6), "
+                    + "ELT(1 + n % 4, 'BREAKFAST','LUNCH','DINNER','SNACK'), 1, 1 + n % " + FOODS + ", "
+                    + "1 + n % " + USERS + " FROM seq");
+            st.execute("INSERT INTO chat_messages (content, created_at, role, user_id) " + seq(MESSAGES)
+                    + "SELECT 'probe', NOW(6) - INTERVAL n MINUTE, IF(n % 2 = 0, 'user', 'assistant'), "
+                    + "1 + n % " + USERS + " FROM seq");
+            st.execute("ANALYZE TABLE users, food_items, nutrient_profiles, dietary_entries, chat_messages");
+        }
+        seeded = true;
+    }
+
+    private static String seq(int rows) {
+        return "WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < " + rows + ") ";
+    }
+
+    @Test
+    void dietaryEntryFindersUseIndexes() {
+        assertIndexedInOrder("findHistoryRows", () -> entries.findHistoryRows(userId, PageRequest.of(0, 21)));
+        assertIndexedInOrder("findHistoryRowsAfter",
+                () -> entries.findHistoryRowsAfter(userId, start, Long.MAX_VALUE, PageRequest.of(0, 21)));
+        assertIndexed("findEntryRows", () -> entries.findEntryRows(userId, start, end));
+        assertIndexed("findByUserIdOrderByConsumedAtDesc",
+                () -> entries.findByUserIdOrderByConsumedAtDesc(userId, PageRequest.of(0, 20)));
+        assertIndexed("findByUserIdAndConsumedAtBetweenOrderByConsumedAtDesc",
+                () -> entries.findByUserIdAndConsumedAtBetweenOrderByConsumedAtDesc(userId, start, end));
+        assertIndexed("findEntryTuples", () -> entries.findEntryTuples(userId, start, end));
+        assertIndexed("findDailyTotals", () -> entries.findDailyTotals(userId, start, end));
+        assertIndexed("findMealTypeTotals", () -> entries.findMealTypeTotals(userId, start, end));
+        assertIndexed("findTopFoods", () -> entries.findTopFoods(userId, start, end, PageRequest.of(0, 10)));
+        assertIndexed("countByUserId", () -> entries.countByUserId(userId));
+        assertIndexed("findWithFoodById", () -> entries.findWithFoodById(entryId));
+        assertIndexed("streamHistory", () -> {
+            try (Stream<DietaryEntry> history = entries.streamHistory(userId)) {
+                history.forEach(e -> { });
+            }
+        });
+    }
+
+    @Test
+    void chatMessageFindersUseIndexes() {
+        assertIndexedInOrder("findHistoryPage", () -> messages.findHistoryPage(userId, PageRequest.of(0, 51)));
+        assertIndexedInOrder("findHistoryPageBefore",
+                () -> messages.findHistoryPageBefore(userId, end, Long.MAX_VALUE, PageRequest.of(0, 51)));
+        assertIndexed("deleteByIdAndUserId", () -> messages.deleteByIdAndUserId(userId, userId));
+        assertIndexed("deleteAllByUserId", () -> messages.deleteAllByUserId(userId));
+    }
+
+    @Test
+    void userFindersUseIndexes() {
+        assertIndexed("findByUsername", () -> users.findByUsername("probe7"));
+        assertIndexed("findByUsernameIgnoreCase", () -> users.findByUsernameIgnoreCase("PROBE7"));
+        assertIndexed("findByEmail", () -> users.findByEmail("probe7@example.com"));
+        assertIndexed("findByEmailIgnoreCase", () -> users.findByEmailIgnoreCase("Probe7@Example.com"));
+        assertIndexed("existsByUsername", () -> users.existsByUsername("probe7"));
+        assertIndexed("existsByEmail", () -> users.existsByEmail("probe7@example.com"));
+        assertIndexed("countByRole", () -> users.countByRole(UserRole.ADMIN));
+        assertIndexed("findByCreatedAtAfter", () -> users.findByCreatedAtAfter(end.minusDays(3)));
+        assertIndexed("findAllById", () -> users.findAllById(List.of(1L, 7L, 42L)));
+        assertIndexed("findIdsAfter", () -> users.findIdsAfter(0L, PageRequest.of(0, 200)));
+    }
+
+    private void assertIndexed(String finder, Runnable call) {
+        assertPlan(finder, false, call);
+    }
+
+    /** Keyset pages: the index must also deliver the ORDER BY, or every page sorts all of a user's rows. */
+    private void assertIndexedInOrder(String finder, Runnable call) {
+        assertPlan(finder, true, call);
+    }
+
+    /** Run one finder, then EXPLAIN every statement it sent. */
+    private void assertPlan(String finder, boolean ordered, Runnable call) {
+        em.clear();
+        List<String> sql = SqlCapture.during(call);
+        List<String> explained = sql.stream().filter(QueryPlanVerifierTest::explainable).toList();
+        assertFalse(explained.isEmpty(), finder + " sent no statement");
+        for (String statement : explained) {
+            List<String> problems = planProblems(statement, ordered);
+            assertTrue(problems.isEmpty(), finder + ": " + problems + "\n  " + statement);
+        }
+    }
+
+    private static boolean explainable(String sql) {
+        String head = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return head.startsWith("select") || head.startsWith("delete") || head.startsWith("update");
+    }
+
+    /**
+     * Plan rows reading a whole table (type=ALL) estimated at SMALL_TABLE_ROWS
+     * rows or more and, when the result must come out of the index in order,
+     * plan rows with "Using filesort".
+     */
+    private List<String> planProblems(String sql, boolean ordered) {
+        return em.getEntityManager().unwrap(Session.class).doReturningWork(conn -> {
+            List<String> problems = new ArrayList<>();
+            try (Statement st = conn.createStatement(); ResultSet plan = st.executeQuery("EXPLAIN " + sql)) {
+                while (plan.next()) {
+                    String table = plan.getString("table");
+                    String extra = plan.getString("Extra");
+                    if ("ALL".equals(plan.getString("type")) && plan.getLong("rows") >= SMALL_TABLE_ROWS) {
+                        problems.add("scans " + table + " (" + plan.getLong("rows") + " rows)");
+                    }
+                    if (ordered && extra != null && extra.contains("Using filesort")) {
+                        problems.add("sorts " + table + " (key=" + plan.getString("key") + ")");
+                    }
+                }
+            }
+            return problems;
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package com.nutrition.dietbalancetracker.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import com.mysql.cj.MysqlConnection;
+import com.mysql.cj.Query;
+import com.mysql.cj.interceptors.QueryInterceptor;
+import com.mysql.cj.log.Log;
+import com.mysql.cj.protocol.Resultset;
+import com.mysql.cj.protocol.ServerSession;
+
+/**
+ * Connector/J query interceptor that records the SQL text sent to the server
+ * by the current thread while {@link #during(Runnable)} runs. With client-side
+ * prepared statements (the driver default) that text has the bind values
+ * inlined, so it can be passed to EXPLAIN as is.
+ *
+ * Enabled per connection with the URL parameter
+ * {@code queryInterceptors=com.nutrition.dietbalancetracker.repository.SqlCapture}.
+ */
+public class SqlCapture implements QueryInterceptor {
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    /** Run the action and return every statement it sent, in order. */
+    public static List<String> during(Runnable action) {
+        List<String> statements = new ArrayList<>();
+        CAPTURED.set(statements);
+        try {
+            action.run();
+        } finally {
+            CAPTURED.remove();
+        }
+        return statements;
+    }
+
+    @Override
+    public QueryInterceptor init(MysqlConnection conn, Properties props, Log log) {
+        return this;
+    }
+
+    @Override
+    public <T extends Resultset> T preProcess(Supplier<String> sql, Query interceptedQuery) {
+        List<String> statements = CAPTURED.get();
+        if (statements != null) {
+            statements.add(sql.get());
+        }
+        return null;
+    }
+
+    @Override
+    public boolean executeTopLevelOnly() {
+        return true;
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    @Override
+    public <T extends Resultset> T postProcess(Supplier<String> sql, Query interceptedQuery,
+                                               T originalResultSet, ServerSession serverSession) {
+        return originalResultSet;
+    }
+}
@@ -0,0 +1,107 @@
+package com.nutrition.dietbalancetracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class AnalysisResultCacheTest {
+
+    private final AnalysisResultCache cache = new AnalysisResultCache(true, 100, Duration.ZERO);
+
+    @Test
+    void cachesUntilUserIsEvicted() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1L, "today", loads::incrementAndGet);
+        cache.get(1L, "today", loads::incrementAndGet);
+        assertEquals(1, loads.get());
+
+        cache.evictUser(1L);
+        assertEquals(2, cache.get(1L, "today", loads::incrementAndGet));
+    }
+
+    @Test
+    void resultLoadedAcrossAnEvictionIsNotCached() {
+        // A write commits (and evicts) while the first load is still running
+        assertEquals("stale", cache.get(1L, "today", () -> {
+            cache.evictUser(1L);
+            return "stale";
+        }));
+        assertEquals("fresh", cache.get(1L, "today", () -> "fresh"));
+    }
+
+    @Test
+    void evictionOfAnotherUserDoesNotBlockCaching() {
+        cache.get(1L, "today", () -> {
+            cache.evictUser(2L);
+            return "one";
+        });
+        assertEquals("one", cache.get(1L, "today", () -> "other"));
+    }
+
+    @Test
+    void clearDuringLoadPreventsCaching() {
+        cache.get(1L, "today", () -> {
+            cache.clear();
+            return "stale";
+        });
+        assertEquals("fresh", cache.get(1L, "today", () -> "fresh"));
+    }
+
+    @Test
+    void resultLoadedSoonAfterAWriteIsNotCached() {
+        AnalysisResultCache settling = new AnalysisResultCache(true, 100, Duration.ofMinutes(1));
+        settling.evictUser(1L);
+        // May come from a replica that has not applied the write yet
+        assertEquals("lagged", settling.get(1L, "today", () -> "lagged"));
+        assertEquals("fresh", settling.get(1L, "today", () -> "fresh"));
+
+        settling.get(2L, "today", () -> "other");
+        assertEquals("other", settling.get(2L, "today", () -> "reloaded"));
+    }
+
+    @Test
+    void bookkeepingIsDroppedOnceUsersAreIdleAndSettled() {
+        for (long user = 1; user <= 1000; user++) {
+            cache.get(user, "today", () -> "result");
+            cache.evictUser(user);
+        }
+        assertEquals(0, cache.stats().get("trackedUsers"));
+        assertEquals(0, cache.stats().get("recentWrites"));
+    }
+
+    @Test
+    void leastRecentlyUsedEvictionUnindexesTheUser() {
+        AnalysisResultCache small = new AnalysisResultCache(true, 2, Duration.ZERO);
+        small.get(1L, "today", () -> "one");
+        small.get(2L, "today", () -> "two");
+        small.get(3L, "today", () -> "three");
+        assertEquals(2, small.stats().get("trackedUsers"));
+
+        small.evictUser(2L);
+        assertEquals(1, small.stats().get("size"));
+        assertEquals("three", small.get(3L, "today", () -> "reloaded"));
+    }
+
+    @Test
+    void writeTimesAreKeptOnlyUntilSettled() {
+        AnalysisResultCache settling = new AnalysisResultCache(true, 100, Duration.ofMinutes(1));
+        settling.evictUser(1L);
+        settling.evictUser(1L);
+        settling.evictUser(2L);
+        assertEquals(2, settling.stats().get("recentWrites"));
+        assertEquals(0, settling.stats().get("trackedUsers"));
+    }
+
+    @Test
+    void failedLoadReleasesTheUser() {
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, "today", () -> {
+            throw new IllegalStateException("query failed");
+        }));
+        assertEquals(0, cache.stats().get("trackedUsers"));
+        assertEquals("fresh", cache.get(1L, "today", () -> "fresh"));
+    }
+}
@@ -0,0 +1,209 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.nutrition.dietbalancetracker.model.DietaryEntry;
+import com.nutrition.dietbalancetracker.model.FoodCategory;
+import com.nutrition.dietbalancetracker.model.FoodItem;
+import com.nutrition.dietbalancetracker.model.MealType;
+import com.nutrition.dietbalancetracker.model.NutrientProfile;
+import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository.EntryTuple;
+
+/**
+ * CHART AGGREGATION BENCHMARK
+ * ===========================
+ * The five-pass chart build over DietaryEntry entities (daily trend via
+ * groupingBy, macro split, meal-type breakdown, top foods, radar; each pass
+ * re-reading getFoodItem().getNutrientProfile()) against the single-pass
+ * {@link ChartDataService.ChartAggregate} over entry tuples and the catalog
+ * snapshot, at 1k, 10k and 100k entries over a 30-day window.
+ *
+ * Run with:
+ *   mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *       -Dexec.args="-cp %classpath com.nutrition.dietbalancetracker.service.ChartAggregationBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChartAggregationBenchmark {
+
+    private static final int DAYS = 30;
+    private static final int FOODS = 200;
+    private static final MealType[] MEAL_TYPES = MealType.values();
+
+    @Param({"1000", "10000", "100000"})
+    public int entries;
+
+    private LocalDate firstDay;
+    private List<DietaryEntry> entities;
+    private List<EntryTuple> tuples;
+    private NutrientCatalogService.Snapshot catalog;
+
+    /** Bare entry tuple, as the repository projection returns it. */
+    private record Tuple(Long getFoodItemId, Double getPortionSize, LocalDateTime getConsumedAt,
+                         MealType getMealType) implements EntryTuple {}
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(42);
+        List<FoodItem> foods = new ArrayList<>(FOODS);
+        for (long id = 1; id <= FOODS; id++) {
+            FoodItem food = new FoodItem();
+            food.setId(id);
+            food.setName("Food " + id);
+            food.setCategory(FoodCategory.values()[(int) (id % FoodCategory.values().length)]);
+            NutrientProfile np = new NutrientProfile();
+            np.setServingSize(100.0);
+            np.setCalories(50 + rnd.nextDouble() * 400);
+            np.setProtein(rnd.nextDouble() * 30);
+            np.setCarbohydrates(rnd.nextDouble() * 60);
+            np.setFat(rnd.nextDouble() * 25);
+            np.setFiber(rnd.nextDouble() * 10);
+            np.setVitaminA(rnd.nextDouble() * 300);
+            np.setVitaminC(rnd.nextDouble() * 50);
+            np.setVitaminD(rnd.nextDouble() * 5);
+            np.setCalcium(rnd.nextDouble() * 200);
+            np.setIron(rnd.nextDouble() * 5);
+            np.setPotassium(rnd.nextDouble() * 600);
+            np.setZinc(rnd.nextDouble() * 3);
+            np.setMagnesium(rnd.nextDouble() * 80);
+            np.setFoodItem(food);
+            food.setNutrientProfile(np);
+            foods.add(food);
+        }
+        catalog = NutrientCatalogService.Snapshot.of(foods, null);
+
+        firstDay = LocalDate.now().minusDays(DAYS - 1);
+        entities = new ArrayList<>(entries);
+        tuples = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            FoodItem food = foods.get(rnd.nextInt(FOODS));
+            double portion = 0.5 + rnd.nextInt(4) * 0.5;
+            LocalDateTime at = firstDay.plusDays(rnd.nextInt(DAYS)).atTime(rnd.nextInt(24), rnd.nextInt(60));
+            MealType mealType = MEAL_TYPES[rnd.nextInt(MEAL_TYPES.length)];
+
+            DietaryEntry e = new DietaryEntry();
+            e.setFoodItem(food);
+            e.setPortionSize(portion);
+            e.setConsumedAt(at);
+            e.setMealType(mealType);
+            entities.add(e);
+            tuples.add(new Tuple(food.getId(), portion, at, mealType));
+        }
+    }
+
+    @Benchmark
+    public void singlePass(Blackhole bh) {
+        ChartDataService.ChartAggregate agg = new ChartDataService.ChartAggregate(firstDay, DAYS);
+        for (EntryTuple e : tuples) {
+            agg.addEntry(e, catalog);
+        }
+        bh.consume(agg.dailyTrend());
+        bh.consume(agg.mealTypeBreakdown());
+        bh.consume(agg.topFoods(10));
+        bh.consume(agg);
+    }
+
+    @Benchmark
+    public void fivePass(Blackhole bh) {
+        // 1. Daily trend
+        Map<LocalDate, List<DietaryEntry>> byDate = entities.stream()
+                .collect(Collectors.groupingBy(e -> e.getConsumedAt().toLocalDate()));
+        for (int i = 0; i < DAYS; i++) {
+            double cal = 0, pro = 0, carb = 0, fat = 0;
+            for (DietaryEntry e : byDate.getOrDefault(firstDay.plusDays(i), List.of())) {
+                NutrientProfile np = e.getFoodItem().getNutrientProfile();
+                double p = e.getPortionSize();
+                cal  += np.getCalories() * p;
+                pro  += np.getProtein() * p;
+                carb += np.getCarbohydrates() * p;
+                fat  += np.getFat() * p;
+            }
+            bh.consume(cal + pro + carb + fat);
+        }
+
+        // 2. Macro split
+        double pro = 0, carb = 0, fat = 0;
+        for (DietaryEntry e : entities) {
+            NutrientProfile np = e.getFoodItem().getNutrientProfile();
+            double p = e.getPortionSize();
+            pro  += np.getProtein() * p;
+            carb += np.getCarbohydrates() * p;
+            fat  += np.getFat() * p;
+        }
+        bh.consume(pro + carb + fat);
+
+        // 3. Meal-type breakdown
+        Map<String, double[]> meals = new LinkedHashMap<>();
+        for (DietaryEntry e : entities) {
+            double[] m = meals.computeIfAbsent(e.getMealType().name(), k -> new double[2]);
+            m[0] += e.getFoodItem().getNutrientProfile().getCalories() * e.getPortionSize();
+            m[1] += 1;
+        }
+        bh.consume(meals);
+
+        // 4. Top foods
+        Map<String, double[]> foods = new HashMap<>();
+        for (DietaryEntry e : entities) {
+            double[] f = foods.computeIfAbsent(e.getFoodItem().getName(), k -> new double[2]);
+            f[0] += e.getFoodItem().getNutrientProfile().getCalories() * e.getPortionSize();
+            f[1] += 1;
+        }
+        bh.consume(foods.entrySet().stream()
+                .sorted((a, b) -> Double.compare(b.getValue()[1], a.getValue()[1]))
+                .limit(10)
+                .collect(Collectors.toList()));
+
+        // 5. Radar
+        double[] radar = new double[12];
+        for (DietaryEntry e : entities) {
+            NutrientProfile np = e.getFoodItem().getNutrientProfile();
+            double p = e.getPortionSize();
+            radar[0]  += np.getProtein() * p;
+            radar[1]  += np.getCarbohydrates() * p;
+            radar[2]  += np.getFat() * p;
+            radar[3]  += np.getFiber() * p;
+            radar[4]  += np.getVitaminA() * p;
+            radar[5]  += np.getVitaminC() * p;
+            radar[6]  += np.getVitaminD() * p;
+            radar[7]  += np.getCalcium() * p;
+            radar[8]  += np.getIron() * p;
+            radar[9]  += np.getPotassium() * p;
+            radar[10] += np.getZinc() * p;
+            radar[11] += np.getMagnesium() * p;
+        }
+        bh.consume(radar);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ChartAggregationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
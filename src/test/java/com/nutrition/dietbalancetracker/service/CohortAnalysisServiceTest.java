@@ -0,0 +1,171 @@
+package com.nutrition.dietbalancetracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.nutrition.dietbalancetracker.dto.CohortJobStatusDTO;
+import com.nutrition.dietbalancetracker.model.CohortAnalysisResult;
+import com.nutrition.dietbalancetracker.model.DailyNutrientRollup;
+import com.nutrition.dietbalancetracker.model.User;
+import com.nutrition.dietbalancetracker.model.UserRole;
+import com.nutrition.dietbalancetracker.repository.CohortAnalysisResultRepository;
+import com.nutrition.dietbalancetracker.repository.DailyNutrientRollupRepository;
+import com.nutrition.dietbalancetracker.repository.UserRepository;
+
+/**
+ * A cohort run end to end against the test database: users and rollup rows
+ * are committed first, the job runs on its own threads in chunks of two, and
+ * the test waits for it to finish before reading the stored results.
+ */
+@DataJpaTest(properties = "nutrition.cohort.chunk-size=2")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CohortAnalysisService.class, NutrientAnalysisService.class, NutrientRequirementService.class,
+        DailyNutrientRollupService.class, AnalysisResultCache.class, NutrientCatalogService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CohortAnalysisServiceTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Autowired
+    private CohortAnalysisService cohortService;
+
+    @SpyBean
+    private NutrientAnalysisService analysisService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DailyNutrientRollupRepository rollupRepository;
+
+    @Autowired
+    private CohortAnalysisResultRepository resultRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> userIds = new ArrayList<>();
+    private Long eaterId;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 5; i++) {
+            User user = new User();
+            user.setUsername("cohort" + i);
+            user.setEmail("cohort" + i + "@example.com");
+            user.setPasswordHash("x");
+            user.setRole(UserRole.USER);
+            user.setAge(30);
+            userIds.add(userRepository.save(user).getId());
+        }
+        eaterId = userIds.get(0);
+        LocalDate today = LocalDate.now();
+        for (int d = 0; d < 3; d++) {
+            DailyNutrientRollup day = new DailyNutrientRollup();
+            day.setUserId(eaterId);
+            day.setRollupDate(today.minusDays(d));
+            day.setCalories(2000);
+            day.setProtein(60);
+            day.setCarbohydrates(250);
+            day.setFat(70);
+            day.setFiber(30);
+            day.setLunchCount(2);
+            day.setLunchCalories(2000);
+            day.setUpdatedAt(LocalDateTime.now());
+            rollupRepository.save(day);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("cohort_analysis_results", "daily_nutrient_rollup", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void completedRunStoresOneResultPerUser() throws InterruptedException {
+        CohortJobStatusDTO status = runToEnd();
+
+        assertEquals("COMPLETED", status.getStatus());
+        assertEquals(userIds.size(), status.getProcessedUsers());
+        assertEquals(0, status.getFailedUsers());
+
+        Map<Long, CohortAnalysisResult> byUser = resultRepository.findAll().stream()
+                .collect(Collectors.toMap(CohortAnalysisResult::getUserId, Function.identity()));
+        assertEquals(userIds.size(), byUser.size());
+        assertTrue(byUser.values().stream().allMatch(r -> status.getJobId().equals(r.getJobId())));
+
+        CohortAnalysisResult eater = byUser.get(eaterId);
+        assertEquals(3, eater.getActiveDays());
+        assertEquals(6, eater.getMealCount());
+        CohortAnalysisResult idle = byUser.get(userIds.get(1));
+        assertEquals(0, idle.getActiveDays());
+        assertTrue(eater.getOverallScore() > idle.getOverallScore());
+    }
+
+    @Test
+    void nextCompletedRunReplacesEarlierResults() throws InterruptedException {
+        String first = runToEnd().getJobId();
+        CohortJobStatusDTO second = runToEnd();
+
+        assertEquals("COMPLETED", second.getStatus());
+        List<CohortAnalysisResult> results = resultRepository.findAll();
+        assertEquals(userIds.size(), results.size());
+        assertFalse(results.stream().anyMatch(r -> first.equals(r.getJobId())));
+    }
+
+    @Test
+    void runWhereEveryChunkFailsIsFailedAndKeepsEarlierResults() throws InterruptedException {
+        String first = runToEnd().getJobId();
+        doThrow(new IllegalStateException("broken loader"))
+                .when(analysisService).analyzeWeek(any(User.class), anyList());
+
+        CohortJobStatusDTO second = runToEnd();
+
+        assertEquals("FAILED", second.getStatus());
+        assertEquals(0, second.getProcessedUsers());
+        assertEquals(userIds.size(), second.getFailedUsers());
+        List<CohortAnalysisResult> results = resultRepository.findAll();
+        assertEquals(userIds.size(), results.size());
+        assertTrue(results.stream().allMatch(r -> first.equals(r.getJobId())));
+    }
+
+    private CohortJobStatusDTO runToEnd() throws InterruptedException {
+        String jobId = cohortService.start().getJobId();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        CohortJobStatusDTO status = cohortService.status(jobId);
+        while ("RUNNING".equals(status.getStatus())) {
+            assertTrue(System.currentTimeMillis() < deadline, "cohort run did not finish");
+            Thread.sleep(20);
+            status = cohortService.status(jobId);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,267 @@
+package com.nutrition.dietbalancetracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.nutrition.dietbalancetracker.controller.DietaryEntryController;
+import com.nutrition.dietbalancetracker.dto.DietaryEntryDTO;
+import com.nutrition.dietbalancetracker.dto.DietaryEntryPageDTO;
+import com.nutrition.dietbalancetracker.dto.DietaryEntryResponseDTO;
+import com.nutrition.dietbalancetracker.model.DailyNutrientRollup;
+import com.nutrition.dietbalancetracker.model.DietaryEntry;
+import com.nutrition.dietbalancetracker.model.FoodCategory;
+import com.nutrition.dietbalancetracker.model.FoodItem;
+import com.nutrition.dietbalancetracker.model.MealType;
+import com.nutrition.dietbalancetracker.model.NutrientProfile;
+import com.nutrition.dietbalancetracker.model.User;
+import com.nutrition.dietbalancetracker.model.UserRole;
+import com.nutrition.dietbalancetracker.repository.DailyNutrientRollupRepository;
+import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository;
+import com.nutrition.dietbalancetracker.repository.FoodItemRepository;
+import com.nutrition.dietbalancetracker.repository.UserRepository;
+
+/**
+ * Meal logging and history paging against the test database, committed
+ * like a request would be (the test methods run outside any transaction).
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DietaryEntryService.class, DailyNutrientRollupService.class, AnalysisResultCache.class,
+        NutrientCatalogService.class, EntryArchiveService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DietaryEntryServiceTest {
+
+    @Autowired
+    private DietaryEntryService entryService;
+
+    @Autowired
+    private DietaryEntryRepository entryRepository;
+
+    @Autowired
+    private DailyNutrientRollupRepository rollupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FoodItemRepository foodItemRepository;
+
+    @SpyBean
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long userId;
+    private Long oatsId;
+    private Long appleId;
+
+    @BeforeEach
+    void setUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            User user = new User();
+            user.setUsername("logger");
+            user.setEmail("logger@example.com");
+            user.setPasswordHash("x");
+            user.setRole(UserRole.USER);
+            user.setAge(30);
+            userId = userRepository.save(user).getId();
+            oatsId = foodItemRepository.save(food("Oatmeal", FoodCategory.GRAIN, 150.0)).getId();
+            appleId = foodItemRepository.save(food("Apple", FoodCategory.FRUIT, 52.0)).getId();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("dietary_entries", "daily_nutrient_rollup", "nutrient_profiles",
+                "food_items", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void logMealsInsertsEveryEntryWithItsIdAndRollsItUp() {
+        LocalDateTime today = LocalDateTime.now().withHour(8);
+        LocalDateTime yesterday = today.minusDays(1);
+        List<DietaryEntryResponseDTO> logged = entryService.logMeals(userId, List.of(
+                entry(oatsId, 1.0, MealType.BREAKFAST, today),
+                entry(appleId, 2.0, MealType.SNACK, today),
+                entry(oatsId, 0.5, MealType.BREAKFAST, yesterday)));
+
+        assertEquals(3, logged.size());
+        Set<Long> ids = logged.stream().map(DietaryEntryResponseDTO::getId).collect(Collectors.toSet());
+        assertEquals(3, ids.size());
+        ids.forEach(id -> assertNotNull(id));
+        for (DietaryEntryResponseDTO dto : logged) {
+            DietaryEntry stored = entryRepository.findWithFoodById(dto.getId()).orElseThrow();
+            assertEquals(dto.getFoodItem().getId(), stored.getFoodItem().getId());
+            assertEquals(dto.getPortionSize(), stored.getPortionSize());
+        }
+
+        List<DailyNutrientRollup> days = rollupRepository.findByUserIdOrderByRollupDateAsc(userId);
+        assertEquals(2, days.size());
+        assertEquals(75.0, days.get(0).getCalories(), 1e-9);
+        assertEquals(150.0 + 2 * 52.0, days.get(1).getCalories(), 1e-9);
+        assertEquals(2, days.get(1).getEntryCount());
+    }
+
+    @Test
+    void logMealsRejectsUnknownFoodsWithoutInserting() {
+        RuntimeException e = assertThrows(RuntimeException.class, () -> entryService.logMeals(userId, List.of(
+                entry(oatsId, 1.0, MealType.LUNCH, null),
+                entry(9999L, 1.0, MealType.LUNCH, null))));
+
+        assertEquals("Food item not found: [9999]", e.getMessage());
+        assertEquals(0, entryRepository.count());
+    }
+
+    @Test
+    void logMealsFailsAndRollsBackWhenTheDriverReturnsTooFewKeys() {
+        doAnswer(call -> {
+            Object counts = call.callRealMethod();
+            call.getArgument(2, KeyHolder.class).getKeyList().remove(0);
+            return counts;
+        }).when(jdbcTemplate).batchUpdate(any(PreparedStatementCreator.class),
+                any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+
+        assertThrows(IllegalStateException.class, () -> entryService.logMeals(userId, List.of(
+                entry(oatsId, 1.0, MealType.DINNER, null),
+                entry(appleId, 1.0, MealType.DINNER, null))));
+        assertEquals(0, entryRepository.count());
+        assertEquals(0, rollupRepository.count());
+    }
+
+    @Test
+    void historyPagesBreakConsumedAtTiesByIdWithoutGapsOrRepeats() {
+        LocalDateTime noon = LocalDateTime.now().minusDays(1).withHour(12).withMinute(0).withSecond(0).withNano(0);
+        List<Long> tied = entryService.logMeals(userId, List.of(
+                entry(oatsId, 1.0, MealType.LUNCH, noon),
+                entry(appleId, 1.0, MealType.LUNCH, noon),
+                entry(oatsId, 2.0, MealType.LUNCH, noon))).stream().map(DietaryEntryResponseDTO::getId).toList();
+        Long breakfast = entryService.logMeals(userId, List.of(
+                entry(appleId, 1.0, MealType.BREAKFAST, noon.withHour(8)))).get(0).getId();
+        Long dinner = entryService.logMeals(userId, List.of(
+                entry(appleId, 1.0, MealType.DINNER, noon.withHour(19)))).get(0).getId();
+
+        DietaryEntryPageDTO first = entryService.getMealHistory(userId, null, 2);
+        DietaryEntryPageDTO second = entryService.getMealHistory(userId, first.getNextCursor(), 2);
+        DietaryEntryPageDTO last = entryService.getMealHistory(userId, second.getNextCursor(), 2);
+
+        // Equal consumedAt: higher id first, and a cursor inside the tie resumes right after it
+        List<Long> newestTiedFirst = tied.stream().sorted(Comparator.reverseOrder()).toList();
+        assertEquals(List.of(dinner, newestTiedFirst.get(0)), ids(first));
+        assertEquals(newestTiedFirst.subList(1, 3), ids(second));
+        assertEquals(List.of(breakfast), ids(last));
+        assertTrue(first.isHasMore());
+        assertTrue(second.isHasMore());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        LocalDateTime at = LocalDateTime.now().minusHours(2).withNano(0);
+        entryService.logMeals(userId, List.of(
+                entry(oatsId, 1.0, MealType.SNACK, at),
+                entry(appleId, 1.0, MealType.SNACK, at.minusHours(1))));
+
+        DietaryEntryPageDTO exact = entryService.getMealHistory(userId, null, 2);
+        assertEquals(2, exact.getEntries().size());
+        assertFalse(exact.isHasMore());
+        assertNull(exact.getNextCursor());
+
+        DietaryEntryPageDTO first = entryService.getMealHistory(userId, null, 1);
+        DietaryEntryPageDTO rest = entryService.getMealHistory(userId, first.getNextCursor(), 1);
+        assertEquals(1, rest.getEntries().size());
+        assertFalse(rest.isHasMore());
+        assertNull(rest.getNextCursor());
+    }
+
+    @Test
+    void malformedCursorIsABadRequest() {
+        String notBase64 = "%%%";
+        String wrongContent = Base64.getUrlEncoder().encodeToString("yesterday|x".getBytes(StandardCharsets.UTF_8));
+        DietaryEntryController controller = new DietaryEntryController(entryService, null);
+
+        for (String cursor : List.of(notBase64, wrongContent)) {
+            assertThrows(IllegalArgumentException.class, () -> entryService.getMealHistory(userId, cursor, 10));
+            ResponseEntity<?> response = controller.getMealHistory(userId, cursor, 10);
+            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+            assertEquals(Map.of("message", "Invalid history cursor"), response.getBody());
+        }
+    }
+
+    private static List<Long> ids(DietaryEntryPageDTO page) {
+        return page.getEntries().stream().map(DietaryEntryResponseDTO::getId).toList();
+    }
+
+    private static DietaryEntryDTO entry(Long foodItemId, double portion, MealType mealType, LocalDateTime at) {
+        DietaryEntryDTO dto = new DietaryEntryDTO();
+        dto.setFoodItemId(foodItemId);
+        dto.setPortionSize(portion);
+        dto.setMealType(mealType);
+        dto.setConsumedAt(at);
+        return dto;
+    }
+
+    private static FoodItem food(String name, FoodCategory category, double calories) {
+        FoodItem food = new FoodItem();
+        food.setName(name);
+        food.setCategory(category);
+        NutrientProfile np = new NutrientProfile();
+        np.setServingSize(100.0);
+        np.setCalories(calories);
+        np.setProtein(1.0);
+        np.setCarbohydrates(10.0);
+        np.setFat(1.0);
+        np.setFiber(1.0);
+        np.setVitaminA(0.0);
+        np.setVitaminC(0.0);
+        np.setVitaminD(0.0);
+        np.setVitaminE(0.0);
+        np.setVitaminK(0.0);
+        np.setVitaminB12(0.0);
+        np.setCalcium(0.0);
+        np.setIron(0.0);
+        np.setMagnesium(0.0);
+        np.setZinc(0.0);
+        np.setPotassium(0.0);
+        np.setFoodItem(food);
+        food.setNutrientProfile(np);
+        return food;
+    }
+}
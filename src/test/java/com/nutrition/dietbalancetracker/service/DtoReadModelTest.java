@@ -0,0 +1,197 @@
+package com.nutrition.dietbalancetracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.LazyInitializationException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.nutrition.dietbalancetracker.dto.ChatHistoryPageDTO;
+import com.nutrition.dietbalancetracker.dto.DietaryEntryPageDTO;
+import com.nutrition.dietbalancetracker.dto.DietaryEntryResponseDTO;
+import com.nutrition.dietbalancetracker.model.ChatMessage;
+import com.nutrition.dietbalancetracker.model.DietaryEntry;
+import com.nutrition.dietbalancetracker.model.FoodCategory;
+import com.nutrition.dietbalancetracker.model.FoodItem;
+import com.nutrition.dietbalancetracker.model.MealType;
+import com.nutrition.dietbalancetracker.model.NutrientProfile;
+import com.nutrition.dietbalancetracker.model.User;
+import com.nutrition.dietbalancetracker.model.UserRole;
+import com.nutrition.dietbalancetracker.repository.ChatMessageRepository;
+import com.nutrition.dietbalancetracker.repository.DietaryEntryRepository;
+import com.nutrition.dietbalancetracker.repository.FoodItemRepository;
+import com.nutrition.dietbalancetracker.repository.UserRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * The meal and chat read models with open-session-in-view off: the services
+ * return finished DTOs, so once their transaction has ended, writing the
+ * responses as JSON runs no SQL and touches nothing lazy. The test methods
+ * run outside any transaction, like a controller does.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DietaryEntryService.class, ChatHistoryService.class, DailyNutrientRollupService.class,
+        AnalysisResultCache.class, NutrientCatalogService.class, EntryArchiveService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DtoReadModelTest {
+
+    private static final int ENTRIES = 6;
+
+    @Value("${spring.jpa.open-in-view}")
+    private boolean openInView;
+
+    @Autowired
+    private DietaryEntryService entryService;
+
+    @Autowired
+    private ChatHistoryService chatService;
+
+    @Autowired
+    private DietaryEntryRepository entryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FoodItemRepository foodItemRepository;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final ObjectMapper json = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private Statistics statistics;
+    private Long userId;
+    private Long entryId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            User user = new User();
+            user.setUsername("readmodel");
+            user.setEmail("readmodel@example.com");
+            user.setPasswordHash("x");
+            user.setRole(UserRole.USER);
+            user.setAge(30);
+            userRepository.save(user);
+            userId = user.getId();
+
+            FoodItem food = new FoodItem();
+            food.setName("Oatmeal");
+            food.setCategory(FoodCategory.GRAIN);
+            NutrientProfile np = new NutrientProfile();
+            np.setServingSize(100.0);
+            np.setCalories(150.0);
+            np.setProtein(5.0);
+            np.setCarbohydrates(27.0);
+            np.setFat(3.0);
+            np.setFiber(4.0);
+            np.setVitaminA(0.0);
+            np.setVitaminC(0.0);
+            np.setVitaminD(0.0);
+            np.setVitaminE(0.1);
+            np.setVitaminK(0.5);
+            np.setVitaminB12(0.0);
+            np.setCalcium(20.0);
+            np.setIron(1.5);
+            np.setMagnesium(50.0);
+            np.setZinc(1.2);
+            np.setPotassium(140.0);
+            np.setFoodItem(food);
+            food.setNutrientProfile(np);
+            foodItemRepository.save(food);
+
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = 0; i < ENTRIES; i++) {
+                DietaryEntry entry = new DietaryEntry();
+                entry.setUser(user);
+                entry.setFoodItem(food);
+                entry.setPortionSize(1.0);
+                entry.setMealType(MealType.BREAKFAST);
+                entry.setConsumedAt(now.minusMinutes(i));
+                entryId = entryRepository.save(entry).getId();
+            }
+
+            ChatMessage message = new ChatMessage();
+            message.setUserId(userId);
+            message.setRole("user");
+            message.setContent("What should I eat?");
+            chatMessageRepository.save(message);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("dietary_entries", "chat_messages", "nutrient_profiles", "food_items", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void openSessionInViewIsOff() {
+        assertFalse(openInView);
+    }
+
+    @Test
+    void responsesAreWrittenWithoutTouchingTheDatabase() throws Exception {
+        assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+
+        List<DietaryEntryResponseDTO> today = entryService.getTodaysMeals(userId);
+        DietaryEntryPageDTO history = entryService.getMealHistory(userId, null, 4);
+        ChatHistoryPageDTO chat = chatService.getHistory(userId, null, 10);
+
+        statistics.clear();
+        String body = json.writeValueAsString(List.of(today, history, chat));
+        assertEquals(0, statistics.getPrepareStatementCount(), "statements run while writing JSON");
+        assertEquals(0, statistics.getEntityLoadCount(), "entities loaded while writing JSON");
+
+        assertEquals(ENTRIES, today.size());
+        assertEquals(4, history.getEntries().size());
+        assertTrue(body.contains("Oatmeal"));
+        assertTrue(body.contains("What should I eat?"));
+    }
+
+    @Test
+    void lazyAssociationsCannotLoadOutsideATransaction() {
+        // The guard the read model relies on: an entity leaking out of a
+        // service would fail here instead of quietly running more SQL
+        DietaryEntry entry = entryRepository.findById(entryId).orElseThrow();
+        assertThrows(LazyInitializationException.class, () -> entry.getFoodItem().getName());
+    }
+}
@@ -0,0 +1,80 @@
+package com.nutrition.dietbalancetracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nutrition.dietbalancetracker.model.MealType;
+import com.nutrition.dietbalancetracker.service.EntryArchiveFile.Row;
+
+class EntryArchiveFileTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 7, 30, 15, 123_456_000);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readUserReturnsExactlyTheRowsWritten() throws IOException {
+        // 3 users × 7000 rows: every user's rows span a row-group boundary
+        List<Row> written = new ArrayList<>();
+        long id = 1;
+        for (long user = 1; user <= 3; user++) {
+            for (int i = 0; i < 7000; i++) {
+                written.add(new Row(id++, user, 100 + i % 17, 0.5 + i % 4, MealType.values()[i % 4],
+                        START.plusMinutes(i), START.plusMinutes(i).plusSeconds(3 + i % 5)));
+            }
+        }
+        Path file = dir.resolve("entries.dea");
+        EntryArchiveFile.Writer writer = new EntryArchiveFile.Writer(file);
+        try (writer) {
+            for (Row row : written) {
+                writer.add(row);
+            }
+        }
+
+        assertEquals(written.size(), writer.rowCount());
+        assertEquals(START, writer.minConsumedAt());
+        assertEquals(START.plusMinutes(6999), writer.maxConsumedAt());
+        for (long user = 1; user <= 3; user++) {
+            long u = user;
+            assertEquals(written.stream().filter(r -> r.userId() == u).toList(),
+                    EntryArchiveFile.readUser(file, user, null));
+        }
+        assertTrue(EntryArchiveFile.readUser(file, 4, null).isEmpty());
+    }
+
+    @Test
+    void beforeOnlySkipsGroupsStartingAtOrAfterIt() throws IOException {
+        Path file = dir.resolve("entries.dea");
+        try (EntryArchiveFile.Writer writer = new EntryArchiveFile.Writer(file)) {
+            for (int i = 0; i < 10_000; i++) {
+                writer.add(new Row(i + 1, 1, 1, 1.0, MealType.LUNCH, START.plusMinutes(i), START));
+            }
+        }
+
+        // The second group starts at row 8192: asking for rows before it skips the group
+        assertEquals(8192, EntryArchiveFile.readUser(file, 1, START.plusMinutes(8192)).size());
+        assertEquals(10_000, EntryArchiveFile.readUser(file, 1, START.plusMinutes(8193)).size());
+    }
+
+    @Test
+    void emptyFileHasNoRows() throws IOException {
+        Path file = dir.resolve("empty.dea");
+        EntryArchiveFile.Writer writer = new EntryArchiveFile.Writer(file);
+        writer.close();
+
+        assertEquals(0, writer.rowCount());
+        assertNull(writer.minConsumedAt());
+        assertTrue(EntryArchiveFile.readUser(file, 1, null).isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+package com.nutrition.dietbalancetracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.nutrition.dietbalancetracker.model.DietaryEntryArchive;
+import com.nutrition.dietbalancetracker.model.MealType;
+import com.nutrition.dietbalancetracker.repository.DietaryEntryArchiveRepository;
+import com.nutrition.dietbalancetracker.service.EntryArchiveFile.Row;
+
+/**
+ * Archived history paging over two monthly files of user 1 (user 2's rows
+ * are interleaved and must never show up):
+ *
+ *   April: id 10 @ 04-30 12:00, ids 11 and 12 @ 04-30 20:00
+ *   May:   id 20 @ 05-01 08:00, id 21 @ 05-02 08:00
+ */
+class EntryArchiveServiceTest {
+
+    private static final LocalDateTime APRIL_30_NOON = LocalDateTime.of(2024, 4, 30, 12, 0);
+    private static final LocalDateTime APRIL_30_EVENING = LocalDateTime.of(2024, 4, 30, 20, 0);
+    private static final LocalDateTime MAY_1 = LocalDateTime.of(2024, 5, 1, 8, 0);
+    private static final LocalDateTime MAY_2 = LocalDateTime.of(2024, 5, 2, 8, 0);
+
+    @TempDir
+    Path dir;
+
+    private final DietaryEntryArchiveRepository archiveRepository = mock(DietaryEntryArchiveRepository.class);
+    private EntryArchiveService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        DietaryEntryArchive april = write("p202404", LocalDate.of(2024, 5, 1),
+                row(10, 1, APRIL_30_NOON), row(11, 1, APRIL_30_EVENING), row(12, 1, APRIL_30_EVENING),
+                row(13, 2, APRIL_30_EVENING));
+        DietaryEntryArchive may = write("p202405", LocalDate.of(2024, 6, 1),
+                row(20, 1, MAY_1), row(21, 1, MAY_2), row(22, 2, MAY_2));
+        when(archiveRepository.findAllByOrderByUpperBoundAsc()).thenReturn(List.of(april, may));
+        service = new EntryArchiveService(mock(DataSource.class), mock(JdbcTemplate.class), archiveRepository,
+                false, dir.toString(), 24, 2);
+    }
+
+    @Test
+    void pagesWalkBackAcrossFilesWithoutGapsOrRepeats() {
+        assertEquals(List.of(21L, 20L), ids(service.findHistoryPage(1, null, null, 2)));
+        assertEquals(List.of(12L, 11L), ids(service.findHistoryPage(1, MAY_1, 20L, 2)));
+        assertEquals(List.of(10L), ids(service.findHistoryPage(1, APRIL_30_EVENING, 11L, 2)));
+        assertTrue(service.findHistoryPage(1, APRIL_30_NOON, 10L, 2).isEmpty());
+    }
+
+    @Test
+    void pageCanSpanBothFiles() {
+        assertEquals(List.of(21L, 20L, 12L), ids(service.findHistoryPage(1, null, null, 3)));
+        assertEquals(List.of(11L, 10L), ids(service.findHistoryPage(1, APRIL_30_EVENING, 12L, 3)));
+    }
+
+    @Test
+    void cursorInsideATieKeepsOnlyLowerIds() {
+        assertEquals(List.of(11L, 10L), ids(service.findHistoryPage(1, APRIL_30_EVENING, 12L, 5)));
+        assertEquals(List.of(12L, 11L, 10L), ids(service.findHistoryPage(1, APRIL_30_EVENING, 13L, 5)));
+    }
+
+    @Test
+    void olderFilesAreNotReadOnceThePageIsFull() throws IOException {
+        Files.delete(dir.resolve("p202404.dea")); // reading it would now fail
+
+        assertEquals(List.of(21L, 20L), ids(service.findHistoryPage(1, null, null, 2)));
+    }
+
+    @Test
+    void nonPositiveLimitReturnsNothing() {
+        assertTrue(service.findHistoryPage(1, null, null, 0).isEmpty());
+        assertTrue(service.findHistoryPage(1, MAY_2, 21L, -1).isEmpty());
+    }
+
+    private DietaryEntryArchive write(String partition, LocalDate upperBound, Row... rows) throws IOException {
+        String fileName = partition + ".dea";
+        EntryArchiveFile.Writer writer = new EntryArchiveFile.Writer(dir.resolve(fileName));
+        try (writer) {
+            List<Row> sorted = List.of(rows).stream()
+                    .sorted(Comparator.comparingLong(Row::userId)
+                            .thenComparing(Row::consumedAt).thenComparingLong(Row::id))
+                    .toList();
+            for (Row row : sorted) {
+                writer.add(row);
+            }
+        }
+        return new DietaryEntryArchive(partition, upperBound, fileName, writer.rowCount(),
+                writer.minConsumedAt(), writer.maxConsumedAt(), LocalDateTime.now());
+    }
+
+    private static Row row(long id, long userId, LocalDateTime consumedAt) {
+        return new Row(id, userId, 1, 1.0, MealType.DINNER, consumedAt, consumedAt);
+    }
+
+    private static List<Long> ids(List<Row> rows) {
+        return rows.stream().map(Row::id).toList();
+    }
+}
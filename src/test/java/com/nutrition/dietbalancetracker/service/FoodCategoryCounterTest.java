@@ -0,0 +1,154 @@
+package com.nutrition.dietbalancetracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.List;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.nutrition.dietbalancetracker.model.FoodCategory;
+import com.nutrition.dietbalancetracker.model.FoodItem;
+import com.nutrition.dietbalancetracker.repository.FoodItemRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+class FoodCategoryCounterTest {
+
+    private final FoodItemRepository repository = mock(FoodItemRepository.class);
+    private final EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+    private final FoodCategoryCounter counter = new FoodCategoryCounter(repository, entityManagerFactory);
+    private final EntityPersister persister = mock(EntityPersister.class);
+    private PostInsertEventListener flushListener;
+
+    @BeforeEach
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void setUp() {
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+        ServiceRegistryImplementor services = mock(ServiceRegistryImplementor.class,
+                withSettings().withoutAnnotations());
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getServiceRegistry()).thenReturn(services);
+        EventListenerRegistry registry = mock(EventListenerRegistry.class);
+        when(services.getService(EventListenerRegistry.class)).thenReturn(registry);
+        counter.register();
+        ArgumentCaptor<PostInsertEventListener> flush = ArgumentCaptor.forClass(PostInsertEventListener.class);
+        verify(registry).appendListeners(eq(EventType.POST_INSERT), flush.capture());
+        flushListener = flush.getValue();
+        when(persister.getMappedClass()).thenReturn((Class) FoodItem.class);
+        when(persister.getPropertyNames()).thenReturn(new String[] {"category", "isActive"});
+    }
+
+    @Test
+    void reconcileCorrectsDrift() {
+        when(repository.countActiveByCategory()).thenReturn(List.of(count(FoodCategory.FRUIT, 3)));
+
+        assertEquals(1, counter.reconcile());
+        assertEquals(3L, fruitCount());
+        assertEquals(0, counter.reconcile());
+    }
+
+    @Test
+    void insertTheRecountMissedIsNotOverwritten() {
+        reconcileTo(3);
+        // The recount reads 3 rows; a fourth food commits and is counted
+        // by the listener before reconcile() applies its result
+        when(repository.countActiveByCategory()).thenAnswer(call -> {
+            commit(flush(FoodCategory.FRUIT));
+            return List.of(count(FoodCategory.FRUIT, 3));
+        });
+
+        assertEquals(0, counter.reconcile());
+        assertEquals(4L, fruitCount());
+    }
+
+    @Test
+    void insertTheRecountSawIsNotCountedTwiceWhenItsListenerRunsDuringTheQuery() {
+        reconcileTo(3);
+        PostInsertEvent insert = flush(FoodCategory.FRUIT); // committed before the GROUP BY
+        when(repository.countActiveByCategory()).thenAnswer(call -> {
+            commit(insert);
+            return List.of(count(FoodCategory.FRUIT, 4));
+        });
+
+        counter.reconcile();
+        assertEquals(4L, fruitCount());
+    }
+
+    @Test
+    void insertTheRecountSawIsNotCountedTwiceWhenItsListenerRunsAfterIt() {
+        reconcileTo(3);
+        PostInsertEvent insert = flush(FoodCategory.FRUIT);
+        when(repository.countActiveByCategory()).thenReturn(List.of(count(FoodCategory.FRUIT, 4)));
+
+        counter.reconcile();
+        commit(insert);
+        assertEquals(4L, fruitCount());
+    }
+
+    @Test
+    void deferredCategoryIsCorrectedByTheNextRun() {
+        reconcileTo(3);
+        PostInsertEvent insert = flush(FoodCategory.FRUIT);
+        when(repository.countActiveByCategory()).thenReturn(List.of(count(FoodCategory.FRUIT, 4)));
+        assertEquals(0, counter.reconcile());
+        counter.onPostInsertCommitFailed(insert); // rolled back after all
+
+        when(repository.countActiveByCategory()).thenReturn(List.of(count(FoodCategory.FRUIT, 5)));
+        assertEquals(1, counter.reconcile());
+        assertEquals(5L, fruitCount());
+    }
+
+    private void reconcileTo(long fruit) {
+        when(repository.countActiveByCategory()).thenReturn(List.of(count(FoodCategory.FRUIT, fruit)));
+        counter.reconcile();
+    }
+
+    /** Flush-time event of an insert, as Hibernate fires it before commit. */
+    private PostInsertEvent flush(FoodCategory category) {
+        PostInsertEvent event = mock(PostInsertEvent.class);
+        when(event.getPersister()).thenReturn(persister);
+        when(event.getState()).thenReturn(new Object[] {category, true});
+        flushListener.onPostInsert(event);
+        return event;
+    }
+
+    /** The same insert's post-commit event. */
+    private void commit(PostInsertEvent event) {
+        counter.onPostInsert(event);
+    }
+
+    private long fruitCount() {
+        return counter.getCounts().stream()
+                .filter(item -> FoodCategory.FRUIT.name().equals(item.get("category")))
+                .map(item -> (Long) item.get("count"))
+                .findFirst().orElse(0L);
+    }
+
+    private static FoodItemRepository.CategoryCount count(FoodCategory category, long count) {
+        return new FoodItemRepository.CategoryCount() {
+            @Override
+            public FoodCategory getCategory() {
+                return category;
+            }
+
+            @Override
+            public Long getCount() {
+                return count;
+            }
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package com.nutrition.dietbalancetracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.nutrition.dietbalancetracker.model.FoodCategory;
+
+class FoodFuzzyMatcherTest {
+
+    private static final String[] MENU = {
+            null,
+            "paneer tikka masala",   // 1
+            "paneer butter masala",  // 2
+            "chapati",               // 3
+            "aloo paratha",          // 4
+            "chana masala",          // 5
+            "chapli kebab",          // 6
+            "masala dosa"};          // 7
+
+    @Test
+    void everyQueryWordMustMatchANameWord() {
+        assertArrayEquals(new long[] {1}, search(MENU, "panir tika"));
+        assertArrayEquals(new long[] {7, 5, 1, 2}, search(MENU, "masaala"));
+        assertArrayEquals(new long[0], search(MENU, "paneer naan"));
+    }
+
+    @Test
+    void closerSpellingsRankFirst() {
+        String[] names = {null, "parata", "parota"};
+        assertArrayEquals(new long[] {2, 1}, search(names, "parotta")); // parota: 0 edits, parata: 1
+        assertArrayEquals(new long[] {3}, search(MENU, "chapatti"));
+        assertArrayEquals(new long[] {4}, search(MENU, "alu parotha"));
+    }
+
+    @Test
+    void onlyTheLastWordMatchesAsAPrefix() {
+        assertArrayEquals(new long[] {3, 6}, search(MENU, "chap"));
+        assertArrayEquals(new long[] {5}, search(MENU, "chana masal"));
+        assertArrayEquals(new long[0], search(MENU, "chan masala"));
+        assertArrayEquals(new long[0], search(MENU, "chap kebab"));
+    }
+
+    @Test
+    void categoryFilterDropsOtherFoods() {
+        FoodCategory[] categories = new FoodCategory[MENU.length];
+        categories[7] = FoodCategory.GRAIN;
+        long[] ids = FoodFuzzyMatcher.of(MENU).search("masala", MENU, categories, FoodCategory.GRAIN, 10);
+        assertArrayEquals(new long[] {7}, ids);
+    }
+
+    @Test
+    void treeWalkFindsEveryKeyWithinToleranceOfABruteForceScan() {
+        Random random = new Random(11);
+        String[] names = new String[2000];
+        for (int id = 1; id < names.length; id++) {
+            names[id] = word(random);
+        }
+        FoodFuzzyMatcher matcher = FoodFuzzyMatcher.of(names);
+        FoodCategory[] categories = new FoodCategory[names.length];
+
+        for (int q = 0; q < 300; q++) {
+            String query = word(random);
+            String key = IndicPhonetics.key(query);
+            int tolerance = key.length() < 4 ? 0 : key.length() < 7 ? 1 : 2;
+            long[] expected = IntStream.range(1, names.length)
+                    .filter(id -> {
+                        String other = IndicPhonetics.key(names[id]);
+                        return IndicPhonetics.distance(key, other, Integer.MAX_VALUE / 2) <= tolerance
+                                || (key.length() >= 2 && other.startsWith(key));
+                    })
+                    .asLongStream().toArray();
+            long[] found = matcher.search(query, names, categories, null, names.length);
+            assertArrayEquals(expected, LongStream.of(found).sorted().toArray(), query);
+        }
+    }
+
+    @Test
+    void vocabularyHoldsDistinctPhoneticKeys() {
+        // chapati/chapatti/chappati collapse to one key
+        assertEquals(1, FoodFuzzyMatcher.of(new String[] {null, "chapati", "chapatti", "chappati"}).vocabularySize());
+    }
+
+    private static long[] search(String[] names, String query) {
+        return FoodFuzzyMatcher.of(names).search(query, names, new FoodCategory[names.length], null, 10);
+    }
+
+    private static String word(Random random) {
+        String letters = "aabdeghikmnoprstuy";
+        StringBuilder word = new StringBuilder();
+        for (int i = 3 + random.nextInt(7); i > 0; i--) {
+            word.append(letters.charAt(random.nextInt(letters.length())));
+        }
+        return word.toString();
+    }
+}
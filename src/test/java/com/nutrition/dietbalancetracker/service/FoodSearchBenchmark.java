@@ -0,0 +1,104 @@
+package com.nutrition.dietbalancetracker.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.nutrition.dietbalancetracker.model.FoodCategory;
+import com.nutrition.dietbalancetracker.model.FoodItem;
+import com.nutrition.dietbalancetracker.model.NutrientProfile;
+
+/**
+ * FOOD SEARCH BENCHMARK
+ * =====================
+ * Exact (substring tiers) against fuzzy (trigram) food search on a
+ * {@link FoodSearchIndex}, for correctly spelled and misspelled queries, over
+ * catalogs of 1k and 10k foods built from common dish names and variants.
+ *
+ * Run with:
+ *   mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *       -Dexec.args="-cp %classpath com.nutrition.dietbalancetracker.service.FoodSearchBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FoodSearchBenchmark {
+
+    private static final int LIMIT = 50;
+
+    private static final String[] DISHES = {
+        "Chapati", "Naan", "Paratha", "Parotta", "Papadam", "Paneer Tikka", "Palak Paneer", "Dal Tadka",
+        "Dal Makhani", "Chana Masala", "Rajma", "Aloo Gobi", "Idli", "Dosa", "Masala Dosa", "Upma", "Poha",
+        "Biryani", "Pulao", "Samosa", "Pakora", "Dhokla", "Khichdi", "Sambar", "Rasam", "Brown Rice",
+        "Chicken Breast", "Salmon", "Broccoli", "Spinach", "Apple", "Banana", "Almonds", "Greek Yogurt",
+        "Oatmeal", "Whole Milk", "Boiled Egg", "Lentil Soup", "Quinoa", "Tofu"
+    };
+    private static final String[] VARIANTS = {
+        "Homemade", "Restaurant", "Frozen", "Spicy", "Butter", "Ghee", "Low Fat", "Whole Wheat",
+        "Stuffed", "Mini", "Family Pack", "Street Style", "Baked", "Grilled", "Organic"
+    };
+
+    @Param({"1000", "10000"})
+    public int foods;
+
+    @Param({"chapati", "chapatti", "parotta", "papadam", "paneer tika", "dal"})
+    public String query;
+
+    private FoodSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        Random rnd = new Random(42);
+        FoodCategory[] categories = FoodCategory.values();
+        List<FoodItem> catalog = new ArrayList<>(foods);
+        for (long id = 1; id <= foods; id++) {
+            String dish = DISHES[rnd.nextInt(DISHES.length)];
+            String variant = VARIANTS[rnd.nextInt(VARIANTS.length)];
+            FoodItem food = new FoodItem();
+            food.setId(id);
+            food.setName(variant + " " + dish + " #" + id);
+            food.setDescription(dish + ", " + variant.toLowerCase() + " (1 serving)");
+            food.setCategory(categories[rnd.nextInt(categories.length)]);
+            NutrientProfile np = new NutrientProfile();
+            np.setServingSize(100.0);
+            np.setCalories(50 + rnd.nextDouble() * 400);
+            np.setFoodItem(food);
+            food.setNutrientProfile(np);
+            catalog.add(food);
+        }
+        index = NutrientCatalogService.Snapshot.of(catalog, null).searchIndex();
+    }
+
+    @Benchmark
+    public long[] exact() {
+        return index.search(query, null, LIMIT);
+    }
+
+    @Benchmark
+    public long[] fuzzy() {
+        return index.searchFuzzy(query, null, LIMIT);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FoodSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
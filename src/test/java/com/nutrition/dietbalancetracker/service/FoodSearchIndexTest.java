@@ -0,0 +1,117 @@
+package com.nutrition.dietbalancetracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.nutrition.dietbalancetracker.model.FoodCategory;
+
+class FoodSearchIndexTest {
+
+    private static final FoodSearchIndex.Food[] RANKED = {
+            food(1, "Dried Mango Slices", "chewy"),       // name word prefix
+            food(2, "Mango", null),                       // name prefix, shortest name
+            food(3, "Mango Lassi", "yogurt drink"),       // name prefix
+            food(4, "Aam Panna", "raw mango cooler"),     // description word prefix
+            food(5, "Fruit Salad", "with amangos"),       // description substring
+            food(6, "Amchur", "powdered dry mango"),      // description word prefix, shorter name than 4
+            food(7, "Tamango Bar", null)};                // name substring
+
+    @Test
+    void ranksPrefixThenWordPrefixThenSubstringThenDescriptions() {
+        FoodSearchIndex index = FoodSearchIndex.update(null, List.of(RANKED));
+
+        assertArrayEquals(new long[] {2, 3, 1, 7, 6, 4, 5}, index.search("mango", null, 10));
+        assertArrayEquals(new long[] {2, 3, 1}, index.search("MANGO", null, 3));
+    }
+
+    @Test
+    void categoryFilterAppliesBeforeTheLimit() {
+        List<FoodSearchIndex.Food> foods = new ArrayList<>(List.of(RANKED));
+        foods.set(1, new FoodSearchIndex.Food(2, "Mango", null, FoodCategory.OTHER));
+
+        assertArrayEquals(new long[] {2},
+                FoodSearchIndex.update(null, foods).search("mango", FoodCategory.OTHER, 2));
+    }
+
+    @Test
+    void shortQueriesOnlyMatchWordStarts() {
+        FoodSearchIndex index = FoodSearchIndex.update(null, List.of(RANKED));
+
+        // "Amchur" (name) and "amangos" (description) start with it; "Aam" and "Tamango" only contain it
+        assertArrayEquals(new long[] {6, 5}, index.search("am", null, 10));
+    }
+
+    @Test
+    void trigramIntersectionFindsExactlyTheSubstringMatches() {
+        List<FoodSearchIndex.Food> foods = randomFoods(3000, 42);
+        FoodSearchIndex index = FoodSearchIndex.update(null, foods);
+
+        for (String query : List.of("mango", "rice", "ango", "dal mak", "paneer tikka", "lentil")) {
+            long[] expected = foods.stream()
+                    .filter(f -> FoodSearchIndex.normalize(f.name()).contains(query)
+                            || FoodSearchIndex.normalize(f.description()).contains(query))
+                    .mapToLong(FoodSearchIndex.Food::id).sorted().toArray();
+            long[] found = LongStream.of(index.search(query, null, foods.size())).sorted().toArray();
+            assertArrayEquals(expected, found, query);
+        }
+    }
+
+    @Test
+    void updateMatchesAFreshBuild() {
+        List<FoodSearchIndex.Food> foods = randomFoods(400, 7);
+        FoodSearchIndex previous = FoodSearchIndex.update(null, foods);
+
+        List<FoodSearchIndex.Food> edited = new ArrayList<>(foods);
+        edited.set(10, food(edited.get(10).id(), "Mango Kulfi", "frozen mango dessert"));
+        edited.remove(20);                              // deactivated or deleted
+        edited.add(food(1000, "Raw Mango Chutney", null)); // new food
+        FoodSearchIndex patched = FoodSearchIndex.update(previous, edited);
+        FoodSearchIndex fresh = FoodSearchIndex.update(null, edited);
+
+        assertEquals(fresh.size(), patched.size());
+        assertEquals(fresh.fuzzyVocabularySize(), patched.fuzzyVocabularySize());
+        for (String query : List.of("mango", "kulfi", "ra", "chutney", "rice", foods.get(20).name())) {
+            assertArrayEquals(fresh.search(query, null, 50), patched.search(query, null, 50), query);
+        }
+    }
+
+    @Test
+    void unchangedCatalogKeepsItsResults() {
+        List<FoodSearchIndex.Food> foods = randomFoods(200, 3);
+        FoodSearchIndex previous = FoodSearchIndex.update(null, foods);
+        FoodSearchIndex next = FoodSearchIndex.update(previous, List.copyOf(foods));
+
+        assertArrayEquals(previous.search("dal", null, 20), next.search("dal", null, 20));
+        assertArrayEquals(previous.searchFuzzy("daal", null, 20), next.searchFuzzy("daal", null, 20));
+    }
+
+    private static List<FoodSearchIndex.Food> randomFoods(int count, long seed) {
+        String[] words = {"mango", "rice", "dal", "makhani", "paneer", "tikka", "lentil", "soup", "orange",
+                "manila", "tango", "brown", "masala", "chana", "aloo", "gobi"};
+        Random random = new Random(seed);
+        List<FoodSearchIndex.Food> foods = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            foods.add(food(id, phrase(words, random), random.nextBoolean() ? phrase(words, random) : null));
+        }
+        return foods;
+    }
+
+    private static String phrase(String[] words, Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1 + random.nextInt(3); i > 0; i--) {
+            text.append(words[random.nextInt(words.length)]).append(i > 1 ? " " : "");
+        }
+        return text.toString();
+    }
+
+    private static FoodSearchIndex.Food food(int id, String name, String description) {
+        return new FoodSearchIndex.Food(id, name, description, FoodCategory.FRUIT);
+    }
+}
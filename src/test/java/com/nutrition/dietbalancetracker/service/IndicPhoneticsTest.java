@@ -0,0 +1,44 @@
+package com.nutrition.dietbalancetracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class IndicPhoneticsTest {
+
+    @Test
+    void documentedSpellingVariantsShareAKey() {
+        assertEquals("capati", IndicPhonetics.key("chapati"));
+        assertEquals("capati", IndicPhonetics.key("chapatti"));
+        assertEquals("capati", IndicPhonetics.key("chappati"));
+        assertEquals("parata", IndicPhonetics.key("paratha"));
+        assertEquals("paranta", IndicPhonetics.key("parantha"));
+        assertEquals("parota", IndicPhonetics.key("parotta"));
+        assertEquals("papad", IndicPhonetics.key("papad"));
+        assertEquals("papadum", IndicPhonetics.key("papadum"));
+        assertEquals("papadam", IndicPhonetics.key("pappadam"));
+    }
+
+    @Test
+    void aspiratesVowelsAndConsonantsFollowTheRules() {
+        assertEquals("cole", IndicPhonetics.key("chhole"));
+        assertEquals("kir", IndicPhonetics.key("kheer"));
+        assertEquals("dal", IndicPhonetics.key("daal"));
+        assertEquals("bel", IndicPhonetics.key("bhail"));
+        assertEquals("lasi", IndicPhonetics.key("lassi"));
+        assertEquals("kima", IndicPhonetics.key("qeema"));
+        assertEquals("fulka", IndicPhonetics.key("phulka"));
+        assertEquals("raita", IndicPhonetics.key("rayta"));
+        assertEquals("dosa", IndicPhonetics.key("dosah"));
+        assertEquals("jira", IndicPhonetics.key("zeera"));
+    }
+
+    @Test
+    void distanceStopsOncePastTheBound() {
+        assertEquals(0, IndicPhonetics.distance("capati", "capati", 2));
+        assertEquals(1, IndicPhonetics.distance("capati", "capti", 2));
+        assertEquals(3, IndicPhonetics.distance("idli", "parota", 2));     // lengths alone exceed it
+        assertEquals(3, IndicPhonetics.distance("parota", "kulcaa", 2));   // every row exceeds it
+        assertEquals(5, IndicPhonetics.distance("parota", "kulcaa", 10));
+    }
+}
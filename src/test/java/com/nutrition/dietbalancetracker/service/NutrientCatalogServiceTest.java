@@ -0,0 +1,135 @@
+package com.nutrition.dietbalancetracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.nutrition.dietbalancetracker.model.FoodCategory;
+import com.nutrition.dietbalancetracker.model.FoodItem;
+import com.nutrition.dietbalancetracker.model.Nutrient;
+import com.nutrition.dietbalancetracker.model.NutrientProfile;
+import com.nutrition.dietbalancetracker.repository.FoodItemRepository;
+
+class NutrientCatalogServiceTest {
+
+    private final FoodItemRepository repository = mock(FoodItemRepository.class);
+    private final NutrientCatalogService service = new NutrientCatalogService(repository, null);
+    private final List<FoodItem> foods = new ArrayList<>(List.of(food(1), food(2), food(3), food(4), food(5)));
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findAllWithNutrientProfile()).thenAnswer(call -> List.copyOf(foods));
+        when(repository.findAllWithNutrientProfileByIdIn(anyCollection())).thenAnswer(call -> {
+            Collection<Long> ids = call.getArgument(0);
+            return foods.stream().filter(f -> ids.contains(f.getId())).toList();
+        });
+        service.refresh();
+    }
+
+    @Test
+    void unknownIdsAboveTheCatalogDoNotRebuildIt() {
+        for (long id = 6; id < 1000; id++) {
+            assertFalse(service.covering(id).contains(id));
+        }
+        verify(repository, times(1)).findAllWithNutrientProfile();
+    }
+
+    @Test
+    void foodCreatedSinceTheLastRefreshIsPatchedInOnce() {
+        foods.add(food(6));
+        when(repository.existsById(6L)).thenReturn(true);
+
+        assertTrue(service.covering(6).contains(6));
+        assertTrue(service.covering(6).contains(6));
+        verify(repository, times(1)).findAllWithNutrientProfile();
+        verify(repository, times(1)).findAllWithNutrientProfileByIdIn(List.of(6L));
+        assertEquals(NutrientCatalogService.Snapshot.of(foods, null).version(), service.current().version());
+    }
+
+    @Test
+    void committedEditIsPatchedWithoutAReload() {
+        String before = service.current().version();
+        foods.get(1).getNutrientProfile().setCalories(250.0);
+        service.onPostUpdate(update(FoodItem.class, 2L));
+
+        NutrientCatalogService.Snapshot patched = service.current();
+        assertEquals(250.0, patched.get(2, Nutrient.CALORIES));
+        assertNotEquals(before, patched.version());
+        assertEquals(NutrientCatalogService.Snapshot.of(foods, null).version(), patched.version());
+        verify(repository, times(1)).findAllWithNutrientProfile();
+    }
+
+    @Test
+    void deletedFoodLeavesThePatchedSnapshot() {
+        foods.remove(0);
+        service.onPostDelete(delete(1L));
+
+        NutrientCatalogService.Snapshot patched = service.current();
+        assertFalse(patched.contains(1));
+        assertEquals(4, patched.size());
+        assertArrayEquals(new long[] {2, 3, 4, 5}, patched.activeIds());
+        assertEquals(0, patched.searchIndex().search("food 1", null, 10).length);
+        assertEquals(NutrientCatalogService.Snapshot.of(foods, null).version(), patched.version());
+        verify(repository, times(1)).findAllWithNutrientProfile();
+    }
+
+    @Test
+    void profileChangeWithoutItsFoodReloadsTheCatalog() {
+        service.onPostUpdate(update(NutrientProfile.class, 7L));
+
+        service.current();
+        verify(repository, times(2)).findAllWithNutrientProfile();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static PostUpdateEvent update(Class<?> type, Long id) {
+        EntityPersister persister = mock(EntityPersister.class);
+        when(persister.getMappedClass()).thenReturn((Class) type);
+        when(persister.getPropertyNames()).thenReturn(new String[] {"calories"});
+        PostUpdateEvent event = mock(PostUpdateEvent.class);
+        when(event.getPersister()).thenReturn(persister);
+        when(event.getId()).thenReturn(id);
+        when(event.getState()).thenReturn(new Object[] {100.0});
+        return event;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static PostDeleteEvent delete(Long id) {
+        EntityPersister persister = mock(EntityPersister.class);
+        when(persister.getMappedClass()).thenReturn((Class) FoodItem.class);
+        PostDeleteEvent event = mock(PostDeleteEvent.class);
+        when(event.getPersister()).thenReturn(persister);
+        when(event.getId()).thenReturn(id);
+        return event;
+    }
+
+    private static FoodItem food(long id) {
+        FoodItem food = new FoodItem();
+        food.setId(id);
+        food.setName("Food " + id);
+        food.setCategory(FoodCategory.OTHER);
+        NutrientProfile np = new NutrientProfile();
+        np.setServingSize(100.0);
+        np.setCalories(100.0);
+        np.setFoodItem(food);
+        food.setNutrientProfile(np);
+        return food;
+    }
+}
@@ -0,0 +1,68 @@
+package com.nutrition.dietbalancetracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.nutrition.dietbalancetracker.model.DailyNutrientRollup;
+import com.nutrition.dietbalancetracker.model.Nutrient;
+
+class NutrientPrefixIndexTest {
+
+    private static final LocalDate MAY_1 = LocalDate.of(2024, 5, 1);
+
+    // Active days May 1, 3 and 10: 1000, 2000 and 4000 kcal from 1, 2 and 3 entries
+    private final NutrientPrefixIndex index = NutrientPrefixIndex.of(List.of(
+            day(MAY_1, 1000, 1), day(MAY_1.plusDays(2), 2000, 2), day(MAY_1.plusDays(9), 4000, 3)));
+
+    @Test
+    void rangesSumTheActiveDaysTheyCover() {
+        assertRange(7000, 6, 3, MAY_1.minusYears(3), MAY_1.plusYears(3));
+        assertRange(3000, 3, 2, MAY_1, MAY_1.plusDays(2));
+        assertRange(6000, 5, 2, MAY_1.plusDays(1), MAY_1.plusDays(9));
+        assertRange(2000, 2, 1, MAY_1.plusDays(2), MAY_1.plusDays(2));
+    }
+
+    @Test
+    void rangeBetweenActiveDaysIsEmpty() {
+        assertRange(0, 0, 0, MAY_1.plusDays(3), MAY_1.plusDays(8));
+        assertRange(0, 0, 0, MAY_1.plusDays(1), MAY_1.plusDays(1));
+    }
+
+    @Test
+    void rangeBeforeTheFirstDayIsEmpty() {
+        assertRange(0, 0, 0, MAY_1.minusDays(30), MAY_1.minusDays(1));
+    }
+
+    @Test
+    void rangeAfterTheLastDayIsEmpty() {
+        assertRange(0, 0, 0, MAY_1.plusDays(10), MAY_1.plusDays(40));
+    }
+
+    @Test
+    void emptyHistoryHasNoDays() {
+        NutrientPrefixIndex empty = NutrientPrefixIndex.of(List.of());
+        NutrientVector totals = new NutrientVector();
+
+        assertEquals(0, empty.size());
+        assertEquals(new NutrientPrefixIndex.RangeSum(0, 0), empty.sumInto(MAY_1, MAY_1.plusDays(9), totals));
+        assertEquals(0, totals.get(Nutrient.CALORIES));
+    }
+
+    private void assertRange(double calories, int entries, int days, LocalDate from, LocalDate to) {
+        NutrientVector totals = new NutrientVector();
+        assertEquals(new NutrientPrefixIndex.RangeSum(entries, days), index.sumInto(from, to, totals));
+        assertEquals(calories, totals.get(Nutrient.CALORIES), 1e-9);
+    }
+
+    private static DailyNutrientRollup day(LocalDate date, double calories, int entries) {
+        DailyNutrientRollup day = new DailyNutrientRollup();
+        day.setRollupDate(date);
+        day.setCalories(calories);
+        day.setLunchCount(entries);
+        return day;
+    }
+}
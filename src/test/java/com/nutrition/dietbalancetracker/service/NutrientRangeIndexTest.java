@@ -0,0 +1,97 @@
+package com.nutrition.dietbalancetracker.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.nutrition.dietbalancetracker.model.FoodCategory;
+import com.nutrition.dietbalancetracker.model.Nutrient;
+
+class NutrientRangeIndexTest {
+
+    private static final NutrientRangeIndex.Column PROTEIN = NutrientRangeIndex.column("protein");
+
+    // ids 1..6 with protein 5, 9, 5, 9, 1, 5
+    private final NutrientRangeIndex index = index(5, 9, 5, 9, 1, 5);
+
+    @Test
+    void ascendingBreaksTiesByAscendingId() {
+        assertArrayEquals(new long[] {5, 1, 3, 6, 2, 4}, query(false, 10).ids());
+    }
+
+    @Test
+    void descendingBreaksTiesByAscendingId() {
+        assertArrayEquals(new long[] {2, 4, 1, 3, 6, 5}, query(true, 10).ids());
+        assertArrayEquals(new long[] {2, 4, 1}, query(true, 3).ids());
+    }
+
+    @Test
+    void rangesFilterBeforeTheLimit() {
+        NutrientRangeIndex.Result hits = index.query(
+                List.of(new NutrientRangeIndex.Range(PROTEIN, 2, 6)), null, PROTEIN, true, 2);
+        assertEquals(3, hits.total());
+        assertArrayEquals(new long[] {1, 3}, hits.ids());
+    }
+
+    @Test
+    void updateMatchesAFreshBuild() {
+        double[] protein = {5, 9, 5, 9, 1, 5, 7, 3};
+        double[] values = values(protein);
+        long[] ids = {1, 2, 3, 4, 5, 6, 7, 8};
+        boolean[] active = {true, true, true, true, true, true, true, true};
+        FoodCategory[] categories = new FoodCategory[ids.length];
+        Arrays.fill(categories, FoodCategory.OTHER);
+        NutrientRangeIndex before = NutrientRangeIndex.of(Arrays.copyOf(values, 6 * NutrientVector.SIZE),
+                Arrays.copyOf(ids, 6), Arrays.copyOf(active, 6), Arrays.copyOf(categories, 6));
+
+        values[1 * NutrientVector.SIZE + Nutrient.PROTEIN.ordinal()] = 5;  // id 2: 9 → 5, ties with 1, 3, 6
+        values[3 * NutrientVector.SIZE + Nutrient.CALORIES.ordinal()] = 0; // id 4: leaves density columns
+        active[4] = false;                                                   // id 5: deactivated
+        categories[5] = FoodCategory.FRUIT;                                  // id 6: recategorized
+        NutrientRangeIndex patched = NutrientRangeIndex.update(before, values, ids, active, categories,
+                new int[] {5, 1, 3, 4, 6, 7});
+        NutrientRangeIndex fresh = NutrientRangeIndex.of(values, ids, active, categories);
+
+        NutrientRangeIndex.Column density = NutrientRangeIndex.column("proteinPerKcal");
+        for (NutrientRangeIndex.Column sort : List.of(PROTEIN, density)) {
+            for (boolean descending : new boolean[] {false, true}) {
+                assertArrayEquals(fresh.query(List.of(), null, sort, descending, 10).ids(),
+                        patched.query(List.of(), null, sort, descending, 10).ids());
+            }
+        }
+        List<NutrientRangeIndex.Range> ranges = List.of(new NutrientRangeIndex.Range(PROTEIN, 4, 8));
+        assertArrayEquals(fresh.query(ranges, FoodCategory.OTHER, PROTEIN, false, 10).ids(),
+                patched.query(ranges, FoodCategory.OTHER, PROTEIN, false, 10).ids());
+    }
+
+    private NutrientRangeIndex.Result query(boolean descending, int limit) {
+        return index.query(List.of(), null, PROTEIN, descending, limit);
+    }
+
+    private static NutrientRangeIndex index(double... protein) {
+        int rows = protein.length;
+        long[] ids = new long[rows];
+        boolean[] active = new boolean[rows];
+        FoodCategory[] categories = new FoodCategory[rows];
+        for (int r = 0; r < rows; r++) {
+            ids[r] = r + 1;
+            active[r] = true;
+            categories[r] = FoodCategory.OTHER;
+        }
+        return NutrientRangeIndex.of(values(protein), ids, active, categories);
+    }
+
+    /** Rows of 100 kcal with the given protein. */
+    private static double[] values(double... protein) {
+        double[] values = new double[protein.length * NutrientVector.SIZE];
+        for (int r = 0; r < protein.length; r++) {
+            values[r * NutrientVector.SIZE + Nutrient.CALORIES.ordinal()] = 100;
+            values[r * NutrientVector.SIZE + Nutrient.PROTEIN.ordinal()] = protein[r];
+        }
+        return values;
+    }
+}